@@ -0,0 +1,55 @@
+class AliasThis {
+    public static void main(String[] a) {
+        Counter counter;
+        counter = new Counter();
+        System.out.println(counter.run(10));
+        System.out.println(counter.getValue());
+    }
+}
+
+class Counter {
+    int value;
+    Counter self;
+
+    public int setValue(int newValue) {
+        value = newValue;
+        return newValue;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public Counter getSelf() {
+        return self;
+    }
+
+    // the field is changed through other references to this in the middle of the loops
+    public int run(int count) {
+        int i;
+        int ignore;
+        int total;
+        Counter other;
+        self = this;
+        value = 0;
+        total = 0;
+        i = 0;
+        while (i < count) {
+            value = value + i;
+            other = this;
+            ignore = other.setValue((value) * 2);
+            total = total + value;
+            i = i + 1;
+        }
+        System.out.println(total);
+        i = 0;
+        while (i < count) {
+            value = value + 1;
+            other = this.getSelf();
+            ignore = other.setValue((other.getValue()) + 100);
+            total = total + value;
+            i = i + 1;
+        }
+        return total;
+    }
+}
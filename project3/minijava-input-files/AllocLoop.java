@@ -0,0 +1,57 @@
+class AllocLoop {
+    public static void main(String[] a) {
+        System.out.println(new Allocator().run(200));
+    }
+}
+
+class Point {
+    int x;
+    int y;
+
+    public int set(int newX, int newY) {
+        x = newX;
+        y = newY;
+        return x + y;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+}
+
+class Allocator {
+    Point last;
+
+    // every iteration allocates an object and an array, only some of the objects outlive the iteration
+    public int run(int count) {
+        int i;
+        int sum;
+        int ignore;
+        Point point;
+        int[] squares;
+        i = 0;
+        sum = 0;
+        while (i < count) {
+            point = new Point();
+            ignore = point.set(i, i * 2);
+            squares = new int[4];
+            squares[0] = point.getX();
+            squares[1] = (point.getY()) * (point.getY());
+            sum = sum + (squares[0]);
+            sum = sum + (squares[1]);
+            sum = sum + (squares[3]);
+            if (i < 100) {
+            }
+            else {
+                last = point;
+            }
+            i = i + 1;
+        }
+        System.out.println(sum);
+        return last.getX();
+    }
+}
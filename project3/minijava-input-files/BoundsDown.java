@@ -0,0 +1,29 @@
+class BoundsDown {
+    public static void main(String[] a) {
+        System.out.println(new Descent().run(5));
+    }
+}
+
+class Descent {
+
+    // the index goes down from the last element, the condition only bounds it from above
+    public int run(int size) {
+        int[] array;
+        int i;
+        int sum;
+        array = new int[size];
+        i = 0;
+        while (i < (array.length)) {
+            array[i] = i + 1;
+            i = i + 1;
+        }
+        i = (array.length) - 1;
+        sum = 0;
+        while (i < (array.length)) {
+            sum = sum + (array[i]);
+            System.out.println(sum);
+            i = i - 1;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,24 @@
+class BoundsLimit {
+    public static void main(String[] a) {
+        System.out.println(new Limit().run(6));
+    }
+}
+
+class Limit {
+
+    // the loop runs one element past the end of the array
+    public int run(int size) {
+        int[] array;
+        int limit;
+        int i;
+        array = new int[size];
+        limit = (array.length) + 1;
+        i = 0;
+        while (i < limit) {
+            array[i] = i * 2;
+            System.out.println(array[i]);
+            i = i + 1;
+        }
+        return i;
+    }
+}
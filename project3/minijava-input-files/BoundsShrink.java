@@ -0,0 +1,29 @@
+class BoundsShrink {
+    public static void main(String[] a) {
+        System.out.println(new Shrinker().run(10));
+    }
+}
+
+class Shrinker {
+
+    // the loop is bounded by the length of the first array, the array written is replaced by a shorter one
+    public int run(int size) {
+        int[] first;
+        int[] array;
+        int i;
+        first = new int[size];
+        array = first;
+        i = 0;
+        while (i < (first.length)) {
+            if (i < 4) {
+            }
+            else {
+                array = new int[4];
+            }
+            array[i] = i;
+            System.out.println(array[i]);
+            i = i + 1;
+        }
+        return i;
+    }
+}
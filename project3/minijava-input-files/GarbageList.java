@@ -0,0 +1,96 @@
+class GarbageList {
+    public static void main(String[] a) {
+        System.out.println(new Collector().run(1000, 300));
+    }
+}
+
+class Node {
+    int value;
+    Node next;
+
+    public int init(int v, Node n) {
+        value = v;
+        next = n;
+        return v;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public Node getNext() {
+        return next;
+    }
+}
+
+class Collector {
+    Node kept;
+    int[] data;
+
+    // sum of the values of the list that stays reachable, 499500 for 1000 nodes
+    public int sum() {
+        int total;
+        Node node;
+        int i;
+        total = 0;
+        node = kept;
+        i = 0;
+        while (i < 1000) {
+            total = total + (node.getValue());
+            node = node.getNext();
+            i = i + 1;
+        }
+        return total;
+    }
+
+    // a list only this method can reach, garbage once it returns
+    public int garbage(int size) {
+        Node head;
+        Node node;
+        int i;
+        int ignore;
+        head = new Node();
+        i = 0;
+        while (i < size) {
+            node = new Node();
+            ignore = node.init(i, head);
+            head = node;
+            i = i + 1;
+        }
+        return head.getValue();
+    }
+
+    // keeps a list of size nodes while rounds of garbage pass several collections around it
+    public int run(int size, int rounds) {
+        int i;
+        int round;
+        int check;
+        int ignore;
+        Node node;
+        kept = new Node();
+        i = 0;
+        while (i < size) {
+            node = new Node();
+            ignore = node.init(i, kept);
+            kept = node;
+            i = i + 1;
+        }
+        round = 0;
+        check = 0;
+        while (round < rounds) {
+            ignore = this.garbage(100);
+            data = new int[5000];
+            data[0] = round;
+            check = check + 1;
+            if (check < 50) {
+            }
+            else {
+                System.out.println(this.sum());
+                System.out.println(data[0]);
+                check = 0;
+            }
+            round = round + 1;
+        }
+        return this.sum();
+    }
+}
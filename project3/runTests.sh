@@ -1,9 +1,15 @@
 #! /bin/bash
 myOutputPath="./llvm-output/"
 courseOutputPath="./llvm-examples/"
+defaultOutputPath="./default-output/"
+
+# the flags of the optimizations and the runtime modes, every input must print
+# the same output as the default build with each of them
+flagSets=("-gc" "-O1" "-O1 -arena" "-O1 -gc" "-opaque-pointers -attributes")
 
 # run make to create executable
 (cd src/; make; java Main ../minijava-input-files/*.java; cd ../)
+mkdir -p "$defaultOutputPath"
 
 # for each file in the input directory
 for file in "$myOutputPath"/*; do
@@ -31,6 +37,9 @@ for file in "$myOutputPath"/*; do
         ./"$NAME"EX.out > "$NAME"EX.txt
         echo "Comparing $NAME"
 
+        # keep the output for the runs with the flags
+        cp "$NAME".txt "$defaultOutputPath"/"$NAME".txt
+
         # compare the two files
         diff "$NAME".txt "$NAME"EX.txt
 
@@ -41,10 +50,32 @@ for file in "$myOutputPath"/*; do
 
         # if there is no given .ll file example, run the executable produced by me and print the output
         echo "No example for $NAME, executing my result."
-        ./"$NAME".out
+        ./"$NAME".out | tee "$defaultOutputPath"/"$NAME".txt
         rm ./"$NAME".out
     fi
 done
 
-# delete the .ll files and .class files, with make clean
-(cd src/; make clean; cd ../; rm -rf ./llvm-output/*.ll)
+# compile the inputs again with every set of flags and compare the output with the default build
+for flags in "${flagSets[@]}"; do
+
+    rm -rf ./llvm-output/*.ll
+    (cd src/; java Main $flags ../minijava-input-files/*.java; cd ../)
+
+    for file in "$myOutputPath"/*.ll; do
+
+        # get the file name
+        NAME="$(basename $file .ll)"
+
+        echo "Comparing $NAME with $flags"
+
+        $1 -Wno-everything -g3 -o ./"$NAME".out "$file"
+        ./"$NAME".out > "$NAME".txt
+
+        diff "$NAME".txt "$defaultOutputPath"/"$NAME".txt
+
+        rm ./"$NAME".out "$NAME".txt
+    done
+done
+
+# delete the .ll files and .class files, with make clean, and the outputs of the default build
+(cd src/; make clean; cd ../; rm -rf ./llvm-output/*.ll "$defaultOutputPath")
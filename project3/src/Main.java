@@ -1,18 +1,30 @@
 import syntaxtree.*;
-import offsets.*;
 import symboltablebuilder.*;
 import symboltable.*;
 import exceptions.*;
+import compilationcontext.CompilationContext;
+import compilationcontext.CompilerOptions;
 import irgeneration.BuildTools;
 import irgeneration.LLVMCodeGeneration;
 import irgeneration.VTableBuilder;
+import ir.IRPrinter;
 import llfilebuilder.*;
+import optimizations.Optimizer;
 import semanticanalysis.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class Main {
 
@@ -23,123 +35,257 @@ public class Main {
 
     public static void main(String[] args) throws Exception {
 
-        if (args.length < 1){
-            System.err.println("Usage: java Main [file1] [file2] ... [fileN]");
+        // number of files compiled at the same time, by default one file after the other
+        int jobs = 1;
+
+        // the files given for compilation
+        List<String> files = new ArrayList<>();
+
+        // the options changing the generated code
+        CompilerOptions options = new CompilerOptions();
+
+        // parse the command line arguments
+        for (int i = 0; i < args.length; i++) {
+
+            // -j N compiles up to N files at the same time
+            if (args[i].equals("-j")) {
+
+                try {
+                    jobs = Integer.parseInt(args[++i]);
+                }
+                catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+                    jobs = 0;
+                }
+
+                // the number of jobs must be a positive number
+                if (jobs < 1) {
+                    System.err.println("Usage: java Main [-j N] [-mem2reg] [-O0|-O1] [-arena|-gc] [-opaque-pointers] [-attributes] [file1] [file2] ... [fileN]");
+                    System.exit(1);
+                }
+
+                continue;
+            }
+
+            // -mem2reg keeps the local variables in registers instead of the stack
+            if (args[i].equals("-mem2reg")) {
+                options.setPromoteLocals(true);
+                continue;
+            }
+
+            // -O0 and -O1 set how much the generated code is optimized
+            if (args[i].equals("-O0") || args[i].equals("-O1")) {
+                options.setOptimizationLevel(args[i].charAt(2) - '0');
+                continue;
+            }
+
+            // -arena allocates the objects and arrays from large regions instead of calling calloc for each one
+            if (args[i].equals("-arena")) {
+                options.setArenaAllocation(true);
+
+                // the flags of mmap are only known for linux, macOS and the BSDs
+                if (BuildTools.ARENA_MAP_FLAGS < 0) {
+                    System.err.println("-arena is not supported on " + System.getProperty("os.name"));
+                    System.exit(1);
+                }
+
+                continue;
+            }
+
+            // -gc frees the objects and arrays the program can not reach anymore with a mark and sweep collector
+            if (args[i].equals("-gc")) {
+                options.setGarbageCollection(true);
+                continue;
+            }
+
+            // -opaque-pointers writes every pointer as ptr, for llvm 15 and later
+            if (args[i].equals("-opaque-pointers")) {
+                options.setOpaquePointers(true);
+                continue;
+            }
+
+            // -attributes adds linkage, calling conventions, attributes and alias metadata for the optimizations of opt
+            if (args[i].equals("-attributes")) {
+                options.setEmitAttributes(true);
+                continue;
+            }
+
+            // every other argument is a file to compile
+            files.add(args[i]);
+        }
+
+        // the collector keeps its own header before every allocation, it can not use the arena
+        if (files.size() < 1 || (options.getArenaAllocation() && options.getGarbageCollection())){
+            System.err.println("Usage: java Main [-j N] [-mem2reg] [-O0|-O1] [-arena|-gc] [-opaque-pointers] [-attributes] [file1] [file2] ... [fileN]");
             System.exit(1);
         }
 
-        FileInputStream fis = null;
+        // compile all the files one after the other
+        if (jobs == 1) {
 
-        // create a symbol table builder object
-        SymbolTableBuilder eval = new SymbolTableBuilder();
+            // check all files given for analysis
+            for (String file : files) {
+                compile(file, options, System.out, System.err);
+            }
 
-        // create a semantic analysis object
-        SemanticAnalysis analysis = new SemanticAnalysis();
+            return;
+        }
 
-        VTableBuilder vTableGenerator = new VTableBuilder();
+        // compile the files on a work stealing pool with as many workers as the jobs asked
+        ForkJoinPool pool = new ForkJoinPool(jobs);
 
-        LLVMCodeGeneration codeGenerator = new LLVMCodeGeneration();
+        // submit the largest files first, the smaller ones fill the gaps left at the end
+        List<String> submitOrder = new ArrayList<>(files);
+        submitOrder.sort(Comparator.comparingLong((String file) -> new File(file).length()).reversed());
 
-        // check all files given for analysis
-        for (int i = 0; i < args.length; i++) {
+        // the messages of every file are kept until the file is compiled
+        // first is the standard output of the file and second is the standard error
+        Map<String, Future<CustomPair<String, String>>> results = new HashMap<>();
 
-            // boolean to check if the file passed the semantic analysis or not
-            boolean hasPassed = false;
+        for (String file : submitOrder) {
 
-            // clear the symbol table, offsets and maps in build tools if it is not the first file
-            if (i != 0) {
-                SymbolTable.reset();
-                Offsets.reset();
-                BuildTools.resetMaps();
-            }
+            // the same file could be given more than once
+            if (results.containsKey(file)) continue;
 
-            // try catch block to catch any errors
-            try {
+            results.put(file, pool.submit(() -> {
 
-                // create a file input stream to read the file
-                fis = new FileInputStream(args[i]);
+                // buffers for the messages of this file
+                ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
+                ByteArrayOutputStream errBuffer = new ByteArrayOutputStream();
 
-                // create the .ll file string
-                String llfile = LLFileBuilder.buildLLFile(args[i]);
+                compile(file, options, new PrintStream(outBuffer, true), new PrintStream(errBuffer, true));
 
-                // create the output file
-                PrintStream outFile = new PrintStream(outPath + llfile);
+                return new CustomPair<>(outBuffer.toString(), errBuffer.toString());
+            }));
+        }
 
-                // set the current output file to the ll file builder object
-                BuildTools.outFile = outFile;
+        // print the messages of the files in the order they were given
+        // so the output does not depend on which file finished first
+        for (String file : files) {
 
-                // create a parser object to parse the file
-                MiniJavaParser parser = new MiniJavaParser(fis);
+            // wait for the file to be compiled
+            CustomPair<String, String> messages = results.get(file).get();
 
-                // create a node object to store the parsed file
-                Goal root = parser.Goal();
+            System.err.print(messages.secondObj);
+            System.out.print(messages.firstObj);
+        }
 
-                // fill the symbol table with the parsed file
-                root.accept(eval, null);
+        pool.shutdown();
+    }
 
-                // analyze the parsed file
-                root.accept(analysis, null);
+    // compiles a single file with a context of its own
+    // the messages of the compilation are printed to the given streams
+    public static boolean compile(String file, CompilerOptions options, PrintStream out, PrintStream err) throws Exception {
 
-                // set the boolean to true, if we reach this point the file passed the semantic analysis
-                hasPassed = true;
+        // boolean to check if the file passed the semantic analysis or not
+        boolean hasPassed = false;
 
-                // compute the offsets
-                Offsets.computeOffests();
+        FileInputStream fis = null;
 
-                // generate the llvm intermidiate code for the vtable
-                root.accept(vTableGenerator, null);
+        // output file of the compilation
+        PrintStream outFile = null;
 
-                // generate the llvm intermidiate code for the program
-                root.accept(codeGenerator, analysis);
-            }
-            catch (ParseException ex) {
-                System.out.println(ex.getMessage());
-            }
-            catch (FileNotFoundException ex) {
-                ex.printStackTrace();
-                System.err.println(ex.getMessage());
-            }
-            catch (MultipleVariableDefition ex) {
-                System.err.println(ex.getMessage());
-            }
-            catch (MultipleClassDefinition ex) {
-                System.err.println(ex.getMessage());
-            }
-            catch (MultipleMethodDefinition ex) {
-                System.err.println(ex.getMessage());
-            }
-            catch (ClassNotFound ex) {
-                System.err.println(ex.getMessage());
-            }
-            catch (TypeMissMatch ex) {
-                System.err.println(ex.getMessage());
-            }
-            catch (UnknownType ex) {
-                System.err.println(ex.getMessage());
-            }
-            catch (NullPointerException ex) {
-                ex.printStackTrace();
-                System.err.println(args[i] + " : " + ex.getMessage());
-            }
-            catch (IndexOutOfBoundsException ex) {
-                ex.printStackTrace();
-                System.err.println(args[i] + " : " + ex.getMessage());
+        // try catch block to catch any errors
+        try {
+
+            // create a file input stream to read the file
+            fis = new FileInputStream(file);
+
+            // create the .ll file string
+            String llfile = LLFileBuilder.buildLLFile(file);
+
+            // create the output file
+            outFile = new PrintStream(outPath + llfile);
+
+            // every file has its own symbol table, offsets and build tools
+            CompilationContext context = new CompilationContext(file, options);
+
+            // create a parser object to parse the file
+            MiniJavaParser parser = new MiniJavaParser(fis);
+
+            // create a node object to store the parsed file
+            Goal root = parser.Goal();
+
+            // fill the symbol table with the parsed file
+            root.accept(new SymbolTableBuilder(context), null);
+
+            // index the inheritance tree of the classes found above
+            context.getSymbolTable().buildClassHierarchy();
+
+            // create a semantic analysis object
+            SemanticAnalysis analysis = new SemanticAnalysis(context);
+
+            // analyze the parsed file
+            root.accept(analysis, null);
+
+            // set the boolean to true, if we reach this point the file passed the semantic analysis
+            hasPassed = true;
+
+            // compute the offsets
+            context.getOffsets().computeOffests();
+
+            // generate the llvm intermidiate code for the vtable
+            root.accept(new VTableBuilder(context), null);
+
+            // generate the llvm intermidiate code for the program
+            root.accept(new LLVMCodeGeneration(context), analysis);
+
+            // run the optimizations asked for in the command line
+            new Optimizer(context).run();
+
+            // write the module to the .ll file
+            new IRPrinter(outFile, context.getOptions().getOpaquePointers()).print(context.getBuildTools().module);
+        }
+        catch (ParseException ex) {
+            out.println(ex.getMessage());
+        }
+        catch (FileNotFoundException ex) {
+            ex.printStackTrace(err);
+            err.println(ex.getMessage());
+        }
+        catch (MultipleVariableDefition ex) {
+            err.println(ex.getMessage());
+        }
+        catch (MultipleClassDefinition ex) {
+            err.println(ex.getMessage());
+        }
+        catch (MultipleMethodDefinition ex) {
+            err.println(ex.getMessage());
+        }
+        catch (ClassNotFound ex) {
+            err.println(ex.getMessage());
+        }
+        catch (TypeMissMatch ex) {
+            err.println(ex.getMessage());
+        }
+        catch (UnknownType ex) {
+            err.println(ex.getMessage());
+        }
+        catch (NullPointerException ex) {
+            ex.printStackTrace(err);
+            err.println(file + " : " + ex.getMessage());
+        }
+        catch (IndexOutOfBoundsException ex) {
+            ex.printStackTrace(err);
+            err.println(file + " : " + ex.getMessage());
+        }
+        finally {
+            try {
+                if(fis != null) fis.close();
             }
-            finally {
-                try {
-                    if(fis != null) fis.close();
-                }
-                catch (IOException ex){
-                    ex.printStackTrace();
-                    System.err.println(ex.getMessage());
-                }
+            catch (IOException ex){
+                ex.printStackTrace(err);
+                err.println(ex.getMessage());
             }
 
-            // check if the file passed the semantic analysis
-            // and print the appropriate message
-            // if the file passed calculate the offsets for the class fields and methods and store them in the vtable
-            if (hasPassed) System.out.println("File " + args[i] + " : " + greenText + "Pass" + resetText);
-            else System.out.println("File " + args[i] + " : " + redText + "Fail" + resetText);
+            // flush and close the .ll file
+            if (outFile != null) outFile.close();
         }
+
+        // check if the file passed the semantic analysis
+        // and print the appropriate message
+        if (hasPassed) out.println("File " + file + " : " + greenText + "Pass" + resetText);
+        else out.println("File " + file + " : " + redText + "Fail" + resetText);
+
+        return hasPassed;
     }
 }
@@ -0,0 +1,43 @@
+package compilationcontext;
+
+// custom packages
+import symboltable.SymbolTable;
+import offsets.Offsets;
+import irgeneration.BuildTools;
+
+/**
+ * All the state of the compilation of a single file.
+ * A new context is created for every file and passed to the visitors of that file,
+ * so files share nothing and can be compiled at the same time.
+ */
+public class CompilationContext {
+
+    // the file being compiled
+    String fileName;
+
+    // classes, methods and variables of the file
+    SymbolTable symbolTable;
+
+    // field and method offsets of the classes of the file
+    Offsets offsets;
+
+    // llvm module, labels and vtable information of the file
+    BuildTools buildTools;
+
+    // the options of the run, shared by all the files
+    CompilerOptions options;
+
+    public CompilationContext(String fileName, CompilerOptions options) {
+        this.fileName = fileName;
+        this.options = options;
+        this.symbolTable = new SymbolTable();
+        this.offsets = new Offsets(this.symbolTable);
+        this.buildTools = new BuildTools(fileName, options);
+    }
+
+    public String getFileName() { return this.fileName; }
+    public SymbolTable getSymbolTable() { return this.symbolTable; }
+    public Offsets getOffsets() { return this.offsets; }
+    public BuildTools getBuildTools() { return this.buildTools; }
+    public CompilerOptions getOptions() { return this.options; }
+}
@@ -0,0 +1,40 @@
+package compilationcontext;
+
+/**
+ * The options given in the command line that change the generated code.
+ * The same options are used for every file of a run.
+ */
+public class CompilerOptions {
+
+    // turn the stack slots of the local variables into SSA values
+    boolean promoteLocals;
+
+    // how much the code is optimized, 0 for no optimizations
+    int optimizationLevel;
+
+    // allocate with a bump pointer over regions from mmap instead of calloc
+    boolean arenaAllocation;
+
+    // collect the unreachable objects and arrays, the roots are kept in a shadow stack
+    boolean garbageCollection;
+
+    // write every pointer as ptr, for the llvm versions with opaque pointers, so no casts between pointers are needed
+    boolean opaquePointers;
+
+    // write the attributes and the metadata that tell llvm what the program can not do, for the optimizations of opt
+    boolean emitAttributes;
+
+    // the locals are promoted on their own with -mem2reg or with the optimizations of -O1
+    public boolean getPromoteLocals() { return this.promoteLocals || this.optimizationLevel >= 1; }
+    public void setPromoteLocals(boolean promoteLocals) { this.promoteLocals = promoteLocals; }
+    public int getOptimizationLevel() { return this.optimizationLevel; }
+    public void setOptimizationLevel(int optimizationLevel) { this.optimizationLevel = optimizationLevel; }
+    public boolean getArenaAllocation() { return this.arenaAllocation; }
+    public void setArenaAllocation(boolean arenaAllocation) { this.arenaAllocation = arenaAllocation; }
+    public boolean getGarbageCollection() { return this.garbageCollection; }
+    public void setGarbageCollection(boolean garbageCollection) { this.garbageCollection = garbageCollection; }
+    public boolean getOpaquePointers() { return this.opaquePointers; }
+    public void setOpaquePointers(boolean opaquePointers) { this.opaquePointers = opaquePointers; }
+    public boolean getEmitAttributes() { return this.emitAttributes; }
+    public void setEmitAttributes(boolean emitAttributes) { this.emitAttributes = emitAttributes; }
+}
@@ -0,0 +1,32 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// a parameter of a function as seen from inside the function
+public class Argument extends Value {
+
+    // name of the argument without the %
+    String name;
+
+    // the function the argument belongs to
+    Function parent;
+
+    // the attributes written before the name, i.e. nonnull
+    List<String> attributes = new ArrayList<>();
+
+    Argument(IRType type, String name, Function parent) {
+        super(type);
+        this.name = name;
+        this.parent = parent;
+    }
+
+    public String getName() { return this.name; }
+    public Function getParent() { return this.parent; }
+    public List<String> getAttributes() { return this.attributes; }
+
+    @Override
+    public String getReference() {
+        return "%" + this.name;
+    }
+}
@@ -0,0 +1,68 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// a label and the instructions up to the next branch or return
+public class BasicBlock extends Value {
+
+    // the label of the block
+    String name;
+
+    // the function the block belongs to
+    Function parent;
+
+    // the instructions of the block, the last one is a terminator once the block is complete
+    List<Instruction> instructions = new ArrayList<>();
+
+    BasicBlock(String name, Function parent) {
+        super(IRType.LABEL);
+        this.name = name;
+        this.parent = parent;
+    }
+
+    public String getName() { return this.name; }
+    public Function getParent() { return this.parent; }
+    public List<Instruction> getInstructions() { return this.instructions; }
+
+    // add an instruction at the end of the block
+    public void add(Instruction instruction) {
+        instruction.parent = this;
+        this.instructions.add(instruction);
+    }
+
+    // add an instruction at the given position of the block
+    public void insert(int index, Instruction instruction) {
+        instruction.parent = this;
+        this.instructions.add(index, instruction);
+    }
+
+    // put an instruction in the place of the one at the given position
+    public void set(int index, Instruction instruction) {
+        instruction.parent = this;
+        this.instructions.set(index, instruction);
+    }
+
+    // the last instruction if it ends the block, null otherwise
+    public Instruction getTerminator() {
+
+        if (this.instructions.isEmpty()) return null;
+
+        Instruction last = this.instructions.get(this.instructions.size() - 1);
+
+        return last.isTerminator() ? last : null;
+    }
+
+    // the blocks the terminator can jump to
+    public List<BasicBlock> getSuccessors() {
+
+        Instruction terminator = getTerminator();
+
+        return terminator == null ? new ArrayList<>() : terminator.getSuccessors();
+    }
+
+    @Override
+    public String getReference() {
+        return "%" + this.name;
+    }
+}
@@ -0,0 +1,30 @@
+package ir;
+
+import java.util.List;
+
+// a constant array, i.e. the function pointers of a vtable
+public class ConstantArray extends Value {
+
+    // the elements of the array
+    List<Value> elements;
+
+    public ConstantArray(IRType elementType, List<Value> elements) {
+        super(IRType.arrayOf(elements.size(), elementType));
+        this.elements = elements;
+    }
+
+    public List<Value> getElements() { return this.elements; }
+
+    @Override
+    public String getReference() {
+
+        StringBuilder reference = new StringBuilder("[");
+
+        for (int i = 0; i < this.elements.size(); i++) {
+            if (i != 0) reference.append(", ");
+            reference.append(this.elements.get(i).getType()).append(" ").append(this.elements.get(i).getReference());
+        }
+
+        return reference.append("]").toString();
+    }
+}
@@ -0,0 +1,20 @@
+package ir;
+
+// a constant pointer seen as a pointer of another type, i.e. a function in a vtable
+public class ConstantCast extends Value {
+
+    // the constant being cast
+    Value value;
+
+    public ConstantCast(Value value, IRType type) {
+        super(type);
+        this.value = value;
+    }
+
+    public Value getValue() { return this.value; }
+
+    @Override
+    public String getReference() {
+        return "bitcast (" + this.value.getType() + " " + this.value.getReference() + " to " + this.type + ")";
+    }
+}
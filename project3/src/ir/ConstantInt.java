@@ -0,0 +1,47 @@
+package ir;
+
+// an integer constant, booleans are i1 constants
+public class ConstantInt extends Value {
+
+    // the value of the constant
+    long value;
+
+    public ConstantInt(IRType type, long value) {
+        super(type);
+        this.value = value;
+    }
+
+    // the boolean constants
+    public static final ConstantInt TRUE = new ConstantInt(IRType.I1, 1);
+    public static final ConstantInt FALSE = new ConstantInt(IRType.I1, 0);
+
+    public static ConstantInt i32(long value) { return new ConstantInt(IRType.I32, value); }
+    public static ConstantInt bool(boolean value) { return value ? TRUE : FALSE; }
+
+    public long getValue() { return this.value; }
+
+    @Override
+    public String getReference() {
+
+        // booleans are written as true and false
+        if (this.type.getBits() == 1) return this.value != 0 ? "true" : "false";
+
+        return Long.toString(this.value);
+    }
+
+    // two constants of the same type and value are the same constant
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        ConstantInt that = (ConstantInt) obj;
+        return this.value == that.value && this.type.equals(that.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.value) * 31 + this.type.hashCode();
+    }
+}
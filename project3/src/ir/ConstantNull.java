@@ -0,0 +1,24 @@
+package ir;
+
+// the null pointer of a pointer type
+public class ConstantNull extends Value {
+
+    public ConstantNull(IRType type) {
+        super(type);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ConstantNull && ((ConstantNull) obj).type.equals(this.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.type.hashCode();
+    }
+
+    @Override
+    public String getReference() {
+        return "null";
+    }
+}
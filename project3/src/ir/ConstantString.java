@@ -0,0 +1,29 @@
+package ir;
+
+// a constant array of characters, the terminating zero is part of the text
+public class ConstantString extends Value {
+
+    // the characters of the string
+    String text;
+
+    public ConstantString(String text) {
+        super(IRType.arrayOf(text.length(), IRType.I8));
+        this.text = text;
+    }
+
+    public String getText() { return this.text; }
+
+    @Override
+    public String getReference() {
+
+        StringBuilder reference = new StringBuilder("c\"");
+
+        // printable characters are written as they are, everything else as two hex digits
+        for (char c : this.text.toCharArray()) {
+            if (c >= ' ' && c <= '~' && c != '"' && c != '\\') reference.append(c);
+            else reference.append(String.format("\\%02x", (int) c));
+        }
+
+        return reference.append("\"").toString();
+    }
+}
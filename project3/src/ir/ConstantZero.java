@@ -0,0 +1,14 @@
+package ir;
+
+// every byte of a value of the type set to zero, i.e. the initial contents of a buffer
+public class ConstantZero extends Value {
+
+    public ConstantZero(IRType type) {
+        super(type);
+    }
+
+    @Override
+    public String getReference() {
+        return "zeroinitializer";
+    }
+}
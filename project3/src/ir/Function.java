@@ -0,0 +1,110 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// a function of the module, a declaration if it has no basic blocks
+public class Function extends Value {
+
+    // name of the function without the @
+    String name;
+
+    // the type of the function, i.e. i32 (i8*, i32)
+    IRType functionType;
+
+    // the parameters of the function
+    List<Argument> arguments = new ArrayList<>();
+
+    // the basic blocks of the function, the first one is the entry block
+    List<BasicBlock> blocks = new ArrayList<>();
+
+    // the number of the next instruction result
+    int valueCounter;
+
+    // the linkage and the calling convention of the function, null for the defaults
+    String linkage;
+    String callingConvention;
+
+    // the attributes of the returned value, i.e. noalias, and of the function, i.e. noreturn
+    List<String> returnAttributes = new ArrayList<>();
+    List<String> attributes = new ArrayList<>();
+
+    public Function(String name, IRType functionType, List<String> parameterNames) {
+        super(functionType.pointerTo());
+        this.name = name;
+        this.functionType = functionType;
+
+        for (int i = 0; i < functionType.getParameterTypes().size(); i++) {
+            this.arguments.add(new Argument(functionType.getParameterTypes().get(i), parameterNames.get(i), this));
+        }
+    }
+
+    public String getName() { return this.name; }
+    public IRType getFunctionType() { return this.functionType; }
+    public IRType getReturnType() { return this.functionType.getReturnType(); }
+    public List<Argument> getArguments() { return this.arguments; }
+    public Argument getArgument(int index) { return this.arguments.get(index); }
+    public List<BasicBlock> getBlocks() { return this.blocks; }
+    public BasicBlock getEntryBlock() { return this.blocks.get(0); }
+    public String getLinkage() { return this.linkage; }
+    public void setLinkage(String linkage) { this.linkage = linkage; }
+    public String getCallingConvention() { return this.callingConvention; }
+    public void setCallingConvention(String callingConvention) { this.callingConvention = callingConvention; }
+    public List<String> getReturnAttributes() { return this.returnAttributes; }
+    public List<String> getAttributes() { return this.attributes; }
+
+    // a function with no body is declared in the module and defined elsewhere, i.e. printf
+    public boolean isDeclaration() { return this.blocks.isEmpty(); }
+
+    // add a new empty block at the end of the function
+    public BasicBlock createBlock(String name) {
+
+        BasicBlock block = new BasicBlock(name, this);
+        this.blocks.add(block);
+
+        return block;
+    }
+
+    // add a block created with the builder at the end of the function
+    public void addBlock(BasicBlock block) { this.blocks.add(block); }
+
+    // replace every use of the keys of the map with their values, a value can be replaced by a value that is replaced too
+    public void replaceAllUses(Map<Value, Value> replacements) {
+
+        if (replacements.isEmpty()) return;
+
+        for (BasicBlock block : this.blocks) {
+            for (Instruction instruction : block.instructions) {
+                for (int i = 0; i < instruction.operands.size(); i++) {
+
+                    Value operand = instruction.operands.get(i);
+
+                    while (replacements.containsKey(operand)) operand = replacements.get(operand);
+
+                    instruction.operands.set(i, operand);
+                }
+            }
+        }
+    }
+
+    // number the results again in the order they are printed, after instructions were removed or added
+    public void renumber() {
+
+        this.valueCounter = 0;
+
+        for (BasicBlock block : this.blocks) {
+            for (Instruction instruction : block.instructions) {
+                if (instruction.hasResult() && instruction.name == null) instruction.number = nextValueNumber();
+            }
+        }
+    }
+
+    // give the next number to an instruction result
+    int nextValueNumber() { return this.valueCounter++; }
+
+    @Override
+    public String getReference() {
+        return "@" + this.name;
+    }
+}
@@ -0,0 +1,35 @@
+package ir;
+
+// a global of the module, i.e. a vtable or a string, the value of the global is a pointer to it
+public class GlobalVariable extends Value {
+
+    // name of the global without the @
+    String name;
+
+    // the type of the contents of the global
+    IRType valueType;
+
+    // the initial contents
+    Value initializer;
+
+    // if the global can not be written
+    boolean constant;
+
+    public GlobalVariable(String name, Value initializer, boolean constant) {
+        super(initializer.getType().pointerTo());
+        this.name = name;
+        this.valueType = initializer.getType();
+        this.initializer = initializer;
+        this.constant = constant;
+    }
+
+    public String getName() { return this.name; }
+    public IRType getValueType() { return this.valueType; }
+    public Value getInitializer() { return this.initializer; }
+    public boolean isConstant() { return this.constant; }
+
+    @Override
+    public String getReference() {
+        return "@" + this.name;
+    }
+}
@@ -0,0 +1,157 @@
+package ir;
+
+import java.util.Arrays;
+
+/**
+ * Creates instructions at the end of a basic block.
+ * Every instruction with a result gets the next number of the function.
+ */
+public class IRBuilder {
+
+    // the function the instructions are created for
+    Function function;
+
+    // the block new instructions are added to
+    BasicBlock block;
+
+    public IRBuilder(Function function) {
+        this.function = function;
+    }
+
+    public Function getFunction() { return this.function; }
+    public BasicBlock getInsertBlock() { return this.block; }
+
+    // new instructions go to the end of the given block
+    public void setInsertPoint(BasicBlock block) { this.block = block; }
+
+    // add a new empty block at the end of the function
+    public BasicBlock createBlock(String name) { return this.function.createBlock(name); }
+
+    // a block that is not part of the function yet, for labels that are jumped to before they are placed
+    public BasicBlock newBlock(String name) { return new BasicBlock(name, this.function); }
+
+    // place the block at the end of the function and continue adding instructions to it
+    public void appendBlock(BasicBlock block) {
+        this.function.addBlock(block);
+        this.block = block;
+    }
+
+    // add the instruction to the current block
+    public Instruction insert(Instruction instruction) {
+
+        // named results, i.e. local variables, keep their name and do not take a number
+        if (instruction.hasResult() && instruction.name == null) instruction.number = this.function.nextValueNumber();
+
+        this.block.add(instruction);
+
+        return instruction;
+    }
+
+    public Instruction binary(Opcode opcode, Value left, Value right) {
+        return insert(new Instruction(opcode, left.getType(), left, right));
+    }
+
+    public Instruction add(Value left, Value right) { return binary(Opcode.ADD, left, right); }
+    public Instruction sub(Value left, Value right) { return binary(Opcode.SUB, left, right); }
+    public Instruction mul(Value left, Value right) { return binary(Opcode.MUL, left, right); }
+    public Instruction and(Value left, Value right) { return binary(Opcode.AND, left, right); }
+    public Instruction xor(Value left, Value right) { return binary(Opcode.XOR, left, right); }
+    public Instruction udiv(Value left, Value right) { return binary(Opcode.UDIV, left, right); }
+    public Instruction urem(Value left, Value right) { return binary(Opcode.UREM, left, right); }
+
+    public Instruction icmp(Predicate predicate, Value left, Value right) {
+
+        Instruction instruction = new Instruction(Opcode.ICMP, IRType.I1, left, right);
+        instruction.predicate = predicate;
+
+        return insert(instruction);
+    }
+
+    // memory for a value of the given type on the stack of the function, named after the variable it holds
+    public Instruction alloca(IRType allocatedType, String name) {
+
+        Instruction instruction = new Instruction(Opcode.ALLOCA, allocatedType.pointerTo());
+        instruction.operationType = allocatedType;
+        instruction.name = name;
+
+        return insert(instruction);
+    }
+
+    public Instruction load(Value pointer) {
+        return insert(new Instruction(Opcode.LOAD, pointer.getType().getElementType(), pointer));
+    }
+
+    public Instruction store(Value value, Value pointer) {
+        return insert(new Instruction(Opcode.STORE, IRType.VOID, value, pointer));
+    }
+
+    // pointer to an element, the first index steps over the pointer and the rest go inside arrays and structs
+    public Instruction getElementPointer(Value pointer, Value... indices) {
+
+        IRType indexedType = pointer.getType().getElementType();
+
+        Instruction instruction = new Instruction(Opcode.GETELEMENTPTR, indexedType.getIndexedType(Arrays.asList(indices)).pointerTo(), pointer);
+        instruction.operationType = indexedType;
+
+        for (Value index : indices) {
+            instruction.operands.add(index);
+        }
+
+        return insert(instruction);
+    }
+
+    public Instruction cast(Opcode opcode, Value value, IRType type) {
+        return insert(new Instruction(opcode, type, value));
+    }
+
+    public Instruction bitcast(Value value, IRType type) { return cast(Opcode.BITCAST, value, type); }
+    public Instruction zext(Value value, IRType type) { return cast(Opcode.ZEXT, value, type); }
+    public Instruction trunc(Value value, IRType type) { return cast(Opcode.TRUNC, value, type); }
+    public Instruction ptrToInt(Value value, IRType type) { return cast(Opcode.PTRTOINT, value, type); }
+
+    // call a function or a function pointer of the given function type
+    public Instruction call(Value callee, IRType functionType, Value... arguments) {
+
+        Instruction instruction = new Instruction(Opcode.CALL, functionType.getReturnType(), callee);
+        instruction.operationType = functionType;
+
+        for (Value argument : arguments) {
+            instruction.operands.add(argument);
+        }
+
+        return insert(instruction);
+    }
+
+    public Instruction call(Function callee, Value... arguments) {
+        return call(callee, callee.getFunctionType(), arguments);
+    }
+
+    // the incoming values are added with addIncoming
+    public Instruction phi(IRType type) {
+        return insert(new Instruction(Opcode.PHI, type));
+    }
+
+    public Instruction select(Value condition, Value trueValue, Value falseValue) {
+        return insert(new Instruction(Opcode.SELECT, trueValue.getType(), condition, trueValue, falseValue));
+    }
+
+    public Instruction br(BasicBlock target) {
+        return insert(new Instruction(Opcode.BR, IRType.VOID, target));
+    }
+
+    public Instruction condBr(Value condition, BasicBlock trueTarget, BasicBlock falseTarget) {
+        return insert(new Instruction(Opcode.BR, IRType.VOID, condition, trueTarget, falseTarget));
+    }
+
+    public Instruction ret(Value value) {
+        return insert(new Instruction(Opcode.RET, IRType.VOID, value));
+    }
+
+    public Instruction retVoid() {
+        return insert(new Instruction(Opcode.RET, IRType.VOID));
+    }
+
+    public Instruction unreachable() {
+        return insert(new Instruction(Opcode.UNREACHABLE, IRType.VOID));
+    }
+}
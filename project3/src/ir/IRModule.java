@@ -0,0 +1,61 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// everything generated for a file, the struct types, the globals, the functions and the metadata
+public class IRModule {
+
+    // the file the module is generated for
+    String name;
+
+    // the named struct types of the module in the order they are added
+    List<IRType> structTypes = new ArrayList<>();
+
+    // the globals of the module in the order they are added
+    List<GlobalVariable> globals = new ArrayList<>();
+
+    /**
+     * Function name to function map
+     * Usage : function name without the @ (String) -> function (Function object)
+     * Kept in the order the functions are added.
+     */
+    Map<String, Function> functions = new LinkedHashMap<>();
+
+    // the metadata nodes of the module, numbered in the order they are added
+    List<Metadata> metadata = new ArrayList<>();
+
+    public IRModule(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return this.name; }
+    public List<IRType> getStructTypes() { return this.structTypes; }
+    public List<GlobalVariable> getGlobals() { return this.globals; }
+    public Iterable<Function> getFunctions() { return this.functions.values(); }
+    public Function getFunction(String name) { return this.functions.get(name); }
+    public List<Metadata> getMetadata() { return this.metadata; }
+
+    public IRType addStructType(IRType structType) {
+        this.structTypes.add(structType);
+        return structType;
+    }
+
+    public GlobalVariable addGlobal(GlobalVariable global) {
+        this.globals.add(global);
+        return global;
+    }
+
+    public Function addFunction(Function function) {
+        this.functions.put(function.getName(), function);
+        return function;
+    }
+
+    public Metadata addMetadata(Metadata node) {
+        node.number = this.metadata.size();
+        this.metadata.add(node);
+        return node;
+    }
+}
@@ -0,0 +1,335 @@
+package ir;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Writes a module as the text of a .ll file.
+ * The struct types and the globals come first, then the declarations of the external functions, the function definitions
+ * and the metadata nodes.
+ * With opaque pointers every pointer type is written as ptr and the casts of constants are written as the constants they cast.
+ */
+public class IRPrinter {
+
+    // the .ll file
+    PrintStream out;
+
+    // the text of the module is built here and written once
+    StringBuilder text = new StringBuilder();
+
+    // write the pointers as ptr
+    boolean opaquePointers;
+
+    public IRPrinter(PrintStream out, boolean opaquePointers) {
+        this.out = out;
+        this.opaquePointers = opaquePointers;
+    }
+
+    public void print(IRModule module) {
+
+        for (IRType structType : module.getStructTypes()) {
+
+            // %class.A = type { i8**, i32 }
+            text.append(structType).append(" = type {");
+
+            for (int i = 0; i < structType.getElementTypes().size(); i++) {
+                text.append(i == 0 ? " " : ", ").append(type(structType.getElementTypes().get(i)));
+            }
+
+            text.append(" }\n");
+        }
+
+        if (!module.getStructTypes().isEmpty()) text.append("\n");
+
+        for (GlobalVariable global : module.getGlobals()) {
+            printGlobal(global);
+        }
+
+        text.append("\n");
+
+        for (Function function : module.getFunctions()) {
+            if (function.isDeclaration()) printDeclaration(function);
+        }
+
+        text.append("\n");
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) printFunction(function);
+        }
+
+        for (Metadata node : module.getMetadata()) {
+
+            // !0 = !{!"int", !1, i64 0}
+            text.append(node.getReference()).append(" = !{").append(String.join(", ", node.getOperands())).append("}\n");
+        }
+
+        out.append(text);
+        out.flush();
+    }
+
+    // the type of a value as written in the .ll file
+    String type(IRType type) {
+
+        if (!opaquePointers) return type.toString();
+
+        switch (type.getKind()) {
+
+            case POINTER:
+                return "ptr";
+
+            case ARRAY:
+                return "[" + type.getLength() + " x " + type(type.getElementType()) + "]";
+
+            case FUNCTION:
+                // i32 (ptr, ...)
+                StringBuilder functionType = new StringBuilder(type(type.getReturnType())).append(" (");
+
+                for (int i = 0; i < type.getParameterTypes().size(); i++) {
+                    if (i != 0) functionType.append(", ");
+                    functionType.append(type(type.getParameterTypes().get(i)));
+                }
+
+                if (type.isVarArgs()) functionType.append(type.getParameterTypes().isEmpty() ? "..." : ", ...");
+
+                return functionType.append(")").toString();
+
+            default:
+                return type.toString();
+        }
+    }
+
+    // a value used as an operand, the elements of the constant arrays are written with their types
+    String reference(Value value) {
+
+        // a cast pointer is the same ptr
+        if (opaquePointers && value instanceof ConstantCast) return reference(((ConstantCast) value).getValue());
+
+        if (value instanceof ConstantArray) {
+
+            StringBuilder reference = new StringBuilder("[");
+
+            for (Value element : ((ConstantArray) value).getElements()) {
+                if (reference.length() != 1) reference.append(", ");
+                reference.append(typed(element));
+            }
+
+            return reference.append("]").toString();
+        }
+
+        if (value instanceof ConstantCast) {
+            return "bitcast (" + typed(((ConstantCast) value).getValue()) + " to " + type(value.getType()) + ")";
+        }
+
+        return value.getReference();
+    }
+
+    // a value used as an operand, written after its type
+    String typed(Value value) {
+        return type(value.getType()) + " " + reference(value);
+    }
+
+    void printGlobal(GlobalVariable global) {
+
+        // @.A_vtable = global [1 x i8*] [...]
+        text.append(global.getReference()).append(" = ").append(global.isConstant() ? "constant " : "global ")
+                .append(typed(global.getInitializer())).append("\n");
+    }
+
+    // the linkage, the calling convention and the attributes of the result, written before the return type
+    void printPrefix(Function function) {
+
+        if (function.getLinkage() != null) text.append(function.getLinkage()).append(" ");
+        if (function.getCallingConvention() != null) text.append(function.getCallingConvention()).append(" ");
+
+        for (String attribute : function.getReturnAttributes()) {
+            text.append(attribute).append(" ");
+        }
+    }
+
+    // the attributes of the function, written after the parameters
+    void printAttributes(Function function) {
+
+        for (String attribute : function.getAttributes()) {
+            text.append(" ").append(attribute);
+        }
+    }
+
+    void printDeclaration(Function function) {
+
+        IRType functionType = function.getFunctionType();
+
+        // declare noalias i8* @calloc(i32, i32)
+        text.append("declare ");
+        printPrefix(function);
+        text.append(type(functionType.getReturnType())).append(" ").append(function.getReference()).append("(");
+
+        for (int i = 0; i < functionType.getParameterTypes().size(); i++) {
+            if (i != 0) text.append(", ");
+            text.append(type(functionType.getParameterTypes().get(i)));
+        }
+
+        if (functionType.isVarArgs()) text.append(functionType.getParameterTypes().isEmpty() ? "..." : ", ...");
+
+        text.append(")");
+        printAttributes(function);
+        text.append("\n");
+    }
+
+    void printFunction(Function function) {
+
+        // define i32 @A.foo(i8* %this, i32 %.x) {
+        text.append("define ");
+        printPrefix(function);
+        text.append(type(function.getReturnType())).append(" ").append(function.getReference()).append("(");
+
+        for (int i = 0; i < function.getArguments().size(); i++) {
+
+            Argument argument = function.getArgument(i);
+
+            if (i != 0) text.append(", ");
+            text.append(type(argument.getType())).append(" ");
+
+            for (String attribute : argument.getAttributes()) {
+                text.append(attribute).append(" ");
+            }
+
+            text.append(argument.getReference());
+        }
+
+        text.append(")");
+        printAttributes(function);
+        text.append(" {\n");
+
+        for (BasicBlock block : function.getBlocks()) {
+
+            text.append(block.getName()).append(":\n");
+
+            for (Instruction instruction : block.getInstructions()) {
+                printInstruction(instruction);
+            }
+        }
+
+        text.append("}\n\n");
+    }
+
+    void printInstruction(Instruction instruction) {
+
+        if (instruction.getComment() != null) {
+            text.append("\t; ").append(instruction.getComment()).append("\n");
+        }
+
+        text.append("\t");
+
+        if (instruction.hasResult()) {
+            text.append(instruction.getReference()).append(" = ");
+        }
+
+        Opcode opcode = instruction.getOpcode();
+
+        text.append(opcode.getText());
+
+        switch (opcode) {
+
+            case ICMP:
+                // icmp slt i32 %a, %b
+                text.append(" ").append(instruction.getPredicate().getText()).append(" ").append(typed(instruction.getOperand(0)))
+                        .append(", ").append(reference(instruction.getOperand(1)));
+                break;
+
+            case ALLOCA:
+                // alloca i32
+                text.append(" ").append(type(instruction.getOperationType()));
+                break;
+
+            case LOAD:
+                // load i32, i32* %x
+                text.append(" ").append(type(instruction.getType())).append(", ").append(typed(instruction.getOperand(0)));
+                break;
+
+            case STORE:
+                // store i32 %v, i32* %x
+                text.append(" ").append(typed(instruction.getOperand(0))).append(", ").append(typed(instruction.getOperand(1)));
+                break;
+
+            case GETELEMENTPTR:
+                // getelementptr i8, i8* %this, i32 8
+                text.append(" ").append(type(instruction.getOperationType()));
+
+                for (Value operand : instruction.getOperands()) {
+                    text.append(", ").append(typed(operand));
+                }
+                break;
+
+            case BITCAST:
+            case ZEXT:
+            case TRUNC:
+            case PTRTOINT:
+                // zext i1 %b to i32
+                text.append(" ").append(typed(instruction.getOperand(0))).append(" to ").append(type(instruction.getType()));
+                break;
+
+            case CALL:
+                printCall(instruction);
+                break;
+
+            case PHI:
+                // phi i1 [false, %andLabel0], [%_3, %andLabel2]
+                text.append(" ").append(type(instruction.getType())).append(" ");
+
+                for (int i = 0; i < instruction.getNumIncoming(); i++) {
+                    if (i != 0) text.append(", ");
+                    text.append("[").append(reference(instruction.getIncomingValue(i))).append(", ")
+                            .append(instruction.getIncomingBlock(i).getReference()).append("]");
+                }
+                break;
+
+            case BR:
+            case RET:
+            case SELECT:
+                // br i1 %c, label %a, label %b or ret i32 %r
+                if (instruction.getNumOperands() == 0 && opcode == Opcode.RET) text.append(" void");
+
+                for (int i = 0; i < instruction.getNumOperands(); i++) {
+                    text.append(i == 0 ? " " : ", ").append(typed(instruction.getOperand(i)));
+                }
+                break;
+
+            case UNREACHABLE:
+                break;
+
+            default:
+                // add i32 %a, %b
+                text.append(" ").append(typed(instruction.getOperand(0))).append(", ").append(reference(instruction.getOperand(1)));
+                break;
+        }
+
+        // load i32, i32* %_3, !tbaa !4
+        for (Map.Entry<String, Metadata> node : instruction.getMetadata().entrySet()) {
+            text.append(", !").append(node.getKey()).append(" ").append(node.getValue().getReference());
+        }
+
+        text.append("\n");
+    }
+
+    void printCall(Instruction instruction) {
+
+        IRType functionType = instruction.getOperationType();
+
+        // the calling convention of the function called, or of the call if it is made through a pointer
+        Value callee = instruction.getOperand(0);
+        String callingConvention = (callee instanceof Function) ? ((Function) callee).getCallingConvention() : instruction.getCallingConvention();
+
+        if (callingConvention != null) text.append(" ").append(callingConvention);
+
+        // variable argument functions are called with their whole type, the rest with the return type only
+        text.append(" ").append(functionType.isVarArgs() ? type(functionType) : type(functionType.getReturnType()))
+                .append(" ").append(reference(instruction.getOperand(0))).append("(");
+
+        for (int i = 1; i < instruction.getNumOperands(); i++) {
+            if (i != 1) text.append(", ");
+            text.append(typed(instruction.getOperand(i)));
+        }
+
+        text.append(")");
+    }
+}
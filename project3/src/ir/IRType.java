@@ -0,0 +1,162 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A type of the llvm ir, i.e. i32, i8*, [2 x i8*], i32 (i8*, i32) or %class.A.
+ * Types are compared by their text, so the same type can be built more than once.
+ * Structs are named, their text is the name and their elements are written once in the definition of the type.
+ */
+public class IRType {
+
+    public enum Kind { VOID, LABEL, INTEGER, POINTER, ARRAY, FUNCTION, STRUCT }
+
+    // what kind of type this is
+    Kind kind;
+
+    // number of bits of an integer type
+    int bits;
+
+    // the type pointed to, the type of the elements of an array or the return type of a function
+    IRType elementType;
+
+    // number of elements of an array type
+    int length;
+
+    // types of the parameters of a function type or of the elements of a struct type
+    List<IRType> parameterTypes;
+
+    // if a function type takes a variable number of arguments, i.e. printf
+    boolean varArgs;
+
+    // the type as written in the .ll file, i.e. i32*
+    String text;
+
+    IRType(Kind kind, String text) {
+        this.kind = kind;
+        this.text = text;
+    }
+
+    // the basic types
+    public static final IRType VOID = new IRType(Kind.VOID, "void");
+    public static final IRType LABEL = new IRType(Kind.LABEL, "label");
+    public static final IRType I1 = integer(1);
+    public static final IRType I8 = integer(8);
+    public static final IRType I32 = integer(32);
+    public static final IRType I64 = integer(64);
+
+    // the pointer types used by the objects, the arrays and the vtables
+    public static final IRType I8_PTR = pointerTo(I8);
+    public static final IRType I32_PTR = pointerTo(I32);
+    public static final IRType I8_PTR_PTR = pointerTo(I8_PTR);
+
+    public static IRType integer(int bits) {
+
+        IRType type = new IRType(Kind.INTEGER, "i" + bits);
+        type.bits = bits;
+
+        return type;
+    }
+
+    public static IRType pointerTo(IRType elementType) {
+
+        IRType type = new IRType(Kind.POINTER, elementType.text + "*");
+        type.elementType = elementType;
+
+        return type;
+    }
+
+    public static IRType arrayOf(int length, IRType elementType) {
+
+        IRType type = new IRType(Kind.ARRAY, "[" + length + " x " + elementType.text + "]");
+        type.elementType = elementType;
+        type.length = length;
+
+        return type;
+    }
+
+    public static IRType function(IRType returnType, List<IRType> parameterTypes, boolean varArgs) {
+
+        // i32 (i8*, ...)
+        StringBuilder text = new StringBuilder(returnType.text).append(" (");
+
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            if (i != 0) text.append(", ");
+            text.append(parameterTypes.get(i).text);
+        }
+
+        if (varArgs) text.append(parameterTypes.isEmpty() ? "..." : ", ...");
+
+        IRType type = new IRType(Kind.FUNCTION, text.append(")").toString());
+        type.elementType = returnType;
+        type.parameterTypes = new ArrayList<>(parameterTypes);
+        type.varArgs = varArgs;
+
+        return type;
+    }
+
+    // a named struct, the elements are set when the layout of the struct is known
+    public static IRType struct(String name) {
+
+        IRType type = new IRType(Kind.STRUCT, "%" + name);
+        type.parameterTypes = new ArrayList<>();
+
+        return type;
+    }
+
+    public void setElementTypes(List<IRType> elementTypes) {
+        this.parameterTypes = new ArrayList<>(elementTypes);
+    }
+
+    public Kind getKind() { return this.kind; }
+    public int getBits() { return this.bits; }
+    public IRType getElementType() { return this.elementType; }
+    public int getLength() { return this.length; }
+    public IRType getReturnType() { return this.elementType; }
+    public List<IRType> getParameterTypes() { return this.parameterTypes; }
+    public boolean isVarArgs() { return this.varArgs; }
+    public List<IRType> getElementTypes() { return this.parameterTypes; }
+
+    public boolean isVoid() { return this.kind == Kind.VOID; }
+    public boolean isInteger() { return this.kind == Kind.INTEGER; }
+    public boolean isPointer() { return this.kind == Kind.POINTER; }
+    public boolean isArray() { return this.kind == Kind.ARRAY; }
+    public boolean isFunction() { return this.kind == Kind.FUNCTION; }
+    public boolean isStruct() { return this.kind == Kind.STRUCT; }
+
+    public IRType pointerTo() { return pointerTo(this); }
+
+    // the type getelementptr reaches with the given indices, the first index steps over the pointer
+    // the indices of struct elements are constants
+    public IRType getIndexedType(List<Value> indices) {
+
+        IRType type = this;
+
+        for (int i = 1; i < indices.size(); i++) {
+            type = type.isStruct() ? type.parameterTypes.get((int) ((ConstantInt) indices.get(i)).getValue()) : type.elementType;
+        }
+
+        return type;
+    }
+
+    // methods to allow us to use this class as a key to a map
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+
+        return this.text.equals(((IRType) obj).text);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
@@ -0,0 +1,115 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An instruction of a basic block.
+ * The operands are values, the basic blocks a branch jumps to included.
+ * The incoming values of a phi are kept as pairs of value and block, i.e. v0, bb0, v1, bb1.
+ */
+public class Instruction extends Value {
+
+    // the operation of the instruction
+    Opcode opcode;
+
+    // the values the instruction uses
+    List<Value> operands = new ArrayList<>();
+
+    // the condition of an icmp
+    Predicate predicate;
+
+    // the type allocated by an alloca, the type indexed by a getelementptr or the type of the function called
+    IRType operationType;
+
+    // number of the result, unique inside the function
+    int number;
+
+    // name of the result instead of the number, i.e. the name of a local variable
+    String name;
+
+    // the basic block the instruction is in
+    BasicBlock parent;
+
+    // a comment printed above the instruction
+    String comment;
+
+    // the calling convention of a call through a function pointer, the calls of functions use the one of the function
+    String callingConvention;
+
+    /**
+     * Metadata kind to metadata node map
+     * Usage : kind of the metadata without the ! (String), i.e. tbaa -> node attached to the instruction (Metadata object)
+     */
+    Map<String, Metadata> metadata = new LinkedHashMap<>();
+
+    public Instruction(Opcode opcode, IRType type, Value... operands) {
+        super(type);
+        this.opcode = opcode;
+
+        for (Value operand : operands) {
+            this.operands.add(operand);
+        }
+    }
+
+    public Opcode getOpcode() { return this.opcode; }
+    public List<Value> getOperands() { return this.operands; }
+    public Value getOperand(int index) { return this.operands.get(index); }
+    public void setOperand(int index, Value value) { this.operands.set(index, value); }
+    public int getNumOperands() { return this.operands.size(); }
+    public Predicate getPredicate() { return this.predicate; }
+    public void setPredicate(Predicate predicate) { this.predicate = predicate; }
+    public IRType getOperationType() { return this.operationType; }
+    public void setOperationType(IRType operationType) { this.operationType = operationType; }
+    public int getNumber() { return this.number; }
+    public String getName() { return this.name; }
+    public void setName(String name) { this.name = name; }
+    public BasicBlock getParent() { return this.parent; }
+    public String getComment() { return this.comment; }
+    public void setComment(String comment) { this.comment = comment; }
+    public String getCallingConvention() { return this.callingConvention; }
+    public void setCallingConvention(String callingConvention) { this.callingConvention = callingConvention; }
+    public Map<String, Metadata> getMetadata() { return this.metadata; }
+    public void setMetadata(String kind, Metadata node) { this.metadata.put(kind, node); }
+
+    public boolean isTerminator() { return this.opcode.isTerminator(); }
+
+    // if the instruction produces a value other instructions can use
+    public boolean hasResult() { return !this.type.isVoid(); }
+
+    // incoming values of a phi
+    public void addIncoming(Value value, BasicBlock block) {
+        this.operands.add(value);
+        this.operands.add(block);
+    }
+
+    public int getNumIncoming() { return this.operands.size() / 2; }
+    public Value getIncomingValue(int index) { return this.operands.get(2 * index); }
+    public BasicBlock getIncomingBlock(int index) { return (BasicBlock) this.operands.get(2 * index + 1); }
+
+    public void removeIncoming(int index) {
+        this.operands.remove(2 * index + 1);
+        this.operands.remove(2 * index);
+    }
+
+    // the blocks a branch can jump to
+    public List<BasicBlock> getSuccessors() {
+
+        List<BasicBlock> successors = new ArrayList<>(2);
+
+        if (this.opcode == Opcode.BR) {
+            for (Value operand : this.operands) {
+                if (operand instanceof BasicBlock) successors.add((BasicBlock) operand);
+            }
+        }
+
+        return successors;
+    }
+
+    @Override
+    public String getReference() {
+        return this.name != null ? "%" + this.name : "%_" + this.number;
+    }
+}
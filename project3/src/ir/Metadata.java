@@ -0,0 +1,24 @@
+package ir;
+
+import java.util.Arrays;
+import java.util.List;
+
+// a metadata node of the module, i.e. !0 = !{i32 0, i32 -2147483648}, numbered when it is added to the module
+public class Metadata {
+
+    // the operands as written in the .ll file, i.e. !"int", !1 or i64 0
+    List<String> operands;
+
+    // number of the node in the module
+    int number;
+
+    public Metadata(String... operands) {
+        this.operands = Arrays.asList(operands);
+    }
+
+    public List<String> getOperands() { return this.operands; }
+
+    public String getReference() {
+        return "!" + this.number;
+    }
+}
@@ -0,0 +1,50 @@
+package ir;
+
+// the operations of the instructions, as written in the .ll file
+public enum Opcode {
+
+    // integer arithmetic and logic, the divisions are unsigned
+    ADD("add"), SUB("sub"), MUL("mul"), AND("and"), OR("or"), XOR("xor"), UDIV("udiv"), UREM("urem"),
+
+    // integer comparison, the predicate is kept in the instruction
+    ICMP("icmp"),
+
+    // memory
+    ALLOCA("alloca"), LOAD("load"), STORE("store"), GETELEMENTPTR("getelementptr"),
+
+    // conversions
+    BITCAST("bitcast"), ZEXT("zext"), TRUNC("trunc"), PTRTOINT("ptrtoint"),
+
+    // everything else
+    CALL("call"), PHI("phi"), SELECT("select"),
+
+    // the instructions ending a basic block
+    BR("br", true), RET("ret", true), UNREACHABLE("unreachable", true);
+
+    // the name of the operation in the .ll file
+    final String text;
+
+    // if the instruction ends a basic block
+    final boolean terminator;
+
+    Opcode(String text) {
+        this(text, false);
+    }
+
+    Opcode(String text, boolean terminator) {
+        this.text = text;
+        this.terminator = terminator;
+    }
+
+    public String getText() { return this.text; }
+    public boolean isTerminator() { return this.terminator; }
+
+    // the two operand operations
+    public boolean isBinary() { return this.ordinal() <= UREM.ordinal(); }
+
+    // the two operand operations whose operands can be swapped
+    public boolean isCommutative() { return this == ADD || this == MUL || this == AND || this == OR || this == XOR; }
+
+    // the conversions
+    public boolean isCast() { return this == BITCAST || this == ZEXT || this == TRUNC || this == PTRTOINT; }
+}
@@ -0,0 +1,16 @@
+package ir;
+
+// the conditions of the icmp instruction
+public enum Predicate {
+
+    EQ("eq"), NE("ne"), SGT("sgt"), SGE("sge"), SLT("slt"), SLE("sle"), UGT("ugt"), UGE("uge"), ULT("ult"), ULE("ule");
+
+    // the name of the condition in the .ll file
+    final String text;
+
+    Predicate(String text) {
+        this.text = text;
+    }
+
+    public String getText() { return this.text; }
+}
@@ -0,0 +1,24 @@
+package ir;
+
+/**
+ * Anything an instruction can use, i.e. constants, globals, function arguments, basic blocks and the results of instructions.
+ */
+public abstract class Value {
+
+    // the type of the value
+    IRType type;
+
+    Value(IRType type) {
+        this.type = type;
+    }
+
+    public IRType getType() { return this.type; }
+
+    // how the value is written as an operand, i.e. %_3, 5 or @A.foo
+    public abstract String getReference();
+
+    @Override
+    public String toString() {
+        return getReference();
+    }
+}
@@ -1,78 +1,184 @@
 package irgeneration;
 
 import java.io.File;
-import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import compilationcontext.CompilerOptions;
+import ir.*;
 import symboltable.ClassInformation;
-import symboltable.CustomPair;
-import symboltable.MethodInformation;
 
 public class BuildTools {
 
-    // output file
-    public static PrintStream outFile;
+    // bytes of every region the arena allocator takes from mmap, larger allocations get a region of their own
+    public static final int ARENA_REGION_SIZE = 1 << 20;
+
+    // MAP_PRIVATE | MAP_ANONYMOUS for the mmap of the arena regions on the system the compiler runs on, the program is
+    // expected to run there too, MAP_ANONYMOUS is 0x20 on linux and 0x1000 on macOS and the BSDs, -1 anywhere else
+    public static final int ARENA_MAP_FLAGS = arenaMapFlags(System.getProperty("os.name", ""));
+
+    static int arenaMapFlags(String system) {
+
+        system = system.toLowerCase();
+
+        if (system.contains("linux")) return 0x22;
+        if (system.contains("mac") || system.contains("darwin") || system.contains("bsd")) return 0x1002;
+
+        return -1;
+    }
+
+    // bytes allocated before the first collection, later the collector runs after twice the bytes that survived
+    public static final long GC_INITIAL_THRESHOLD = 1 << 20;
+
+    // bytes of the header the collector keeps before every object and array
+    // the next allocation, the pointer map, the next gray object and the size of the allocation
+    public static final int GC_HEADER_SIZE = 32;
+
+    // bytes of the output buffer, the prints are written to standard output when it fills
+    public static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    // name of the llvm intrinsic that clears memory, with typed and with opaque pointers
+    public static final String MEMSET = "llvm.memset.p0i8.i32";
+    public static final String OPAQUE_MEMSET = "llvm.memset.p0.i32";
+
+    // the llvm module of the file, everything generated is added here and printed at the end
+    public IRModule module;
 
     // label counter
-    public static int labelCounter;
+    public int labelCounter;
+
+    // dispatch table of every class, method name to the vtable slot with the function to call
+    public Map<ClassInformation, Map<String, DispatchEntry>> dispatchTableMap = new HashMap<>();
+
+    // vtable global of every class
+    public Map<ClassInformation, GlobalVariable> vtableMap = new HashMap<>();
+
+    // functions of the c library
+    public Function calloc;
+    public Function write;
+    public Function exit;
+    public Function mmap;
+    public Function free;
+    public Function memset;
+
+    // the function every object and array is allocated with, calloc or the arena allocator
+    public Function allocate;
+
+    // functions of the runtime, printing and errors
+    public Function flushOutput;
+    public Function printInt;
+    public Function throwOob;
+    public Function throwNsz;
+
+    // the arena allocator, the bump pointer fast path and the refilling of the region
+    public Function arenaAlloc;
+    public Function arenaRefill;
+
+    // the garbage collector, the allocation, the marking of an object and the whole collection
+    public Function gcAlloc;
+    public Function gcMark;
+    public Function gcCollect;
+
+    // the top frame of the shadow stack, every function that can collect pushes a frame with its roots
+    public GlobalVariable gcTop;
+
+    /**
+     * Class to pointer map map
+     * Usage : class information (ClassInformation object) -> offsets of the pointer fields ending with -1 (GlobalVariable object)
+     * Filled while the allocations are generated, classes without pointer fields have no map.
+     */
+    public Map<ClassInformation, GlobalVariable> pointerMapMap = new HashMap<>();
+
+    /**
+     * Access tag map
+     * Usage : memory accessed, i.e. Tree.key or int[] (String) -> type based alias analysis tag of its loads and stores (Metadata object)
+     * Every field, the elements of the arrays, the lengths of the arrays and the vtables get their own type under the type
+     * of the value they keep, so llvm knows the accesses of different kinds of memory do not alias.
+     */
+    Map<String, Metadata> accessTagMap = new HashMap<>();
+
+    // the value types the memory types are under, i.e. i32, and the root of all the types
+    Map<String, Metadata> valueTypeMap = new HashMap<>();
+    Metadata typeRoot;
+
+    // the values an array length can have, from zero to the largest int
+    Metadata arrayLengthRange;
+
+    // the weights of a branch that almost always goes to its first target
+    Metadata likelyBranchWeights;
+
+    // the options of the run, the runtime depends on them
+    CompilerOptions options;
+
+    // every compilation builds its own module
+    public BuildTools(String fileName, CompilerOptions options) {
+        this.module = new IRModule(fileName);
+        this.options = options;
+    }
 
-    // register counter
-    public static int registerCounter;
+    // the type based alias analysis tag of the loads and stores of some memory, made the first time it is asked for
+    public Metadata getAccessTag(String memory, IRType valueType) {
 
-    // register name to register information object map
-    public static Map<String, RegisterInformation> registerMap = new HashMap<>();
+        if (accessTagMap.containsKey(memory)) return accessTagMap.get(memory);
 
-    // vtable for classes
-    public static Map<CustomPair<ClassInformation, MethodInformation>, Integer> vtalbeMap = new HashMap<>();
+        // !0 = !{!"minijava"}
+        if (typeRoot == null) typeRoot = module.addMetadata(new Metadata("!\"minijava\""));
 
-    // vtable type for classes
-    public static Map<ClassInformation, String> classVtableType = new HashMap<>();
+        // !1 = !{!"i32", !0, i64 0}, the pointers are one type whatever they point to
+        String valueTypeName = valueType.isPointer() ? "pointer" : valueType.toString();
 
-    // method signature in vtable map
-    public static Map<CustomPair<ClassInformation, MethodInformation>, String> methodSignatureInVtableMap = new HashMap<>();
+        if (!valueTypeMap.containsKey(valueTypeName)) {
+            valueTypeMap.put(valueTypeName, module.addMetadata(new Metadata("!\"" + valueTypeName + "\"", typeRoot.getReference(), "i64 0")));
+        }
 
-    // build the .ll file name from the .java file name
-    public static String buildLLFile(String fileName) {
+        // !2 = !{!"Tree.key", !1, i64 0} and the tag !3 = !{!2, !2, i64 0}
+        Metadata memoryType = module.addMetadata(new Metadata("!\"" + memory + "\"", valueTypeMap.get(valueTypeName).getReference(), "i64 0"));
+        Metadata tag = module.addMetadata(new Metadata(memoryType.getReference(), memoryType.getReference(), "i64 0"));
 
-        // create a new file object
-        File minijavaFile = new File(fileName);
+        accessTagMap.put(memory, tag);
 
-        // build the string of the .ll file
-        String llfile = minijavaFile.getName().substring(0, minijavaFile.getName().indexOf(".")) + ".ll";
+        return tag;
+    }
 
-        // return .ll file string
-        return llfile;
+    // the range metadata of the loads of array lengths, the wrapped upper bound is one past the largest int
+    public Metadata getArrayLengthRange() {
+
+        if (arrayLengthRange == null) arrayLengthRange = module.addMetadata(new Metadata("i32 0", "i32 " + Integer.MIN_VALUE));
+
+        return arrayLengthRange;
     }
 
-    // emit llvm code to the .ll file
-    public static void emit(String text) { outFile.append(text + "\n"); }
+    // the profile metadata of the checks, the true target is taken two thousand times for every time the false one is
+    public Metadata getLikelyBranchWeights() {
 
-    // create new register
-    public static String newRegister(String registerType) {
+        if (likelyBranchWeights == null) likelyBranchWeights = module.addMetadata(new Metadata("!\"branch_weights\"", "i32 2000", "i32 1"));
 
-        // create the register name
-        String register = "%_" + registerCounter;
+        return likelyBranchWeights;
+    }
 
-        // increment the register counter
-        registerCounter++;
+    // the name of the memset intrinsic is mangled with the type of the pointer
+    public String getMemsetName() {
+        return options.getOpaquePointers() ? OPAQUE_MEMSET : MEMSET;
+    }
 
-        // create a new register information object
-        RegisterInformation registerInfo = new RegisterInformation();
+    // build the .ll file name from the .java file name
+    public static String buildLLFile(String fileName) {
 
-        // set register name and register type
-        registerInfo.setRegisterName(register);
-        registerInfo.setRegisterType(registerType);
+        // create a new file object
+        File minijavaFile = new File(fileName);
 
-        // add the register information object to the map
-        registerMap.put(register, registerInfo);
+        // build the string of the .ll file
+        String llfile = minijavaFile.getName().substring(0, minijavaFile.getName().indexOf(".")) + ".ll";
 
-        // return the name
-        return register;
+        // return .ll file string
+        return llfile;
     }
 
     // create new label
-    public static String newLabel(String labelName, boolean doIncrement) {
+    public String newLabel(String labelName, boolean doIncrement) {
         // create the label name
         String label = labelName + labelCounter;
 
@@ -86,130 +192,537 @@ public class BuildTools {
         return label;
     }
 
-    // trivial emits to .ll file
-    public static void addStandardDeclarations() {
+    // declare a function of the c library
+    public Function declare(String name, IRType returnType, boolean varArgs, IRType... parameterTypes) {
+
+        List<IRType> types = Arrays.asList(parameterTypes);
+        List<String> names = new ArrayList<>();
 
-        // emit a new line to the .ll file
-        // pretty printing
-        emit("\n");
+        // declarations have no parameter names
+        for (int i = 0; i < types.size(); i++) names.add("");
 
-        // declare the calloc function
-        emit("declare i8* @calloc(i32, i32)");
+        return module.addFunction(new Function(name, IRType.function(returnType, types, varArgs), names));
+    }
+
+    public void addStandardDeclarations() {
+
+        // declare the calloc function, the collector is the only caller with it and passes sizes as wide as size_t
+        IRType callocSize = options.getGarbageCollection() ? IRType.I64 : IRType.I32;
+        calloc = declare("calloc", IRType.I8_PTR, false, callocSize, callocSize);
 
-        // declare the printf function
-        emit("declare i32 @printf(i8*, ...)");
+        // declare the write function
+        write = declare("write", IRType.I64, false, IRType.I32, IRType.I8_PTR, IRType.I64);
 
         // declare the exit function
-        emit("declare void @exit(i32)");
+        exit = declare("exit", IRType.VOID, false, IRType.I32);
 
-        // emit a new line to the .ll file
-        // pretty printing
-        emit("\n");
+        // objects and arrays are allocated with calloc unless the arena is used
+        allocate = calloc;
     }
 
-    public static void addStandardStrings() {
+    // add a constant string to the module
+    public GlobalVariable addString(String name, String text) {
+        return module.addGlobal(new GlobalVariable(name, new ConstantString(text + "\0"), true));
+    }
 
-        // emit the string for int printing
-        emit("@_cint = constant [4 x i8] c\"%d\\0a\\00\"");
+    // define a runtime function that writes the error to standard output after the prints before it and exits
+    public Function addErrorFunction(String name, GlobalVariable message) {
 
-        // emit the string for index out of bound error
-        emit("@_cOOB = constant [15 x i8] c\"Out of bounds\\0a\\00\"");
+        Function function = module.addFunction(new Function(name, IRType.function(IRType.VOID, new ArrayList<>(), false), new ArrayList<>()));
 
-        // emit the string for negative array size error
-        emit("@_cNSZ = constant [21 x i8] c\"Negative Array Size\\0a\\00\"");
+        IRBuilder builder = new IRBuilder(function);
+        builder.setInsertPoint(builder.createBlock("entry"));
 
-        // emit a new line to the .ll file
-        // pretty printing
-        emit("\n");
-    }
+        // the prints come out before the error
+        builder.call(flushOutput);
 
-    public static void addPrintFunction() {
+        // the string is passed to write as a pointer to its first character, without the terminating zero
+        Instruction string = builder.bitcast(message, IRType.I8_PTR);
+        string.setName("_str");
 
-        // emit the function signature for the print function
-        emit("define void @print_int(i32 %i) {");
+        int length = message.getValueType().getLength() - 1;
 
-        // emit every line seperated by a new line
-        emit("\t%_str = bitcast [4 x i8]* @_cint to i8*");
-        emit("\tcall i32 (i8*, ...) @printf(i8* %_str, i32 %i)");
-        emit("\tret void");
+        builder.call(write, ConstantInt.i32(1), string, new ConstantInt(IRType.I64, length));
 
-        // emit the function end tag
-        emit("}");
+        // the error functions stop the program
+        builder.call(exit, ConstantInt.i32(1));
 
-        // emit a new line to the .ll file
-        // pretty printing
-        emit("\n");
+        builder.retVoid();
+
+        return function;
     }
 
-    public static void addOOBFunction() {
+    /**
+     * Defines the printing of the runtime over a static buffer.
+     * print_int writes the decimal digits and the new line in the buffer itself, and flush_output writes
+     * the buffer to standard output with write when there is no room for another number, before the
+     * errors and at the end of main.
+     */
+    public void addOutputBuffer() {
+
+        // the buffer and the bytes of it that are used
+        GlobalVariable buffer = module.addGlobal(new GlobalVariable(".out_buffer", new ConstantZero(IRType.arrayOf(OUTPUT_BUFFER_SIZE, IRType.I8)), false));
+        GlobalVariable length = module.addGlobal(new GlobalVariable(".out_length", ConstantInt.i32(0), false));
+
+        // void @flush_output(), writes the buffer until all of it is written or write fails
+        flushOutput = module.addFunction(new Function("flush_output", IRType.function(IRType.VOID, new ArrayList<>(), false), new ArrayList<>()));
+
+        IRBuilder builder = new IRBuilder(flushOutput);
+        BasicBlock entry = builder.createBlock("entry");
+        builder.setInsertPoint(entry);
+
+        BasicBlock writeLabel = builder.newBlock("write");
+        BasicBlock doneLabel = builder.newBlock("done");
+
+        Value used = builder.load(length);
+        builder.condBr(builder.icmp(Predicate.SGT, used, ConstantInt.i32(0)), writeLabel, doneLabel);
+
+        builder.appendBlock(writeLabel);
+        Instruction written = builder.phi(IRType.I32);
+        Value start = builder.getElementPointer(buffer, ConstantInt.i32(0), written);
+        Value result = builder.call(write, ConstantInt.i32(1), start, builder.zext(builder.sub(used, written), IRType.I64));
+        Value newWritten = builder.add(written, builder.trunc(result, IRType.I32));
+        Value more = builder.and(builder.icmp(Predicate.SGT, result, new ConstantInt(IRType.I64, 0)), builder.icmp(Predicate.SLT, newWritten, used));
+        builder.condBr(more, writeLabel, doneLabel);
+
+        written.addIncoming(ConstantInt.i32(0), entry);
+        written.addIncoming(newWritten, writeLabel);
+
+        builder.appendBlock(doneLabel);
+        builder.store(ConstantInt.i32(0), length);
+        builder.retVoid();
+
+        // void @print_int(i32 %i), writes the number and a new line in the buffer
+        printInt = module.addFunction(new Function("print_int", IRType.function(IRType.VOID, Arrays.asList(IRType.I32), false), Arrays.asList("i")));
+
+        builder = new IRBuilder(printInt);
+        entry = builder.createBlock("entry");
+        builder.setInsertPoint(entry);
+
+        Value number = printInt.getArgument(0);
+
+        BasicBlock flushLabel = builder.newBlock("flush");
+        BasicBlock signLabel = builder.newBlock("sign");
+        BasicBlock minusLabel = builder.newBlock("minus");
+        BasicBlock digitsLabel = builder.newBlock("digits");
+        BasicBlock countLabel = builder.newBlock("count");
+        BasicBlock convertLabel = builder.newBlock("convert");
+        BasicBlock newLineLabel = builder.newBlock("newLine");
+
+        // a sign, ten digits and the new line must fit
+        Value usedBefore = builder.load(length);
+        builder.condBr(builder.icmp(Predicate.SGT, usedBefore, ConstantInt.i32(OUTPUT_BUFFER_SIZE - 12)), flushLabel, signLabel);
+
+        builder.appendBlock(flushLabel);
+        builder.call(flushOutput);
+        builder.br(signLabel);
+
+        builder.appendBlock(signLabel);
+        Instruction position = builder.phi(IRType.I32);
+        position.addIncoming(usedBefore, entry);
+        position.addIncoming(ConstantInt.i32(0), flushLabel);
+        builder.condBr(builder.icmp(Predicate.SLT, number, ConstantInt.i32(0)), minusLabel, digitsLabel);
+
+        // the digits of a negative number are the digits of its magnitude as an unsigned number
+        builder.appendBlock(minusLabel);
+        builder.store(new ConstantInt(IRType.I8, '-'), builder.getElementPointer(buffer, ConstantInt.i32(0), position));
+        Value afterSign = builder.add(position, ConstantInt.i32(1));
+        Value magnitude = builder.sub(ConstantInt.i32(0), number);
+        builder.br(digitsLabel);
+
+        builder.appendBlock(digitsLabel);
+        Instruction digitsStart = builder.phi(IRType.I32);
+        Instruction value = builder.phi(IRType.I32);
+        digitsStart.addIncoming(position, signLabel);
+        digitsStart.addIncoming(afterSign, minusLabel);
+        value.addIncoming(number, signLabel);
+        value.addIncoming(magnitude, minusLabel);
+        builder.br(countLabel);
+
+        // count the digits
+        builder.appendBlock(countLabel);
+        Instruction digits = builder.phi(IRType.I32);
+        Instruction rest = builder.phi(IRType.I32);
+        Value nextDigits = builder.add(digits, ConstantInt.i32(1));
+        Value nextRest = builder.udiv(rest, ConstantInt.i32(10));
+        builder.condBr(builder.icmp(Predicate.UGE, rest, ConstantInt.i32(10)), countLabel, convertLabel);
+
+        digits.addIncoming(ConstantInt.i32(1), digitsLabel);
+        digits.addIncoming(nextDigits, countLabel);
+        rest.addIncoming(value, digitsLabel);
+        rest.addIncoming(nextRest, countLabel);
+
+        // write the digits from the last one to the first
+        builder.appendBlock(convertLabel);
+        Value end = builder.add(digitsStart, digits);
+        BasicBlock digitLabel = builder.newBlock("digit");
+        builder.br(digitLabel);
+
+        builder.appendBlock(digitLabel);
+        Instruction index = builder.phi(IRType.I32);
+        Instruction remaining = builder.phi(IRType.I32);
+        Value previousIndex = builder.sub(index, ConstantInt.i32(1));
+        Value quotient = builder.udiv(remaining, ConstantInt.i32(10));
+        Value digit = builder.add(builder.urem(remaining, ConstantInt.i32(10)), ConstantInt.i32('0'));
+        builder.store(builder.trunc(digit, IRType.I8), builder.getElementPointer(buffer, ConstantInt.i32(0), previousIndex));
+        builder.condBr(builder.icmp(Predicate.EQ, previousIndex, digitsStart), newLineLabel, digitLabel);
+
+        index.addIncoming(end, convertLabel);
+        index.addIncoming(previousIndex, digitLabel);
+        remaining.addIncoming(value, convertLabel);
+        remaining.addIncoming(quotient, digitLabel);
+
+        builder.appendBlock(newLineLabel);
+        builder.store(new ConstantInt(IRType.I8, '\n'), builder.getElementPointer(buffer, ConstantInt.i32(0), end));
+        builder.store(builder.add(end, ConstantInt.i32(1)), length);
+        builder.retVoid();
+    }
 
-        // emit the function signature for the print function
-        emit("define void @throw_oob() {");
+    public void addRuntime() {
 
-        // emit every line seperated by a new line
-        emit("\t%_str = bitcast [15 x i8]* @_cOOB to i8*");
-        emit("\tcall i32 (i8*, ...) @printf(i8* %_str)");
-        emit("\tcall void @exit(i32 1)");
-        emit("\tret void");
+        addStandardDeclarations();
 
-        // emit the function end tag
-        emit("}");
+        // the string for index out of bound error
+        GlobalVariable oobString = addString("_cOOB", "Out of bounds\n");
 
-        // emit a new line to the .ll file
-        // pretty printing
-        emit("\n");
-    }
+        // the string for negative array size error
+        GlobalVariable nszString = addString("_cNSZ", "Negative Array Size\n");
 
-    public static void addNSZFunction() {
+        // print_int writes an int and a new line in the output buffer
+        addOutputBuffer();
 
-        // emit the function signature for the print function
-        emit("define void @throw_nsz() {");
+        // the error functions write the error and exit
+        throwOob = addErrorFunction("throw_oob", oobString);
+        throwNsz = addErrorFunction("throw_nsz", nszString);
 
-        // emit every line seperated by a new line
-        emit("\t%_str = bitcast [21 x i8]* @_cNSZ to i8*");
-        emit("\tcall i32 (i8*, ...) @printf(i8* %_str)");
-        emit("\tcall void @exit(i32 1)");
-        emit("\tret void");
+        // the collector needs its own header before every allocation, Main does not allow it with the arena
+        if (options.getGarbageCollection()) addGarbageCollector();
+        else if (options.getArenaAllocation()) addArenaAllocator();
 
-        // emit the function end tag
-        emit("}");
+        // the allocations return memory no other pointer reaches and the errors end the program
+        if (options.getEmitAttributes()) {
 
-        // emit a new line to the .ll file
-        // pretty printing
-        emit("\n");
+            allocate.getReturnAttributes().add("noalias");
+            if (allocate != calloc) calloc.getReturnAttributes().add("noalias");
+
+            exit.getAttributes().add("noreturn");
+            throwOob.getAttributes().add("noreturn");
+            throwNsz.getAttributes().add("noreturn");
+        }
     }
 
-    public static void makeAllTrivialEmits() {
+    /**
+     * Defines the arena allocator, used instead of calloc for the objects and the arrays.
+     * arena_alloc takes the same arguments as calloc and moves a pointer over a region of zeroed memory from mmap.
+     * When the region runs out arena_refill maps a new one, the memory is never given back.
+     * arena_alloc is small enough to be copied into every allocation by the inliner.
+     */
+    public void addArenaAllocator() {
 
-        // invokes all the methods above
-        addStandardDeclarations();
-        addStandardStrings();
-        addPrintFunction();
-        addOOBFunction();
-        addNSZFunction();
+        // declare i8* @mmap(i8*, i64, i32, i32, i32, i64)
+        mmap = declare("mmap", IRType.I8_PTR, false, IRType.I8_PTR, IRType.I64, IRType.I32, IRType.I32, IRType.I32, IRType.I64);
+
+        // the next free byte and the end of the current region, null before the first allocation
+        GlobalVariable next = module.addGlobal(new GlobalVariable(".arena_next", new ConstantNull(IRType.I8_PTR), false));
+        GlobalVariable end = module.addGlobal(new GlobalVariable(".arena_end", new ConstantNull(IRType.I8_PTR), false));
+
+        // the error printed when mmap can not give a region
+        GlobalVariable oomString = addString("_cOOM", "Out of memory\n");
+        Function throwOom = addErrorFunction("throw_oom", oomString);
+
+        // i8* @arena_refill(i64 %size), maps a region and allocates the size bytes at its start
+        arenaRefill = module.addFunction(new Function("arena_refill", IRType.function(IRType.I8_PTR, Arrays.asList(IRType.I64), false), Arrays.asList("size")));
+
+        IRBuilder builder = new IRBuilder(arenaRefill);
+        builder.setInsertPoint(builder.createBlock("entry"));
+
+        Value size = arenaRefill.getArgument(0);
+        ConstantInt arenaRegionSize = new ConstantInt(IRType.I64, ARENA_REGION_SIZE);
+
+        // allocations larger than a region get a region of their own and leave the current one as it is
+        Value large = builder.icmp(Predicate.SGT, size, arenaRegionSize);
+        Value regionSize = builder.select(large, size, arenaRegionSize);
 
+        // mmap(null, size, PROT_READ | PROT_WRITE, MAP_PRIVATE | MAP_ANONYMOUS, -1, 0), anonymous memory is zeroed
+        Value region = builder.call(mmap, new ConstantNull(IRType.I8_PTR), regionSize, ConstantInt.i32(3), ConstantInt.i32(ARENA_MAP_FLAGS), ConstantInt.i32(-1), new ConstantInt(IRType.I64, 0));
+
+        BasicBlock failedLabel = builder.newBlock("failed");
+        BasicBlock mappedLabel = builder.newBlock("mapped");
+        BasicBlock largeLabel = builder.newBlock("large");
+        BasicBlock regionLabel = builder.newBlock("region");
+
+        // mmap returns MAP_FAILED, the address -1, when there is no memory for the region
+        Value failed = builder.icmp(Predicate.EQ, builder.ptrToInt(region, IRType.I64), new ConstantInt(IRType.I64, -1));
+        builder.condBr(failed, failedLabel, mappedLabel);
+
+        builder.appendBlock(failedLabel);
+        builder.call(throwOom);
+        builder.unreachable();
+
+        builder.appendBlock(mappedLabel);
+        builder.condBr(large, largeLabel, regionLabel);
+
+        builder.appendBlock(largeLabel);
+        builder.ret(region);
+
+        // the rest of the region is used by the next allocations
+        builder.appendBlock(regionLabel);
+        builder.store(builder.getElementPointer(region, size), next);
+        builder.store(builder.getElementPointer(region, arenaRegionSize), end);
+        builder.ret(region);
+
+        // i8* @arena_alloc(i32 %count, i32 %size), the same arguments as calloc
+        arenaAlloc = module.addFunction(new Function("arena_alloc", calloc.getFunctionType(), Arrays.asList("count", "size")));
+
+        builder = new IRBuilder(arenaAlloc);
+        builder.setInsertPoint(builder.createBlock("entry"));
+
+        // the bytes allocated are rounded up to 8 so every allocation stays aligned
+        // the product is taken in i64 like calloc does, the largest arrays do not fit in an i32
+        Value count = builder.zext(arenaAlloc.getArgument(0), IRType.I64);
+        Value bytes = builder.mul(count, builder.zext(arenaAlloc.getArgument(1), IRType.I64));
+        bytes = builder.and(builder.add(bytes, new ConstantInt(IRType.I64, 7)), new ConstantInt(IRType.I64, -8));
+
+        // move the pointer if the region has enough space left
+        Value object = builder.load(next);
+        Value newNext = builder.getElementPointer(object, bytes);
+        Value full = builder.icmp(Predicate.UGT, newNext, builder.load(end));
+
+        BasicBlock refillLabel = builder.newBlock("refill");
+        BasicBlock bumpLabel = builder.newBlock("bump");
+
+        builder.condBr(full, refillLabel, bumpLabel);
+
+        builder.appendBlock(bumpLabel);
+        builder.store(newNext, next);
+        builder.ret(object);
+
+        builder.appendBlock(refillLabel);
+        builder.ret(builder.call(arenaRefill, bytes));
+
+        allocate = arenaAlloc;
     }
 
-    // reset the register and label counters
-    public static void resetCounters() {
+    // reset the label counter
+    public void resetCounters() {
         labelCounter = 0;
-        registerCounter = 0;
     }
 
-    // reset the three maps and prepare for a new compilation
-    public static void resetMaps() {
-        registerMap.clear();
-        vtalbeMap.clear();
-        classVtableType.clear();
+    // the header the collector keeps before an object or an array, as an array of four pointer sized words
+    Value gcHeader(IRBuilder builder, Value object) {
+        return builder.bitcast(builder.getElementPointer(object, ConstantInt.i32(-GC_HEADER_SIZE)), IRType.I8_PTR_PTR);
     }
 
-    // get the signature of the method
-    public static String getMethodSignature(ClassInformation _class, MethodInformation method) {
-
-        // create a new pair of class and method to use as a key for the map
-        CustomPair<ClassInformation, MethodInformation> key = new CustomPair<>(_class, method);
-
-        // return the signature
-        return methodSignatureInVtableMap.get(key);
+    /**
+     * Defines a precise mark and sweep garbage collector, used instead of calloc for the objects and the arrays.
+     * Every allocation has a header with the next allocation, the pointer map, the next gray object and the size.
+     * The pointer map of an object lists the offsets of its pointer fields and ends with -1, arrays have none.
+     * The roots are the slots of the shadow stack frames, a frame keeps the previous frame, the number of
+     * slots and the slots. Marking pushes the objects on a list through the gray words, an object is marked
+     * if its gray word is not null, and the last object of the list points to itself.
+     */
+    public void addGarbageCollector() {
+
+        // declare void @free(i8*) and the memset intrinsic the frames are cleared with
+        free = declare("free", IRType.VOID, false, IRType.I8_PTR);
+        memset = declare(getMemsetName(), IRType.VOID, false, IRType.I8_PTR, IRType.I8, IRType.I32, IRType.I1);
+
+        // the top frame, every allocation, the gray objects, and the bytes allocated since the last collection
+        gcTop = module.addGlobal(new GlobalVariable(".gc_top", new ConstantNull(IRType.I8_PTR), false));
+        GlobalVariable objects = module.addGlobal(new GlobalVariable(".gc_objects", new ConstantNull(IRType.I8_PTR), false));
+        GlobalVariable gray = module.addGlobal(new GlobalVariable(".gc_gray", new ConstantNull(IRType.I8_PTR), false));
+        GlobalVariable allocated = module.addGlobal(new GlobalVariable(".gc_allocated", new ConstantInt(IRType.I64, 0), false));
+        GlobalVariable threshold = module.addGlobal(new GlobalVariable(".gc_threshold", new ConstantInt(IRType.I64, GC_INITIAL_THRESHOLD), false));
+
+        ConstantNull nullPointer = new ConstantNull(IRType.I8_PTR);
+
+        // void @gc_mark(i8* %object), pushes an object that is not marked yet on the gray list
+        gcMark = module.addFunction(new Function("gc_mark", IRType.function(IRType.VOID, Arrays.asList(IRType.I8_PTR), false), Arrays.asList("object")));
+
+        IRBuilder builder = new IRBuilder(gcMark);
+        builder.setInsertPoint(builder.createBlock("entry"));
+
+        Value object = gcMark.getArgument(0);
+
+        BasicBlock checkLabel = builder.newBlock("check");
+        BasicBlock pushLabel = builder.newBlock("push");
+        BasicBlock doneLabel = builder.newBlock("done");
+
+        builder.condBr(builder.icmp(Predicate.EQ, object, nullPointer), doneLabel, checkLabel);
+
+        builder.appendBlock(checkLabel);
+        Value grayPointer = builder.getElementPointer(gcHeader(builder, object), ConstantInt.i32(2));
+        builder.condBr(builder.icmp(Predicate.NE, builder.load(grayPointer), nullPointer), doneLabel, pushLabel);
+
+        builder.appendBlock(pushLabel);
+        Value top = builder.load(gray);
+        builder.store(builder.select(builder.icmp(Predicate.EQ, top, nullPointer), object, top), grayPointer);
+        builder.store(object, gray);
+        builder.br(doneLabel);
+
+        builder.appendBlock(doneLabel);
+        builder.retVoid();
+
+        // void @gc_collect(), marks from the roots and frees every allocation that was not marked
+        gcCollect = module.addFunction(new Function("gc_collect", IRType.function(IRType.VOID, new ArrayList<>(), false), new ArrayList<>()));
+
+        builder = new IRBuilder(gcCollect);
+        BasicBlock entry = builder.createBlock("entry");
+        builder.setInsertPoint(entry);
+
+        BasicBlock framesLabel = builder.newBlock("frames");
+        BasicBlock frameLabel = builder.newBlock("frame");
+        BasicBlock slotsLabel = builder.newBlock("slots");
+        BasicBlock slotLabel = builder.newBlock("slot");
+        BasicBlock nextFrameLabel = builder.newBlock("nextFrame");
+        BasicBlock traceLabel = builder.newBlock("trace");
+        BasicBlock scanLabel = builder.newBlock("scan");
+        BasicBlock fieldsLabel = builder.newBlock("fields");
+        BasicBlock fieldLabel = builder.newBlock("field");
+        BasicBlock sweepLabel = builder.newBlock("sweep");
+        BasicBlock visitLabel = builder.newBlock("visit");
+        BasicBlock keepLabel = builder.newBlock("keep");
+        BasicBlock freeLabel = builder.newBlock("free");
+        BasicBlock finishLabel = builder.newBlock("finish");
+
+        Value firstFrame = builder.load(gcTop);
+        builder.br(framesLabel);
+
+        // walk the frames of the shadow stack
+        builder.appendBlock(framesLabel);
+        Instruction frame = builder.phi(IRType.I8_PTR);
+        builder.condBr(builder.icmp(Predicate.EQ, frame, nullPointer), traceLabel, frameLabel);
+
+        builder.appendBlock(frameLabel);
+        Value slots = builder.bitcast(frame, IRType.I8_PTR_PTR);
+        Value slotCount = builder.load(builder.bitcast(builder.getElementPointer(slots, ConstantInt.i32(1)), IRType.I32_PTR));
+        builder.br(slotsLabel);
+
+        // mark every slot of the frame, the slots start after the previous frame and the count
+        builder.appendBlock(slotsLabel);
+        Instruction slotIndex = builder.phi(IRType.I32);
+        builder.condBr(builder.icmp(Predicate.SLT, slotIndex, slotCount), slotLabel, nextFrameLabel);
+
+        builder.appendBlock(slotLabel);
+        builder.call(gcMark, builder.load(builder.getElementPointer(slots, builder.add(slotIndex, ConstantInt.i32(2)))));
+        Value nextSlotIndex = builder.add(slotIndex, ConstantInt.i32(1));
+        builder.br(slotsLabel);
+
+        builder.appendBlock(nextFrameLabel);
+        Value previousFrame = builder.load(slots);
+        builder.br(framesLabel);
+
+        frame.addIncoming(firstFrame, entry);
+        frame.addIncoming(previousFrame, nextFrameLabel);
+        slotIndex.addIncoming(ConstantInt.i32(0), frameLabel);
+        slotIndex.addIncoming(nextSlotIndex, slotLabel);
+
+        // take the gray objects off the list and mark the objects their pointer fields point to
+        builder.appendBlock(traceLabel);
+        Value grayObject = builder.load(gray);
+        builder.condBr(builder.icmp(Predicate.EQ, grayObject, nullPointer), sweepLabel, scanLabel);
+
+        builder.appendBlock(scanLabel);
+        Value grayHeader = gcHeader(builder, grayObject);
+        Value nextGray = builder.load(builder.getElementPointer(grayHeader, ConstantInt.i32(2)));
+        builder.store(builder.select(builder.icmp(Predicate.EQ, nextGray, grayObject), nullPointer, nextGray), gray);
+        Value pointerMap = builder.load(builder.getElementPointer(grayHeader, ConstantInt.i32(1)));
+        Value offsets = builder.bitcast(pointerMap, IRType.I32_PTR);
+        builder.condBr(builder.icmp(Predicate.EQ, pointerMap, nullPointer), traceLabel, fieldsLabel);
+
+        builder.appendBlock(fieldsLabel);
+        Instruction fieldIndex = builder.phi(IRType.I32);
+        Value fieldOffset = builder.load(builder.getElementPointer(offsets, fieldIndex));
+        builder.condBr(builder.icmp(Predicate.SLT, fieldOffset, ConstantInt.i32(0)), traceLabel, fieldLabel);
+
+        builder.appendBlock(fieldLabel);
+        Value fieldPointer = builder.bitcast(builder.getElementPointer(grayObject, fieldOffset), IRType.I8_PTR_PTR);
+        builder.call(gcMark, builder.load(fieldPointer));
+        Value nextFieldIndex = builder.add(fieldIndex, ConstantInt.i32(1));
+        builder.br(fieldsLabel);
+
+        fieldIndex.addIncoming(ConstantInt.i32(0), scanLabel);
+        fieldIndex.addIncoming(nextFieldIndex, fieldLabel);
+
+        // walk the allocations through the link pointing to each one, unlink and free the ones not marked
+        builder.appendBlock(sweepLabel);
+        builder.br(visitLabel);
+
+        builder.appendBlock(visitLabel);
+        Instruction link = builder.phi(IRType.I8_PTR_PTR);
+        Instruction liveBytes = builder.phi(IRType.I64);
+        Value current = builder.load(link);
+        BasicBlock checkMarkLabel = builder.newBlock("checkMark");
+        builder.condBr(builder.icmp(Predicate.EQ, current, nullPointer), finishLabel, checkMarkLabel);
+
+        builder.appendBlock(checkMarkLabel);
+        Value currentHeader = gcHeader(builder, current);
+        Value currentGray = builder.getElementPointer(currentHeader, ConstantInt.i32(2));
+        builder.condBr(builder.icmp(Predicate.NE, builder.load(currentGray), nullPointer), keepLabel, freeLabel);
+
+        // clear the mark for the next collection and count the bytes that survived
+        builder.appendBlock(keepLabel);
+        builder.store(nullPointer, currentGray);
+        Value size = builder.load(builder.bitcast(builder.getElementPointer(currentHeader, ConstantInt.i32(3)), IRType.pointerTo(IRType.I64)));
+        Value newLiveBytes = builder.add(liveBytes, size);
+        builder.br(visitLabel);
+
+        // the link skips the allocation, the memory starts at the header
+        builder.appendBlock(freeLabel);
+        builder.store(builder.load(currentHeader), link);
+        builder.call(free, builder.bitcast(currentHeader, IRType.I8_PTR));
+        builder.br(visitLabel);
+
+        link.addIncoming(objects, sweepLabel);
+        link.addIncoming(currentHeader, keepLabel);
+        link.addIncoming(link, freeLabel);
+        liveBytes.addIncoming(new ConstantInt(IRType.I64, 0), sweepLabel);
+        liveBytes.addIncoming(newLiveBytes, keepLabel);
+        liveBytes.addIncoming(liveBytes, freeLabel);
+
+        // the count starts over, the next collection runs after twice the bytes that survived are allocated
+        builder.appendBlock(finishLabel);
+        builder.store(new ConstantInt(IRType.I64, 0), allocated);
+        Value doubleLiveBytes = builder.add(liveBytes, liveBytes);
+        Value small = builder.icmp(Predicate.SLT, doubleLiveBytes, new ConstantInt(IRType.I64, GC_INITIAL_THRESHOLD));
+        builder.store(builder.select(small, new ConstantInt(IRType.I64, GC_INITIAL_THRESHOLD), doubleLiveBytes), threshold);
+        builder.retVoid();
+
+        // i8* @gc_alloc(i32 %count, i32 %size, i32* %pointers), the arguments of calloc and the pointer map
+        IRType allocType = IRType.function(IRType.I8_PTR, Arrays.asList(IRType.I32, IRType.I32, IRType.I32_PTR), false);
+        gcAlloc = module.addFunction(new Function("gc_alloc", allocType, Arrays.asList("count", "size", "pointers")));
+
+        builder = new IRBuilder(gcAlloc);
+        builder.setInsertPoint(builder.createBlock("entry"));
+
+        BasicBlock collectLabel = builder.newBlock("collect");
+        BasicBlock allocateLabel = builder.newBlock("allocate");
+
+        // collect when the bytes allocated since the last collection pass the threshold
+        // the size is taken in i64 like calloc does, the largest arrays do not fit in an i32
+        Value count = builder.zext(gcAlloc.getArgument(0), IRType.I64);
+        Value bytes = builder.mul(count, builder.zext(gcAlloc.getArgument(1), IRType.I64));
+        bytes = builder.add(bytes, new ConstantInt(IRType.I64, GC_HEADER_SIZE));
+        Value full = builder.icmp(Predicate.SGT, builder.add(builder.load(allocated), bytes), builder.load(threshold));
+        builder.condBr(full, collectLabel, allocateLabel);
+
+        builder.appendBlock(collectLabel);
+        builder.call(gcCollect);
+        builder.br(allocateLabel);
+
+        // allocate the header with the object and add it to the allocations
+        builder.appendBlock(allocateLabel);
+        Value block = builder.call(calloc, new ConstantInt(IRType.I64, 1), bytes);
+        Value header = builder.bitcast(block, IRType.I8_PTR_PTR);
+        builder.store(builder.load(objects), header);
+        builder.store(builder.bitcast(gcAlloc.getArgument(2), IRType.I8_PTR), builder.getElementPointer(header, ConstantInt.i32(1)));
+        builder.store(bytes, builder.bitcast(builder.getElementPointer(header, ConstantInt.i32(3)), IRType.pointerTo(IRType.I64)));
+        builder.store(builder.add(builder.load(allocated), bytes), allocated);
+
+        Value newObject = builder.getElementPointer(block, ConstantInt.i32(GC_HEADER_SIZE));
+        builder.store(newObject, objects);
+        builder.ret(newObject);
+
+        allocate = gcAlloc;
     }
 }
@@ -0,0 +1,48 @@
+package irgeneration;
+
+import ir.Function;
+import ir.IRType;
+import symboltable.ClassInformation;
+import symboltable.MethodInformation;
+
+// one slot of the vtable of a class, everything a call site needs to call the method
+public class DispatchEntry {
+
+    // the class whose definition of the method is in this slot
+    ClassInformation declaringClass;
+
+    // the method in this slot
+    MethodInformation method;
+
+    // index of the slot in the vtable
+    int slot;
+
+    // the llvm function of the method in this slot
+    Function function;
+
+    public DispatchEntry(ClassInformation declaringClass, MethodInformation method, int slot, Function function) {
+        this.declaringClass = declaringClass;
+        this.method = method;
+        this.slot = slot;
+        this.function = function;
+    }
+
+    public ClassInformation getDeclaringClass() { return this.declaringClass; }
+    public MethodInformation getMethod() { return this.method; }
+    public int getSlot() { return this.slot; }
+    public Function getFunction() { return this.function; }
+
+    // llvm type of the function, i.e. i32 (i8*, i32)
+    public IRType getFunctionType() { return this.function.getFunctionType(); }
+
+    // llvm type of the value the function returns, i.e. i32
+    public IRType getReturnType() { return this.function.getReturnType(); }
+
+    // name of the llvm function of the method in this slot
+    public String getFunctionName() { return this.function.getName(); }
+
+    @Override
+    public String toString() {
+        return this.getFunctionName() + " : " + this.slot;
+    }
+}
@@ -4,320 +4,457 @@ package irgeneration;
 import visitor.*;
 import syntaxtree.*;
 import symboltable.*;
+import compilationcontext.CompilationContext;
+import compilationcontext.CompilerOptions;
 import semanticanalysis.*;
 import offsets.Offsets;
+import offsets.FieldOffset;
+import ir.*;
 
 // library imports
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class LLVMCodeGeneration extends GJDepthFirst<String, SemanticAnalysis> {
+public class LLVMCodeGeneration extends GJDepthFirst<Value, SemanticAnalysis> {
 
     // current class and current method
     ClassInformation currentClass;
     MethodInformation currentMethod;
 
-    public String getIdentifierType(String identifierName, CustomPair<ClassInformation, MethodInformation> argu) {
+    // the symbol table, the offsets, the build tools and the options of the file being compiled
+    SymbolTable symbolTable;
+    Offsets offsets;
+    BuildTools buildTools;
+    CompilerOptions options;
+
+    // creates the instructions of the current method
+    IRBuilder builder;
+
+    /**
+     * Local variable to stack slot map
+     * Usage : local variable or parameter (VariableInformation object) -> alloca of the variable (Value object)
+     * Filled again for every method.
+     */
+    Map<VariableInformation, Value> localVariableMap = new HashMap<>();
+
+    // the object the method was called on as a pointer to the struct of the current class, made by the first field access
+    Instruction thisFields;
+
+    // the error paths of the current function, shared by all its checks and placed after the rest of the function
+    // a failed index check jumps to the array error block with the index, which goes on to the negative size block
+    // for a negative index and to the out of bounds block for the rest, a negative array size goes to the negative size block
+    BasicBlock arrayErrorBlock;
+    Instruction arrayErrorIndex;
+    BasicBlock outOfBoundsBlock;
+    BasicBlock negativeSizeBlock;
+
+    // the shadow stack frame of the current function as an array of i8*, placed in the entry block when the function ends
+    Instruction rootFrame;
+
+    // the number of root slots of the current function
+    int rootCount;
+
+    /**
+     * Local variable to root slot map
+     * Usage : local variable or parameter of pointer type (VariableInformation object) -> index of its root slot (Integer)
+     * Filled again for every method.
+     */
+    Map<VariableInformation, Integer> rootSlotMap = new HashMap<>();
+
+    // the instructions keeping the roots, removed if the function can not collect
+    List<Instruction> rootInstructions = new ArrayList<>();
+
+    public LLVMCodeGeneration(CompilationContext context) {
+        this.symbolTable = context.getSymbolTable();
+        this.offsets = context.getOffsets();
+        this.buildTools = context.getBuildTools();
+        this.options = context.getOptions();
+    }
 
-        // this represents the identifier we're working with
-        VariableInformation methodVariable = null;
+    // start the body of a function, the instructions go to the entry block
+    public void startFunction(Function function) {
 
-        // check if the identifier is a local variable and get it's type, i.e. it is in
-        // the current scope of method and class
-        List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(argu);
+        // reset the counters for labels
+        buildTools.resetCounters();
 
-        boolean isLocalVar = false;
+        // the stack slots of the previous method are gone
+        localVariableMap.clear();
+        thisFields = null;
+        arrayErrorBlock = null;
+        outOfBoundsBlock = null;
+        negativeSizeBlock = null;
 
-        if (methodVars != null) {
-            for (VariableInformation var : methodVars) {
-                if (var.getVarName().equals(identifierName)) {
-                    methodVariable = var;
-                    isLocalVar = true;
-                    break;
-                }
-            }
-        }
+        builder = new IRBuilder(function);
+        builder.appendBlock(builder.newBlock("entry"));
 
-        if (isLocalVar) {
-            CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> varTypePairKey = new CustomPair<>(
-                    argu, methodVariable);
-            return SymbolTable.methodVariableTypeMap.get(varTypePairKey);
+        // the frame gets its size when the function ends
+        if (options.getGarbageCollection()) {
+            rootFrame = new Instruction(Opcode.BITCAST, IRType.I8_PTR_PTR);
+            rootCount = 0;
+            rootSlotMap.clear();
+            rootInstructions.clear();
         }
+    }
 
-        // check if the identifier is a class parameter and get it's type, i.e. it is in
-        // the current scope of method and class
-        List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(argu);
+    // places the error paths at the end of the function
+    // pushes the shadow stack frame in the entry block and pops it before the returns, with the collector only
+    public void finishFunction() {
 
-        boolean isMethodParam = false;
+        Function function = builder.getFunction();
 
-        if (methodParams != null) {
-            for (VariableInformation var : methodParams) {
-                if (var.getVarName().equals(identifierName)) {
-                    methodVariable = var;
-                    isMethodParam = true;
-                    break;
-                }
-            }
+        for (BasicBlock block : new BasicBlock[] { arrayErrorBlock, outOfBoundsBlock, negativeSizeBlock }) {
+            if (block != null) function.addBlock(block);
         }
 
-        if (isMethodParam) {
-            CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> paramTypePairKey = new CustomPair<>(
-                    argu, methodVariable);
-            return SymbolTable.methodParameterTypeMap.get(paramTypePairKey);
-        }
+        function.renumber();
+
+        if (!options.getGarbageCollection()) return;
+
+        // only allocations and method calls can collect, a function without them needs no frame
+        boolean collects = false;
 
-        // check if the identifier is a class field and get it's type, i.e. it is in the
-        // current scope of class
-        List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(argu.firstObj);
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
 
-        boolean isClassField = false;
+                if (instruction.getOpcode() != Opcode.CALL) continue;
 
-        if (classFields != null) {
-            for (VariableInformation var : classFields) {
-                if (var.getVarName().equals(identifierName)) {
-                    methodVariable = var;
-                    isClassField = true;
-                    break;
-                }
+                Value callee = instruction.getOperand(0);
+
+                if (callee != buildTools.printInt && callee != buildTools.flushOutput && callee != buildTools.throwOob && callee != buildTools.throwNsz) collects = true;
             }
         }
 
-        if (isClassField) {
-            CustomPair<ClassInformation, VariableInformation> fieldTypePairKey = new CustomPair<>(argu.firstObj,
-                    methodVariable);
-            return SymbolTable.classFieldTypeMap.get(fieldTypePairKey);
-        }
+        if (!collects || rootCount == 0) {
+
+            for (Instruction instruction : rootInstructions) {
+                instruction.getParent().getInstructions().remove(instruction);
+            }
 
-        // check if the identifier is a class or not
-        if (SymbolTable.classesMap.containsKey(identifierName)) {
-            return identifierName;
+            function.renumber();
+            return;
         }
 
-        // unknown type
-        return null;
-    }
+        // the frame keeps the previous frame, the number of slots and the slots
+        IRBuilder prologue = new IRBuilder(function);
+        prologue.setInsertPoint(prologue.newBlock("entry"));
 
-    public VariableInformation getIdentifier(String identifierName,
-            CustomPair<ClassInformation, MethodInformation> argu) {
+        IRType frameType = IRType.arrayOf(rootCount + 2, IRType.I8_PTR);
+        Instruction frame = prologue.alloca(frameType, null);
+        frame.setComment("shadow stack frame");
 
-        // check if the identifier is a local variable and get it's type, i.e. it is in
-        // the current scope of method and class
-        List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(argu);
+        rootFrame.getOperands().add(frame);
+        prologue.insert(rootFrame);
 
-        if (methodVars != null) {
-            for (VariableInformation var : methodVars) {
-                if (var.getVarName().equals(identifierName)) {
-                    return var;
-                }
-            }
-        }
+        // the slots start empty, the previous frame and the count are stored over the first two
+        prologue.call(buildTools.memset, prologue.bitcast(frame, IRType.I8_PTR), new ConstantInt(IRType.I8, 0), ConstantInt.i32((rootCount + 2) * 8), ConstantInt.FALSE);
 
-        // check if the identifier is a class parameter and get it's type, i.e. it is in
-        // the current scope of method and class
-        List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(argu);
+        Value previousFrame = prologue.load(buildTools.gcTop);
+        prologue.store(previousFrame, rootFrame);
+        prologue.store(ConstantInt.i32(rootCount), prologue.bitcast(prologue.getElementPointer(rootFrame, ConstantInt.i32(1)), IRType.I32_PTR));
+        prologue.store(prologue.bitcast(rootFrame, IRType.I8_PTR), buildTools.gcTop);
 
-        if (methodParams != null) {
-            for (VariableInformation var : methodParams) {
-                if (var.getVarName().equals(identifierName)) {
-                    return var;
-                }
-            }
+        List<Instruction> prologueInstructions = prologue.getInsertBlock().getInstructions();
+
+        for (int i = 0; i < prologueInstructions.size(); i++) {
+            function.getEntryBlock().insert(i, prologueInstructions.get(i));
         }
 
-        // check if the identifier is a class field and get it's type, i.e. it is in the
-        // current scope of class
-        List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(argu.firstObj);
+        // the caller's frame is the top again after the return
+        for (BasicBlock block : function.getBlocks()) {
+
+            Instruction terminator = block.getTerminator();
 
-        if (classFields != null) {
-            for (VariableInformation var : classFields) {
-                if (var.getVarName().equals(identifierName)) {
-                    return var;
-                }
+            if (terminator.getOpcode() == Opcode.RET) {
+                block.insert(block.getInstructions().size() - 1, new Instruction(Opcode.STORE, IRType.VOID, previousFrame, buildTools.gcTop));
             }
         }
 
-        // unknown type
-        return null;
+        function.renumber();
     }
 
-    public String getLLVMSize(String identifierType) {
-
-        switch (identifierType) {
-            case "int":
-                return "i32";
-            case "boolean":
-                return "i1";
-            case "int[]":
-            case "boolean[]":
-                return "i32*";
-            default:
-                return "i8*";
+    // stores a pointer in a slot of the shadow stack frame
+    public void storeRoot(Value pointer, int slot) {
+
+        Instruction slotPointer = builder.getElementPointer(rootFrame, ConstantInt.i32(slot + 2));
+        rootInstructions.add(slotPointer);
+
+        // arrays are kept as i8* like the objects
+        if (!pointer.getType().equals(IRType.I8_PTR)) {
+            slotPointer = builder.bitcast(slotPointer, pointer.getType().pointerTo());
+            rootInstructions.add(slotPointer);
         }
+
+        rootInstructions.add(builder.store(pointer, slotPointer));
     }
 
-    public String allocateLocalVariable(String idType, String idName) {
+    // keeps a pointer computed in the middle of an expression alive until the function returns
+    public void addTemporaryRoot(Value pointer) {
+
+        // the arguments are kept by the frame already
+        if (!options.getGarbageCollection() || !(pointer instanceof Instruction) || !pointer.getType().isPointer()) return;
 
-        // get the llvm size for the identifier type
-        String llvmSize = getLLVMSize(idType);
+        storeRoot(pointer, rootCount++);
+    }
 
-        // allocate a local variable in the current method
-        BuildTools.emit("\t%" + idName + " = alloca " + llvmSize);
+    // keeps the pointer a local variable or a parameter holds, each one has a slot of its own
+    public void addVariableRoot(VariableInformation variable, Value pointer) {
 
-        return null;
+        if (!options.getGarbageCollection() || !pointer.getType().isPointer()) return;
+
+        if (!rootSlotMap.containsKey(variable)) rootSlotMap.put(variable, rootCount++);
+
+        storeRoot(pointer, rootSlotMap.get(variable));
+    }
+
+    // calls the allocator, the collector also needs the pointer map of the class, null for arrays
+    public Value allocate(Value count, Value size, ClassInformation classInfo) {
+
+        if (!options.getGarbageCollection()) return builder.call(buildTools.allocate, count, size);
+
+        return builder.call(buildTools.allocate, count, size, getPointerMap(classInfo));
     }
 
-    public boolean isMethodVar(String identifierName, CustomPair<ClassInformation, MethodInformation> classMethodPair) {
+    // the offsets of the pointer fields of a class ending with -1, the inherited and the hidden fields included
+    public Value getPointerMap(ClassInformation classInfo) {
+
+        if (classInfo == null) return new ConstantNull(IRType.I32_PTR);
 
-        // check if the identifier is a local variable
-        List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(classMethodPair);
+        if (!buildTools.pointerMapMap.containsKey(classInfo)) {
 
-        // only check if the method variables list is not null, i.e. empty
-        if (methodVars != null) {
-            for (VariableInformation var : methodVars) {
-                if (var.getVarName().equals(identifierName)) {
-                    return true;
-                }
+            List<Value> pointerOffsets = new ArrayList<>();
+
+            // every field of the struct, the inherited and the hidden ones included
+            for (FieldOffset field : offsets.classStructFieldsMap.get(classInfo)) {
+                if (field.getLLVMType().isPointer()) pointerOffsets.add(ConstantInt.i32(field.getObjectOffset()));
+            }
+
+            // a class without pointer fields needs no map
+            if (pointerOffsets.isEmpty()) {
+                buildTools.pointerMapMap.put(classInfo, null);
+            }
+            else {
+                pointerOffsets.add(ConstantInt.i32(-1));
+                buildTools.pointerMapMap.put(classInfo, buildTools.module.addGlobal(new GlobalVariable("." + classInfo.getClassName() + "_pointers", new ConstantArray(IRType.I32, pointerOffsets), true)));
             }
         }
 
-        return false;
+        GlobalVariable pointerMap = buildTools.pointerMapMap.get(classInfo);
+
+        return pointerMap == null ? new ConstantNull(IRType.I32_PTR) : new ConstantCast(pointerMap, IRType.I32_PTR);
     }
 
-    public boolean isMethodParam(String identifierName,
-            CustomPair<ClassInformation, MethodInformation> classMethodPair) {
+    public Value allocateLocalVariable(VariableInformation variable) {
 
-        // check if the identifier is a method parameter
-        List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(classMethodPair);
+        // allocate a local variable in the current method, named after the variable
+        Value slot = builder.alloca(variable.getVarType().getLLVMType(), variable.getVarName());
 
-        // only check if the method parameters list is not null, i.e. empty
-        if (methodParams != null) {
-            for (VariableInformation var : methodParams) {
-                if (var.getVarName().equals(identifierName)) {
-                    return true;
-                }
-            }
-        }
+        localVariableMap.put(variable, slot);
 
-        return false;
+        return slot;
     }
 
-    public boolean isClassField(String identifierName) {
+    public FieldOffset getFieldOffset(String identifierName) {
 
-        // check if the identifier is a class field
-        List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(currentClass);
+        // get the binding of the field from the flattened layout of the current class
+        return offsets.getFieldLayout(currentClass).get(identifierName);
+    }
 
-        // only check if the class fields list is not null, i.e. empty
-        if (classFields != null) {
-            for (VariableInformation var : classFields) {
-                if (var.getVarName().equals(identifierName)) {
-                    return true;
-                }
-            }
+    public Value getFieldPointer(FieldOffset field) {
+
+        // the object the method was called on is the first argument, cast once to the struct of the class
+        // at the start of the entry block so every field access of the method can use it
+        if (thisFields == null) {
+
+            thisFields = new Instruction(Opcode.BITCAST, offsets.getStructType(currentClass).pointerTo(), builder.getFunction().getArgument(0));
+            thisFields.setName("this.fields");
+
+            builder.getFunction().getEntryBlock().insert(0, thisFields);
         }
 
-        return false;
+        // get the pointer of the field with getelementptr, the inherited fields are a prefix of the struct
+        return builder.getElementPointer(thisFields, ConstantInt.i32(0), ConstantInt.i32(field.getStructIndex()));
     }
 
-    public void storeClassField(ClassInformation _class, String identifierName, String llvmSize, String expressionResultRegister) {
+    // the memory a field is kept in, its own for every field of every class
+    public String getFieldMemory(FieldOffset field) {
+        return field.getDeclaringClass().getClassName() + "." + field.getField().getVarName();
+    }
 
-        // create a new register to store the pointer of the identifier
-        String pointerRegister = BuildTools.newRegister("i8*");
+    public void storeClassField(FieldOffset field, Value expressionResult) {
 
-        // int to store the offset of the inherited field
-        int offset = -1;
+        // store the result of the expression in the class field
+        tagAccess(builder.store(expressionResult, getFieldPointer(field)), getFieldMemory(field), field.getLLVMType());
+    }
 
+    public Value loadClassField(FieldOffset field) {
 
-        // get the offset of the identifier in the class fields
-        List<CustomPair<VariableInformation, Integer>> fieldOffsets = Offsets.classFieldOffsetMap.get(_class);
+        // load the value of the field
+        return tagAccess(builder.load(getFieldPointer(field)), getFieldMemory(field), field.getLLVMType());
+    }
 
-        for (CustomPair<VariableInformation, Integer> fieldOffset : fieldOffsets) {
-            if (fieldOffset.firstObj.getVarName().equals(identifierName)) {
-                offset = fieldOffset.secondObj;
-                break;
-            }
+    // tells llvm which memory a load or a store accesses, accesses of different memories do not alias
+    public Instruction tagAccess(Instruction access, String memory, IRType valueType) {
+
+        if (options.getEmitAttributes()) access.setMetadata("tbaa", buildTools.getAccessTag(memory, valueType));
+
+        return access;
+    }
+
+    // loads the length of an array, it is never negative
+    public Value loadArrayLength(Value array) {
+
+        Instruction length = tagAccess(builder.load(array), "array length", IRType.I32);
+
+        if (options.getEmitAttributes()) length.setMetadata("range", buildTools.getArrayLengthRange());
+
+        return length;
+    }
+
+    // the block of the current function that throws the negative array size error, made the first time it is needed
+    public BasicBlock getNegativeSizeBlock() {
+
+        if (negativeSizeBlock == null) {
+
+            // the error function exits, nothing runs after it
+            IRBuilder errorBuilder = new IRBuilder(builder.getFunction());
+            errorBuilder.setInsertPoint(negativeSizeBlock = errorBuilder.newBlock("nsz"));
+            errorBuilder.call(buildTools.throwNsz);
+            errorBuilder.unreachable();
         }
 
-        // emit getelementptr instruction to get the pointer of the identifier
-        // adding 8 since the vtable pointer in the start of the object is 8 bytes long
-        // and all fields are after that
-        BuildTools.emit("\t" + pointerRegister + " = getelementptr i8, i8* %this, i32 " + (offset + 8));
+        return negativeSizeBlock;
+    }
+
+    // the block of the current function the failed index checks jump to, made the first time it is needed
+    public BasicBlock getArrayErrorBlock() {
 
-        // create a new register to bitcast the pointer to the correct type
-        String classFieldCastedRegister = BuildTools.newRegister(llvmSize);
+        if (arrayErrorBlock == null) {
 
-        // bitcast the pointer to the correct type
-        BuildTools.emit(
-                "\t" + classFieldCastedRegister + " = bitcast i8* " + pointerRegister + " to " + llvmSize + "*");
+            IRBuilder errorBuilder = new IRBuilder(builder.getFunction());
 
-        // emit store instuction to store the result of the expression in the class
-        // field register
-        BuildTools.emit("\tstore " + llvmSize + " " + expressionResultRegister + ", " + llvmSize + "* "
-                + classFieldCastedRegister);
+            // index greater than or equal to the length
+            errorBuilder.setInsertPoint(outOfBoundsBlock = errorBuilder.newBlock("oob"));
+            errorBuilder.call(buildTools.throwOob);
+            errorBuilder.unreachable();
 
-        return;
+            // the index of the failed check comes from the block of the check, a negative index is a negative size error
+            errorBuilder.setInsertPoint(arrayErrorBlock = errorBuilder.newBlock("arrError"));
+            arrayErrorIndex = errorBuilder.phi(IRType.I32);
+            errorBuilder.condBr(errorBuilder.icmp(Predicate.SLT, arrayErrorIndex, ConstantInt.i32(0)), getNegativeSizeBlock(), outOfBoundsBlock);
+        }
+
+        return arrayErrorBlock;
     }
 
-    public String loadClassField(ClassInformation _class, String identifierName, String identifierSize) {
+    // checks that the index is inside the array, the length is stored first
+    public void checkArrayIndex(Value array, Value index) {
 
-        // create new object register
-        String identifierPointerRegister = BuildTools.newRegister("i8*");
+        // load the array size
+        Value arraySize = loadArrayLength(array);
 
-        // list to the pairs of variables and offsets
-        List<CustomPair<VariableInformation, Integer>> variableOffsetPairs = Offsets.classFieldOffsetMap
-                .get(_class);
+        // one unsigned compare checks both ends, a negative index is larger than any length as an unsigned number
+        Value inboundCheck = builder.icmp(Predicate.ULT, index, arraySize);
 
-        // initialize the offset to 8, since theres a pointer to the vtable in the
-        // begining of the object
-        int offset = 8;
+        BasicBlock oobOk = builder.newBlock(buildTools.newLabel("oobOk", true));
 
-        // loop through the pairs of variables and offsets
-        for (CustomPair<VariableInformation, Integer> fieldOffestPair : variableOffsetPairs) {
+        // the checks almost never fail, the error path is out of the way of the rest of the function
+        builder.condBr(inboundCheck, oobOk, getArrayErrorBlock()).setMetadata("prof", buildTools.getLikelyBranchWeights());
+        arrayErrorIndex.addIncoming(index, builder.getInsertBlock());
 
-            // check if the name of the identifier is the same as the name of the field
-            if (fieldOffestPair.firstObj.getVarName().equals(identifierName)) {
-                offset += fieldOffestPair.secondObj;
-                break;
-            }
+        // the index is fine
+        builder.appendBlock(oobOk);
+    }
+
+    // the pointer to an element of an array, the elements start after the i32 length
+    // int arrays have an i32 per element and boolean arrays an i8
+    public Value getArrayElementPointer(Value array, Value index, boolean booleanArray) {
+
+        // skip the length, the index + 1 element of the i32 array
+        if (!booleanArray) return builder.getElementPointer(array, builder.add(index, ConstantInt.i32(1)));
+
+        // skip the 4 bytes of the length, the index + 4 byte of the array
+        Value bytes = builder.bitcast(array, IRType.I8_PTR);
+
+        return builder.getElementPointer(bytes, builder.add(index, ConstantInt.i32(4)));
+    }
+
+    // the function every object of the class or of a class extending it runs for the method, null if some class overrides it
+    public Function getSingleTarget(ClassInformation classInfo, String methodName) {
+
+        Function target = buildTools.dispatchTableMap.get(classInfo).get(methodName).getFunction();
+
+        // the whole program is known, so the classes extending the class are all in the hierarchy
+        List<ClassInformation> classes = new ArrayList<>(symbolTable.classHierarchy.getDerivedClasses(classInfo));
+
+        while (!classes.isEmpty()) {
+
+            ClassInformation derivedClass = classes.remove(classes.size() - 1);
+
+            if (buildTools.dispatchTableMap.get(derivedClass).get(methodName).getFunction() != target) return null;
+
+            classes.addAll(symbolTable.classHierarchy.getDerivedClasses(derivedClass));
         }
 
-        // get the element pointer with getelementptr
-        BuildTools.emit("\t" + identifierPointerRegister + " = getelementptr i8, i8* %this, i32 " + offset);
+        return target;
+    }
+
+    // allocates an array of the given size, the size is stored at the start as an i32
+    public Value allocateArray(Value size, boolean booleanArray) {
 
-        // create new register for the field
-        String identifierFieldPointerRegister = BuildTools.newRegister(identifierSize);
+        // add one to the size, since we want to store the size of the array at the first index
+        Value allocationSize = builder.add(size, ConstantInt.i32(1));
 
-        // bit cast from i8* to the type of the field
-        BuildTools.emit("\t" + identifierFieldPointerRegister + " = bitcast i8* " + identifierPointerRegister
-                + " to " + identifierSize + "*");
+        // check if the size is an integer higher than or equal to 0
+        Value sizeCheck = builder.icmp(Predicate.SGT, allocationSize, ConstantInt.i32(1));
 
-        // create new register for the field value
-        String identifierFieldValueRegister = BuildTools.newRegister(identifierSize);
+        // create labels
+        BasicBlock arrayAllocationOk = builder.newBlock(buildTools.newLabel("arr_ok_sz", true));
+
+        // throw negative size exception in the error path of the function
+        builder.condBr(sizeCheck, arrayAllocationOk, getNegativeSizeBlock()).setMetadata("prof", buildTools.getLikelyBranchWeights());
+
+        // allocate the array
+        builder.appendBlock(arrayAllocationOk);
 
-        // load the value of the field into the register
-        BuildTools.emit("\t" + identifierFieldValueRegister + " = load " + identifierSize + ", " + identifierSize
-                + "* " + identifierFieldPointerRegister);
+        // the int elements are 4 bytes like the length, the boolean elements 1 byte after the 4 bytes of the length
+        Value array = booleanArray
+                ? allocate(builder.add(size, ConstantInt.i32(4)), ConstantInt.i32(1), null)
+                : allocate(allocationSize, ConstantInt.i32(4), null);
+
+        // cast the returned pointer of the allocation to i32*
+        Value array32 = builder.bitcast(array, IRType.I32_PTR);
+
+        // store the size of the array at the first index
+        tagAccess(builder.store(size, array32), "array length", IRType.I32);
 
-        // return the register with the field value
-        return identifierFieldValueRegister;
+        return array32;
     }
 
     @Override
-    public String visit(Goal n, SemanticAnalysis argu) throws Exception {
+    public Value visit(Goal n, SemanticAnalysis argu) throws Exception {
 
         // build the argu object for the visitor
-        ClassInformation mainClass = SymbolTable.classesMap.get(n.f0.f1.f0.toString());
+        ClassInformation mainClass = symbolTable.classesMap.get(n.f0.f1.f0.toString());
 
         // get the first element of the method list of the main class since there should
         // be only one item in this list, the main method
-        MethodInformation mainMethod = SymbolTable.classMethodsMap.get(mainClass).get(0);
+        MethodInformation mainMethod = mainClass.getMethods().values().iterator().next();
+
+        // define the structs of the objects of the classes
+        for (IRType structType : offsets.classStructTypeMap.values()) {
+            buildTools.module.addStructType(structType);
+        }
 
         // set the current class and method to the main class and method
         currentClass = mainClass;
         currentMethod = mainMethod;
 
-        // perform the semantic analysis on the main class
+        // generate the code of the main class
         n.f0.accept(this, argu);
 
-        // perform the semantic analysis on the type declarations
+        // generate the code of the type declarations
         // classes methods etc.
         for (Node node : n.f1.nodes) {
 
@@ -330,13 +467,10 @@ public class LLVMCodeGeneration extends GJDepthFirst<String, SemanticAnalysis> {
     }
 
     @Override
-    public String visit(MainClass n, SemanticAnalysis argu) throws Exception {
+    public Value visit(MainClass n, SemanticAnalysis argu) throws Exception {
 
-        // reset the counters for register and labels
-        BuildTools.resetCounters();
-
-        // write the main method signature to the LL file
-        BuildTools.emit("define i32 @main() {");
+        // the main function was added to the module with the vtables
+        startFunction(buildTools.module.getFunction("main"));
 
         // accept all the variable declarations of the main method
         for (Node variableDeclaration : n.f14.nodes) {
@@ -347,43 +481,33 @@ public class LLVMCodeGeneration extends GJDepthFirst<String, SemanticAnalysis> {
         for (Node statement : n.f15.nodes) {
 
             // accept the statement
-            // argu is the current scope, i.e. the class name and the method name
-            // since this is the main method, argu is provided by the main method
             statement.accept(this, argu);
         }
 
-        // main method must return 0, emit to .ll file
-        BuildTools.emit("\tret i32 0");
+        // the prints still in the output buffer are written before the program ends
+        builder.call(buildTools.flushOutput);
 
-        BuildTools.emit("}");
+        // main method must return 0
+        builder.ret(ConstantInt.i32(0));
 
-        // emit a new line to the .ll file
-        // pretty printing
-        BuildTools.emit("");
+        finishFunction();
 
         // nothing to return
         return null;
     }
 
     @Override
-    public String visit(ClassDeclaration n, SemanticAnalysis argu) throws Exception {
+    public Value visit(ClassDeclaration n, SemanticAnalysis argu) throws Exception {
 
         // get class name
         String className = n.f1.f0.toString();
 
-        // get the class information from the symbol table
-        ClassInformation classInfo = SymbolTable.classesMap.get(className);
-
         // we can skip the variable declarations since they are already done
         // set the current class to the current class
-        currentClass = classInfo;
+        currentClass = symbolTable.classesMap.get(className);
 
         // accept all the method declarations
-        // iterate through the method declartations
         for (Node methodDeclaration : n.f4.nodes) {
-            // reset the counters for register and labels
-            BuildTools.resetCounters();
-
             methodDeclaration.accept(this, argu);
         }
 
@@ -392,25 +516,17 @@ public class LLVMCodeGeneration extends GJDepthFirst<String, SemanticAnalysis> {
     }
 
     @Override
-    public String visit(ClassExtendsDeclaration n, SemanticAnalysis argu) throws Exception {
+    public Value visit(ClassExtendsDeclaration n, SemanticAnalysis argu) throws Exception {
 
         // get class name
         String className = n.f1.f0.toString();
 
-        // get the class information from the symbol table
-        ClassInformation classInfo = SymbolTable.classesMap.get(className);
-
         // we can skip the variable declarations since they are already done
         // set the current class to the current class
-        currentClass = classInfo;
+        currentClass = symbolTable.classesMap.get(className);
 
         // accept all the method declarations
-        // iterate through the method declartations
         for (Node methodDeclaration : n.f6.nodes) {
-
-            // reset the counters for register and labels
-            BuildTools.resetCounters();
-
             methodDeclaration.accept(this, argu);
         }
 
@@ -419,85 +535,32 @@ public class LLVMCodeGeneration extends GJDepthFirst<String, SemanticAnalysis> {
     }
 
     @Override
-    public String visit(MethodDeclaration n, SemanticAnalysis argu) throws Exception {
-
+    public Value visit(MethodDeclaration n, SemanticAnalysis argu) throws Exception {
 
         // get the name of the method
         String methodName = n.f2.f0.toString();
 
-        // get the method information object
-        MethodInformation method = null;
-
-        // iterate through the list of methods in the class to find the right object
-        List<MethodInformation> classMethods = SymbolTable.classMethodsMap.get(currentClass);
-
-        for (MethodInformation methodInfo : classMethods) {
-            if (methodInfo.getMethodName().equals(methodName)) {
-                method = methodInfo;
-                break;
-            }
-        }
-
-        // set the current method to the method found above
-        currentMethod = method;
+        // set the current method to the method of the current class
+        currentMethod = currentClass.getMethod(methodName);
 
-        // create new class method pair to find the type of the method
-        CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(currentClass, method);
+        // the function of the method was created with the vtable of the class
+        Function function = buildTools.dispatchTableMap.get(currentClass).get(methodName).getFunction();
 
-        // get the method type from the symbol table
-        String methodType = SymbolTable.classMethodTypeMap.get(classMethodPair);
+        startFunction(function);
 
-        // build the signature of the method
-        String methodSignature = "define " + getLLVMSize(methodType) + " @" + currentClass.getClassName() + "."
-                + methodName + "(i8* %this";
+        // allocate memory for every method parameter and store the argument in it
+        // the first argument is this, the parameters follow in order
+        int argumentIndex = 1;
 
-        // get the list of the method parameters
-        List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(classMethodPair);
-
-        if (methodParams != null) {
-
-            // iterate through the method parameters
-            for (VariableInformation param : methodParams) {
-
-                // new pair of classMethod pair and variable information object
-                CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> classMethodVarPair = new CustomPair<>(
-                        classMethodPair, param);
-
-                methodSignature += ", " + getLLVMSize(SymbolTable.methodParameterTypeMap.get(classMethodVarPair))
-                        + " %." + param.getVarName();
-            }
+        for (VariableInformation param : currentMethod.getParameters().values()) {
+            builder.store(function.getArgument(argumentIndex), allocateLocalVariable(param));
+            addVariableRoot(param, function.getArgument(argumentIndex++));
         }
 
-        // finish the method signature
-        methodSignature += ") {";
-
-        // emit the method signature to the .ll file
-        BuildTools.emit(methodSignature);
-
-        // allocate memory for every method parameter, if it has
-        if (methodParams != null) {
-
-            // iterate through the method parameters
-            for (VariableInformation param : methodParams) {
-
-                // new pair of classMethod pair and variable information object
-                CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> classMethodVarPair = new CustomPair<>(
-                        classMethodPair, param);
-
-                // emit alloca instruction to allocate memory for the method parameter
-                BuildTools.emit("\t%" + param.getVarName() + " = alloca "
-                        + getLLVMSize(SymbolTable.methodParameterTypeMap.get(classMethodVarPair)));
-
-                // emit store instruction to store the method parameter in the allocated memory
-                BuildTools.emit("\tstore " + getLLVMSize(SymbolTable.methodParameterTypeMap.get(classMethodVarPair))
-                        + " %." + param.getVarName() + ", "
-                        + getLLVMSize(SymbolTable.methodParameterTypeMap.get(classMethodVarPair)) + "* %"
-                        + param.getVarName());
-            }
-        }
+        // the object the method was called on is a root too
+        if (options.getGarbageCollection()) storeRoot(function.getArgument(0), rootCount++);
 
         // accept all the variable declarations
-        // iterate through the variable declarations
         for (Node varDeclaration : n.f7.nodes) {
             varDeclaration.accept(this, argu);
         }
@@ -507,122 +570,34 @@ public class LLVMCodeGeneration extends GJDepthFirst<String, SemanticAnalysis> {
             statement.accept(this, argu);
         }
 
-        // get the result of the return expression of the method
-        String returnResultRegister = n.f10.accept(this, argu);
-
-        // emit the return instruction to return the result of the method
-        BuildTools.emit("\tret " + getLLVMSize(methodType) + " " + returnResultRegister);
+        // return the result of the return expression of the method
+        builder.ret(n.f10.accept(this, argu));
 
-        BuildTools.emit("}");
-
-        // emit new line
-        // pretty print
-        BuildTools.emit("");
+        finishFunction();
 
         // nothing to return
         return null;
     }
 
     @Override
-    public String visit(VarDeclaration n, SemanticAnalysis argu) throws Exception {
-
-        // get the type of the identifier
-        String identifierType = n.f0.accept(this, argu);
-
-        // get the name of the identifier
-        String identifierName = n.f1.f0.toString();
-
-        // if we're in the main method or not
-        // if we are every type declaration is a variable declaration
-        if (currentMethod.getMethodName().equals("main")) {
+    public Value visit(VarDeclaration n, SemanticAnalysis argu) throws Exception {
 
-            // allocate the local variable in the main method
-            allocateLocalVariable(identifierType, identifierName);
-        } else {
-
-            // we're not in the main method so we're in a class method
-            // create a custom pair of class and method to use as a key for the symbol table
-            // maps
-            CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(currentClass,
-                    currentMethod);
-
-            // list of variables in the current method
-            List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(classMethodPair);
-
-            // list of class fields in the current class
-            List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(currentClass);
-
-            // boolean to know if the variable is allocated or not
-            boolean isAllocated = false;
-
-            // check if the identifier is a local variable first
-            if (methodVars != null && !isAllocated) {
-                for (VariableInformation var : methodVars) {
-                    if (var.getVarName().equals(identifierName)) {
-                        allocateLocalVariable(identifierType, identifierName);
-                        isAllocated = true;
-                        break;
-                    }
-                }
-            }
-
-            // check if the identifier is a class field next
-            if (classFields != null && !isAllocated) {
-                for (VariableInformation var : classFields) {
-                    if (var.getVarName().equals(identifierName)) {
-                        allocateLocalVariable(identifierType, identifierName);
-                        isAllocated = true;
-                        break;
-                    }
-                }
-            }
-
-        }
+        // every variable declaration inside a method is a local variable
+        allocateLocalVariable(currentMethod.getVariable(n.f1.f0.toString()));
 
         // statement nothing to return
         return null;
     }
 
     @Override
-    public String visit(Type n, SemanticAnalysis argu) throws Exception {
-        return n.f0.accept(this, argu);
-    }
-
-    @Override
-    public String visit(ArrayType n, SemanticAnalysis argu) throws Exception {
-        return n.f0.accept(this, argu);
-    }
-
-    @Override
-    public String visit(BooleanArrayType n, SemanticAnalysis argu) throws Exception {
-
-        return "boolean[]";
-    }
-
-    @Override
-    public String visit(IntegerArrayType n, SemanticAnalysis argu) throws Exception {
-        return "int[]";
-    }
-
-    @Override
-    public String visit(BooleanType n, SemanticAnalysis argu) throws Exception {
-        return "boolean";
-    }
-
-    @Override
-    public String visit(IntegerType n, SemanticAnalysis argu) throws Exception {
-        return "int";
-    }
-
-    @Override
-    public String visit(Statement n, SemanticAnalysis argu) throws Exception {
+    public Value visit(Statement n, SemanticAnalysis argu) throws Exception {
 
         // accept the statement, this will produce code for the statement
         return n.f0.accept(this, argu);
     }
 
     @Override
-    public String visit(Block n, SemanticAnalysis argu) throws Exception {
+    public Value visit(Block n, SemanticAnalysis argu) throws Exception {
 
         // accept each of the statements in the block
         for (Node statment : n.f1.nodes) {
@@ -633,1364 +608,430 @@ public class LLVMCodeGeneration extends GJDepthFirst<String, SemanticAnalysis> {
     }
 
     @Override
-    public String visit(AssignmentStatement n, SemanticAnalysis argu) throws Exception {
-
-        // custom pair of current class and method to use as a key for the symbol table
-        // maps
-        CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(this.currentClass,
-                this.currentMethod);
-
-        // get the name of the identifier
-        String identifierName = n.f0.f0.toString();
-
-        // get the type of the identifier
-        String identifierType = getIdentifierType(n.f0.f0.toString(), classMethodPair);
-
-        // boolean to know if the variable is an inherited field
-        Boolean isInheritedField = false;
-
-        // pair of class and variable information object of the inherited field
-        CustomPair<ClassInformation, VariableInformation> inheritedFieldPair = null;
-
-        // if the identifier type is null check if the identifier is a super class field
-        if (identifierType == null) {
-
-            // get super class of the current class
-            ClassInformation superClass = SymbolTable.classInheritenceMap.get(this.currentClass);
-
-            // if the super class is not null
-            if (superClass != null) {
-
-                // check every class in the inheritence tree
-                while (superClass != null) {
-
-                    // get the class fields
-                    List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(superClass);
-
-                    // if the class fields is not null
-                    if (classFields != null) {
+    public Value visit(AssignmentStatement n, SemanticAnalysis argu) throws Exception {
 
-                        // check every class field
-                        for (VariableInformation var : classFields) {
-
-                            // if the class field name matches the identifier name
-                            if (var.getVarName().equals(identifierName)) {
-
-                                // custom pair of class info and var info to use as key for the map below
-                                inheritedFieldPair = new CustomPair<>(superClass, var);
-
-                                // set the identifier type to the class field type
-                                identifierType = SymbolTable.classFieldTypeMap.get(inheritedFieldPair);
-
-                                // set the isInheritedField to true
-                                isInheritedField = true;
-
-                                // break out of the loop
-                                break;
-                            }
-                        }
-                    }
-
-                    if (isInheritedField) {
-                        break;
-                    }
-
-                    // get the super class of the current class
-                    superClass = SymbolTable.classInheritenceMap.get(superClass);
-                }
-            }
-        }
-
-        // get llvm size of the identifier type
-        String llvmSize = getLLVMSize(identifierType);
+        // get the declaration of the identifier found by the semantic analysis
+        VariableInformation identifier = argu.getDeclaration(n.f0);
 
         // get the expression result
-        String expressionResultRegister = n.f2.accept(this, argu);
+        Value expressionResult = n.f2.accept(this, argu);
 
-        // check if we're in the main method or not
-        if (isInheritedField) {
+        // check if the identifier is a local variable or parameter, i.e. it has no owner class
+        if (identifier.getOwnerClass() == null) {
 
-            // call store class field with the super class
-            storeClassField(inheritedFieldPair.firstObj, identifierName, llvmSize, expressionResultRegister);
-        }
-        else if (currentMethod.getMethodName().equals("main") || isMethodVar(identifierName, classMethodPair)
-                || isMethodParam(identifierName, classMethodPair)) {
-
-            // emit store instruction to store the expression result in the local variable
-            BuildTools.emit(
-                    "\tstore " + llvmSize + " " + expressionResultRegister + ", " + llvmSize + "* %" + identifierName);
-        } else if (isClassField(identifierName)) {
+            // store the expression result in the local variable
+            builder.store(expressionResult, localVariableMap.get(identifier));
+            addVariableRoot(identifier, expressionResult);
+        } else {
 
-            // call store class field with the the current class
-            storeClassField(currentClass, identifierName, llvmSize, expressionResultRegister);
+            // call store class field with the binding of the field in the layout of the current class
+            storeClassField(getFieldOffset(identifier.getVarName()), expressionResult);
         }
 
         return null;
     }
 
     @Override
-    public String visit(ArrayAssignmentStatement n, SemanticAnalysis argu) throws Exception {
-
-        // get the name of the identifier
-        String identifierName = n.f0.accept(this, argu);
+    public Value visit(ArrayAssignmentStatement n, SemanticAnalysis argu) throws Exception {
 
-        // since it's an array the size is i32*
-        String arraySizeRegister = BuildTools.newRegister("i32");
+        // get the array, the index and the expression can collect before it is used
+        Value array = n.f0.accept(this, argu);
+        addTemporaryRoot(array);
 
-        // load the array size into the array size register
-        BuildTools.emit("\t" + arraySizeRegister + " = load i32, i32* " + identifierName);
-
-        // get the result of the expression acting as the index
-        String indexResultRegister = n.f2.accept(this, argu);
-
-        // create register for greater than or equal to zero check
-        String zeroCheckRegister = BuildTools.newRegister("i1");
-
-        // check if the index is greater than or equal to zero
-        BuildTools.emit("\t" + zeroCheckRegister + " = icmp sge i32 " + indexResultRegister + ", 0");
-
-        // inbound check
-        String inboundCheckRegister = BuildTools.newRegister("i1");
-
-        // check if the index is less than the array size
-        BuildTools.emit(
-                "\t" + inboundCheckRegister + " = icmp slt i32 " + indexResultRegister + ", " + arraySizeRegister);
-
-        // combine these two checks
-        String andRegister = BuildTools.newRegister("i1");
-        BuildTools.emit("\t" + andRegister + " = and i1 " + zeroCheckRegister + ", " + inboundCheckRegister);
-
-        // labels for out of bounds check
-        String arrErrorLabel = BuildTools.newLabel("arrError", false);
-        String oobLabel = BuildTools.newLabel("oob", false);
-        String nszLabel = BuildTools.newLabel("nsz", false);
-        String oobLabelOk = BuildTools.newLabel("oobOk", true);
-
-        // add branch instruction to ll file
-        BuildTools.emit("\tbr i1 " + andRegister + ", label %" + oobLabelOk + ", label %" + arrErrorLabel);
-
-        // add oob label
-        BuildTools.emit(arrErrorLabel + ":");
-
-        // add branch instruction to ll file, check if the size index is negative or
-        // greater than the length
-        BuildTools.emit("\tbr i1 " + inboundCheckRegister + ", label %" + nszLabel + ", label %" + oobLabel);
-
-        // add oob label
-        BuildTools.emit(oobLabel + ":");
-
-        // add error message
-        BuildTools.emit("\tcall void @throw_oob()");
-
-        // branch to oob ok label
-        BuildTools.emit("\tbr label %" + oobLabelOk);
-
-        // add nsz label
-        BuildTools.emit(nszLabel + ":");
-
-        // add error message
-        BuildTools.emit("\tcall void @throw_nsz()");
-
-        // branch to oob ok label
-        BuildTools.emit("\tbr label %" + oobLabelOk);
-
-        // add oob ok label to ll file
-        BuildTools.emit(oobLabelOk + ":");
-
-        // add one to the index register, create a new register to store the actual
-        // index
-        String indexRegister = BuildTools.newRegister("i32");
-        BuildTools.emit("\t" + indexRegister + " = add i32 " + indexResultRegister + ", 1");
+        // get the result of the expression acting as the index and check it
+        Value index = n.f2.accept(this, argu);
+        checkArrayIndex(array, index);
 
         // get the result of the expression
-        String expressionResultRegister = n.f5.accept(this, argu);
+        Value expressionResult = n.f5.accept(this, argu);
 
-        // check if the expression result is in a register or not
-        if (BuildTools.registerMap.containsKey(expressionResultRegister)) {
+        boolean booleanArray = argu.getDeclaration(n.f0).getVarType() == TypeInformation.BOOLEAN_ARRAY;
 
-            // if it is, check the type of the expression result
-            // if it is i1 then we need to convert it to i32 using zext
-            if (BuildTools.registerMap.get(expressionResultRegister).getRegisterType().equals("i1")) {
+        // booleans are stored in the arrays as i8, convert them using zext
+        if (booleanArray) {
+            expressionResult = builder.zext(expressionResult, IRType.I8);
+        }
 
-                // create a new register to store the zext result
-                String zextRegister = BuildTools.newRegister("i32");
+        // calculate the pointer to the element of the array
+        Value pointer = getArrayElementPointer(array, index, booleanArray);
 
-                // emit the zext instruction
-                BuildTools.emit("\t" + zextRegister + " = zext i1 " + expressionResultRegister + " to i32");
+        // store the result of the expression in the pointer
+        tagAccess(builder.store(expressionResult, pointer), booleanArray ? "boolean[]" : "int[]", expressionResult.getType());
 
-                // make expression result register the zext register
-                expressionResultRegister = zextRegister;
-            }
-        } else {
+        return null;
+    }
 
-            // if it is not, check if the expression result is a boolean literal, i.e. true,
-            // false
-            if (expressionResultRegister.equals("true")) {
+    // generates a condition as branches to its targets, an && or a ! jumps straight to the target it decides
+    // instead of building an i1 and branching on it again
+    public void generateCondition(Node condition, BasicBlock trueTarget, BasicBlock falseTarget, SemanticAnalysis argu) throws Exception {
+
+        // look through the nodes that only wrap another expression
+        while (true) {
+            if (condition instanceof Expression) condition = ((Expression) condition).f0.choice;
+            else if (condition instanceof Clause) condition = ((Clause) condition).f0.choice;
+            else if (condition instanceof PrimaryExpression) condition = ((PrimaryExpression) condition).f0.choice;
+            else if (condition instanceof BracketExpression) condition = ((BracketExpression) condition).f1;
+            else break;
+        }
 
-                // convert the boolean literal to i32 using zext
-                String trueRegister = BuildTools.newRegister("i32");
+        if (condition instanceof AndExpression) {
 
-                // emit the zext instruction
-                BuildTools.emit("\t" + trueRegister + " = zext i1 true to i32");
+            AndExpression andExpression = (AndExpression) condition;
 
-                expressionResultRegister = trueRegister;
-            } else if (expressionResultRegister.equals("false")) {
+            // the right clause is evaluated only if the left clause is true, both go to the false target if they are false
+            BasicBlock andLabel = builder.newBlock(buildTools.newLabel("andLabel", true));
 
-                // convert the boolean literal to i32 using zext
-                String falseRegister = BuildTools.newRegister("i32");
+            generateCondition(andExpression.f0, andLabel, falseTarget, argu);
 
-                // emit the zext instruction
-                BuildTools.emit("\t" + falseRegister + " = zext i1 false to i32");
+            builder.appendBlock(andLabel);
+            generateCondition(andExpression.f2, trueTarget, falseTarget, argu);
 
-                expressionResultRegister = falseRegister;
-            }
+            return;
         }
 
-        // get the pointer to the index + 1 element of the array
-        // create a new register for the pointer
-        String pointerRegister = BuildTools.newRegister("i32*");
-
-        // calculate the pointer to the index + 1 element of the array
-        BuildTools.emit(
-                "\t" + pointerRegister + " = getelementptr i32, i32* " + identifierName + ", i32 " + indexRegister);
-
-        // store the result of the expression in the pointer
-        BuildTools.emit("\tstore i32 " + expressionResultRegister + ", i32* " + pointerRegister);
+        // the targets of the negated clause are swapped
+        if (condition instanceof NotExpression) {
+            generateCondition(((NotExpression) condition).f1, falseTarget, trueTarget, argu);
+            return;
+        }
 
-        return null;
+        // any other condition is computed and branched on
+        builder.condBr(condition.accept(this, argu), trueTarget, falseTarget);
     }
 
     @Override
-    public String visit(IfStatement n, SemanticAnalysis argu) throws Exception {
-
-        // accept the expression and get the result register
-        String expressionResultRegister = n.f2.accept(this, argu);
-
-        // check if the expression result is in a register or not
-        if (BuildTools.registerMap.containsKey(expressionResultRegister)) {
-
-            // if it is, check the type of the expression result
-            // if it is i32 then we need to convert it to i1 using trunc
-            if (BuildTools.registerMap.get(expressionResultRegister).getRegisterType().equals("i32")) {
-
-                // create a new register to store the zext result
-                String truncRegister = BuildTools.newRegister("i1");
-
-                // emit the trunc instruction
-                BuildTools.emit("\t" + truncRegister + " = trunc i32 " + expressionResultRegister + " to i1");
-
-                // make expression result register the zext register
-                expressionResultRegister = truncRegister;
-            }
-        }
+    public Value visit(IfStatement n, SemanticAnalysis argu) throws Exception {
 
         // create if else exit labels
-        String ifLabel = BuildTools.newLabel("ifLabel", false);
-        String elseLabel = BuildTools.newLabel("elseLabel", false);
-        String exitLabel = BuildTools.newLabel("ifStmtExitLabel", true);
-
-        // emit the branch instruction to ll file
-        BuildTools.emit("\tbr i1 " + expressionResultRegister + ", label %" + ifLabel + ", label %" + elseLabel);
+        BasicBlock ifLabel = builder.newBlock(buildTools.newLabel("ifLabel", false));
+        BasicBlock elseLabel = builder.newBlock(buildTools.newLabel("elseLabel", false));
+        BasicBlock exitLabel = builder.newBlock(buildTools.newLabel("ifStmtExitLabel", true));
 
-        // emit the if label
-        BuildTools.emit(ifLabel + ":");
+        // branch on the expression
+        generateCondition(n.f2, ifLabel, elseLabel, argu);
 
         // accept the if statement
+        builder.appendBlock(ifLabel);
         n.f4.accept(this, argu);
-
-        // emit the branch to exit instruction to ll file
-        BuildTools.emit("\tbr label %" + exitLabel);
-
-        // emit the else label
-        BuildTools.emit(elseLabel + ":");
+        builder.br(exitLabel);
 
         // accept the else statement
+        builder.appendBlock(elseLabel);
         n.f6.accept(this, argu);
+        builder.br(exitLabel);
 
-        // emit the branch to exit instruction to ll file
-        BuildTools.emit("\tbr label %" + exitLabel);
-
-        // emit the exit label
-        BuildTools.emit(exitLabel + ":");
+        builder.appendBlock(exitLabel);
 
         return null;
     }
 
     @Override
-    public String visit(WhileStatement n, SemanticAnalysis argu) throws Exception {
+    public Value visit(WhileStatement n, SemanticAnalysis argu) throws Exception {
 
         // create while, while loop and while exit label
-        String whileLabel = BuildTools.newLabel("whileLabel", false);
-        String whileLoopLabel = BuildTools.newLabel("whileLoopLabel", false);
-        String whileExitLabel = BuildTools.newLabel("whileExitLabel", true);
+        BasicBlock whileLabel = builder.newBlock(buildTools.newLabel("whileLabel", false));
+        BasicBlock whileLoopLabel = builder.newBlock(buildTools.newLabel("whileLoopLabel", false));
+        BasicBlock whileExitLabel = builder.newBlock(buildTools.newLabel("whileExitLabel", true));
 
-        // emit the branch to while instruction to ll file
-        BuildTools.emit("\tbr label %" + whileLabel);
+        builder.br(whileLabel);
 
-        // emit the while label
-        BuildTools.emit(whileLabel + ":");
-
-        // accept the expression and get the result register
-        String expressionResultRegister = n.f2.accept(this, argu);
-
-        // emit the branch instruction to ll file
-        BuildTools.emit(
-                "\tbr i1 " + expressionResultRegister + ", label %" + whileLoopLabel + ", label %" + whileExitLabel);
-
-        // emit the while loop label
-        BuildTools.emit(whileLoopLabel + ":");
+        // branch on the expression
+        builder.appendBlock(whileLabel);
+        generateCondition(n.f2, whileLoopLabel, whileExitLabel, argu);
 
         // accept the while statement
+        builder.appendBlock(whileLoopLabel);
         n.f4.accept(this, argu);
+        builder.br(whileLabel);
 
-        // emit the branch to while instruction to ll file
-        BuildTools.emit("\tbr label %" + whileLabel);
-
-        // emit the while exit label
-        BuildTools.emit(whileExitLabel + ":");
+        builder.appendBlock(whileExitLabel);
 
         return null;
     }
 
     @Override
-    public String visit(PrintStatement n, SemanticAnalysis argu) throws Exception {
+    public Value visit(PrintStatement n, SemanticAnalysis argu) throws Exception {
 
-        // accept the expression and get the result register
-        String expressionResultRegister = n.f2.accept(this, argu);
-
-        // add the print instruction to the LL file
-        BuildTools.emit("\t" + "call void (i32) @print_int(i32 " + expressionResultRegister + ")");
+        // accept the expression and print the result
+        builder.call(buildTools.printInt, n.f2.accept(this, argu));
 
         return null;
     }
 
     @Override
-    public String visit(Expression n, SemanticAnalysis argu) throws Exception {
+    public Value visit(Expression n, SemanticAnalysis argu) throws Exception {
         return n.f0.accept(this, argu);
     }
 
     @Override
-    public String visit(AndExpression n, SemanticAnalysis argu) throws Exception {
-
-        // create and entry label, and label, and exit label
-        String andLabel0 = BuildTools.newLabel("andLabel", true);
-        String andLabel1 = BuildTools.newLabel("andLabel", true);
-        String andLabel2 = BuildTools.newLabel("andLabel", true);
-        String andLabel3 = BuildTools.newLabel("andLabel", true);
-
-        // accept the left clause and get the result register
-        String leftClauseResultRegister = n.f0.accept(this, argu);
-
-        // check if the expression result is in a register or not
-        if (BuildTools.registerMap.containsKey(leftClauseResultRegister)) {
-
-            // if it is, check the type of the expression result
-            // if it is i32 then we need to convert it to i1 using trunc
-            if (BuildTools.registerMap.get(leftClauseResultRegister).getRegisterType().equals("i32")) {
-
-                // create a new register to store the zext result
-                String truncRegister = BuildTools.newRegister("i1");
-
-                // emit the trunc instruction
-                BuildTools.emit("\t" + truncRegister + " = trunc i32 " + leftClauseResultRegister + " to i1");
-
-                // make expression result register the zext register
-                leftClauseResultRegister = truncRegister;
-            }
-        }
+    public Value visit(AndExpression n, SemanticAnalysis argu) throws Exception {
 
-        // emit the branch instruction to ll file
-        BuildTools.emit("\tbr i1 " + leftClauseResultRegister + ", label %" + andLabel1 + ", label %" + andLabel0);
+        // create the label of the right clause and the exit label
+        BasicBlock andLabel0 = builder.newBlock(buildTools.newLabel("andLabel", true));
+        BasicBlock andLabel1 = builder.newBlock(buildTools.newLabel("andLabel", true));
 
-        // emit the and entry label to ll file
-        BuildTools.emit(andLabel0 + ":");
+        // accept the left clause, the right clause is evaluated only if it is true
+        Value leftClauseResult = n.f0.accept(this, argu);
+        BasicBlock leftClauseEnd = builder.getInsertBlock();
+        builder.condBr(leftClauseResult, andLabel0, andLabel1);
 
-        // emit branch to exit label to ll file
-        BuildTools.emit("\tbr label %" + andLabel3);
+        // accept the right clause and get the result, it may have ended in another block
+        builder.appendBlock(andLabel0);
+        Value rightClauseResult = n.f2.accept(this, argu);
+        BasicBlock rightClauseEnd = builder.getInsertBlock();
+        builder.br(andLabel1);
 
-        // emit the and right label to ll file
-        BuildTools.emit(andLabel1 + ":");
+        // the result is false if the left clause was false, the right clause otherwise
+        builder.appendBlock(andLabel1);
 
-        // accept the right clause and get the result register
-        String rightClauseResultRegister = n.f2.accept(this, argu);
-
-        // check if the expression result is in a register or not
-        if (BuildTools.registerMap.containsKey(rightClauseResultRegister)) {
-
-            // if it is, check the type of the expression result
-            // if it is i32 then we need to convert it to i1 using trunc
-            if (BuildTools.registerMap.get(rightClauseResultRegister).getRegisterType().equals("i32")) {
-
-                // create a new register to store the zext result
-                String truncRegister = BuildTools.newRegister("i1");
-
-                // emit the trunc instruction
-                BuildTools.emit("\t" + truncRegister + " = trunc i32 " + rightClauseResultRegister + " to i1");
-
-                // make expression result register the zext register
-                rightClauseResultRegister = truncRegister;
-            }
-        }
-
-        // emit the branch instruction to ll file
-        BuildTools.emit("\tbr label %" + andLabel2);
-
-        // emit the and label 2 to ll file
-        BuildTools.emit(andLabel2 + ":");
-
-        // emit the branch to exit label to ll file
-        BuildTools.emit("\tbr label %" + andLabel3);
-
-        // emit the and exit label to ll file
-        BuildTools.emit(andLabel3 + ":");
-
-        // create register for the result of the expression
-        String resultRegister = BuildTools.newRegister("i1");
-
-        // emit the phi instruction to ll file
-        BuildTools.emit("\t" + resultRegister + " = phi i1 [0, %" + andLabel0 + "], [" + rightClauseResultRegister
-                + ", %" + andLabel2 + "]");
-
-        // return the result register
-        return resultRegister;
+        Instruction result = builder.phi(IRType.I1);
+        result.addIncoming(ConstantInt.FALSE, leftClauseEnd);
+        result.addIncoming(rightClauseResult, rightClauseEnd);
 
+        // return the result
+        return result;
     }
 
     @Override
-    public String visit(CompareExpression n, SemanticAnalysis argu) throws Exception {
-
-        // accept the left and right primary expressions and get the result registers
-        String leftPrimaryResultRegister = n.f0.accept(this, argu);
-        String rightPrimaryResultRegister = n.f2.accept(this, argu);
+    public Value visit(CompareExpression n, SemanticAnalysis argu) throws Exception {
 
-        // create new register for the result of the comparison
-        String resultRegister = BuildTools.newRegister("i1");
+        // accept the left and right primary expressions and compare the results
+        Value leftPrimaryResult = n.f0.accept(this, argu);
+        Value rightPrimaryResult = n.f2.accept(this, argu);
 
-        // emit the compare instruction to ll file
-        BuildTools.emit("\t" + resultRegister + " = icmp slt i32 " + leftPrimaryResultRegister + ", "
-                + rightPrimaryResultRegister);
-
-        // return the result register
-        return resultRegister;
+        return builder.icmp(Predicate.SLT, leftPrimaryResult, rightPrimaryResult);
     }
 
     @Override
-    public String visit(PlusExpression n, SemanticAnalysis argu) throws Exception {
-
-        // accept the left and right primary expressions and get the result registers
-        String leftPrimaryResultRegister = n.f0.accept(this, argu);
-        String rightPrimaryResultRegister = n.f2.accept(this, argu);
+    public Value visit(PlusExpression n, SemanticAnalysis argu) throws Exception {
 
-        // create new register for the result of the addition
-        String resultRegister = BuildTools.newRegister("i32");
+        // accept the left and right primary expressions and add the results
+        Value leftPrimaryResult = n.f0.accept(this, argu);
+        Value rightPrimaryResult = n.f2.accept(this, argu);
 
-        // emit the add instruction to ll file
-        BuildTools.emit(
-                "\t" + resultRegister + " = add i32 " + leftPrimaryResultRegister + ", " + rightPrimaryResultRegister);
-
-        // return the result register
-        return resultRegister;
+        return builder.add(leftPrimaryResult, rightPrimaryResult);
     }
 
     @Override
-    public String visit(MinusExpression n, SemanticAnalysis argu) throws Exception {
-
-        // accept the left and right primary expressions and get the result registers
-        String leftPrimaryResultRegister = n.f0.accept(this, argu);
-        String rightPrimaryResultRegister = n.f2.accept(this, argu);
+    public Value visit(MinusExpression n, SemanticAnalysis argu) throws Exception {
 
-        // create new register for the result of the subtraction
-        String resultRegister = BuildTools.newRegister("i32");
+        // accept the left and right primary expressions and subtract the results
+        Value leftPrimaryResult = n.f0.accept(this, argu);
+        Value rightPrimaryResult = n.f2.accept(this, argu);
 
-        // emit the sub instruction to ll file
-        BuildTools.emit(
-                "\t" + resultRegister + " = sub i32 " + leftPrimaryResultRegister + ", " + rightPrimaryResultRegister);
-
-        // return the result register
-        return resultRegister;
+        return builder.sub(leftPrimaryResult, rightPrimaryResult);
     }
 
     @Override
-    public String visit(TimesExpression n, SemanticAnalysis argu) throws Exception {
-
-        // accept the left and right primary expressions and get the result registers
-        String leftPrimaryResultRegister = n.f0.accept(this, argu);
-        String rightPrimaryResultRegister = n.f2.accept(this, argu);
-
-        // create new register for the result of the multiplication
-        String resultRegister = BuildTools.newRegister("i32");
+    public Value visit(TimesExpression n, SemanticAnalysis argu) throws Exception {
 
-        // emit the mul instruction to ll file
-        BuildTools.emit(
-                "\t" + resultRegister + " = mul i32 " + leftPrimaryResultRegister + ", " + rightPrimaryResultRegister);
+        // accept the left and right primary expressions and multiply the results
+        Value leftPrimaryResult = n.f0.accept(this, argu);
+        Value rightPrimaryResult = n.f2.accept(this, argu);
 
-        // return the result register
-        return resultRegister;
+        return builder.mul(leftPrimaryResult, rightPrimaryResult);
     }
 
     @Override
-    public String visit(ArrayLookup n, SemanticAnalysis argu) throws Exception {
-
-        // accept the first primary expression which is the array and get the result
-        // register
-        String arrayResultRegister = n.f0.accept(this, argu);
-
-        // create new register for the array size
-        String arraySizeRegister = BuildTools.newRegister("i32");
-
-        // get the array size from the array result register
-        BuildTools.emit("\t" + arraySizeRegister + " = load i32, i32* " + arrayResultRegister);
-
-        // accept the second primary expression which is the index and get the result
-        // register
-        String indexResultRegister = n.f2.accept(this, argu);
-
-        // create register for greater than or equal to zero check
-        String zeroCheckRegister = BuildTools.newRegister("i1");
-
-        // check if the index is greater than or equal to zero
-        BuildTools.emit("\t" + zeroCheckRegister + " = icmp sge i32 " + indexResultRegister + ", 0");
-
-        // inbound check
-        String inboundCheckRegister = BuildTools.newRegister("i1");
+    public Value visit(ArrayLookup n, SemanticAnalysis argu) throws Exception {
 
-        // check if the index is less than the array size
-        BuildTools.emit(
-                "\t" + inboundCheckRegister + " = icmp slt i32 " + indexResultRegister + ", " + arraySizeRegister);
+        // accept the first primary expression which is the array, the index can collect before it is used
+        Value array = n.f0.accept(this, argu);
+        addTemporaryRoot(array);
 
-        // combine these two checks
-        String andRegister = BuildTools.newRegister("i1");
-        BuildTools.emit("\t" + andRegister + " = and i1 " + zeroCheckRegister + ", " + inboundCheckRegister);
+        // accept the second primary expression which is the index and check it
+        Value index = n.f2.accept(this, argu);
+        checkArrayIndex(array, index);
 
-        // labels for out of bounds check
-        String arrErrorLabel = BuildTools.newLabel("arrError", false);
-        String oobLabel = BuildTools.newLabel("oob", false);
-        String nszLabel = BuildTools.newLabel("nsz", false);
-        String oobLabelOk = BuildTools.newLabel("oobOk", true);
+        boolean booleanArray = argu.getExpressionType(n.f0) == TypeInformation.BOOLEAN_ARRAY;
 
-        // add branch instruction to ll file
-        BuildTools.emit("\tbr i1 " + andRegister + ", label %" + oobLabelOk + ", label %" + arrErrorLabel);
+        // load the value of the element of the array
+        Value result = tagAccess(builder.load(getArrayElementPointer(array, index, booleanArray)), booleanArray ? "boolean[]" : "int[]", booleanArray ? IRType.I8 : IRType.I32);
 
-        // add oob label
-        BuildTools.emit(arrErrorLabel + ":");
-
-        // add branch instruction to ll file, check if the size index is negative or
-        // greater than the length
-        BuildTools.emit("\tbr i1 " + inboundCheckRegister + ", label %" + nszLabel + ", label %" + oobLabel);
-
-        // add oob label
-        BuildTools.emit(oobLabel + ":");
-
-        // add error message
-        BuildTools.emit("\tcall void @throw_oob()");
-
-        // branch to oob ok label
-        BuildTools.emit("\tbr label %" + oobLabelOk);
-
-        // add nsz label
-        BuildTools.emit(nszLabel + ":");
-
-        // add error message
-        BuildTools.emit("\tcall void @throw_nsz()");
-
-        // branch to oob ok label
-        BuildTools.emit("\tbr label %" + oobLabelOk);
-
-        // add oob ok label to ll file
-        BuildTools.emit(oobLabelOk + ":");
-
-        // add one to the index register, create a new register to store the actual
-        // index
-        String indexRegister = BuildTools.newRegister("i32");
-        BuildTools.emit("\t" + indexRegister + " = add i32 " + indexResultRegister + ", 1");
-
-        // get the pointer to the index + 1 element of the array
-        // create a new register for the pointer
-        String pointerRegister = BuildTools.newRegister("i32*");
-
-        // calculate the pointer to the index + 1 element of the array
-        BuildTools.emit("\t" + pointerRegister + " = getelementptr i32, i32* " + arrayResultRegister + ", i32 "
-                + indexRegister);
-
-        // create result register
-        String resultRegister = BuildTools.newRegister("i32");
-
-        // load the value of the index + 1 element of the array into the result register
-        BuildTools.emit("\t" + resultRegister + " = load i32, i32* " + pointerRegister);
+        // booleans are stored in the arrays as i8, convert them back using trunc
+        if (booleanArray) {
+            result = builder.trunc(result, IRType.I1);
+        }
 
-        return resultRegister;
+        return result;
     }
 
     @Override
-    public String visit(ArrayLength n, SemanticAnalysis argu) throws Exception {
-
-        // accept the primary expression
-        String arrayRegister = n.f0.accept(this, argu);
+    public Value visit(ArrayLength n, SemanticAnalysis argu) throws Exception {
 
-        // create new register to store the length of the array
-        String arrayLengthRegister = BuildTools.newRegister("i32");
-
-        // load the length of the array into the register
-        BuildTools.emit("\t" + arrayLengthRegister + " = load i32, i32* " + arrayRegister);
-
-        return arrayLengthRegister;
+        // accept the primary expression and load the length stored at the first element
+        return loadArrayLength(n.f0.accept(this, argu));
     }
 
     @Override
-    public String visit(MessageSend n, SemanticAnalysis argu) throws Exception {
-
-        // get the result register of the primary expression
-        String primaryResultRegister = n.f0.accept(this, argu);
-
-        ClassInformation classInfo = null;
+    public Value visit(MessageSend n, SemanticAnalysis argu) throws Exception {
 
-        // getting the correct class if the primary expression is not this
-        if (!primaryResultRegister.equals("%this")) {
+        // get the result of the primary expression, the arguments can collect before the call
+        Value object = n.f0.accept(this, argu);
+        addTemporaryRoot(object);
 
-            // using the semantic analysis visitor for the primary expression
-            // since it's easier to get the type of the expression and the class that the information is
-            // since every method is visible to every class
-            CustomPair<ClassInformation, MethodInformation> pair = new CustomPair<>(currentClass, currentMethod);
-            String primaryExpressionType = argu.visit(n.f0, pair);
-
-            // get the class information of the method that we want to call
-            classInfo = SymbolTable.classesMap.get(primaryExpressionType);
-        }
+        // get the class of the object, the type of the primary expression was found by the semantic analysis
+        ClassInformation classInfo = ((ClassTypeInformation) argu.getExpressionType(n.f0)).getClassInformation();
 
         // get the name of the method to call
         String methodName = n.f2.f0.toString();
 
-        // create a new register to load the object from the primary expression
-        String objectRegister = BuildTools.newRegister("i8*");
-
-        // emit comment to ll file
-        BuildTools.emit("\t; " + (classInfo == null ? currentClass.getClassName() : classInfo.getClassName()) + ":" + n.f2.f0.toString());
+        // get the vtable slot of the method from the dispatch table of the class
+        DispatchEntry entry = buildTools.dispatchTableMap.get(classInfo).get(methodName);
 
-        // load the object
-        BuildTools.emit("\t" + objectRegister + " = bitcast i8* " + primaryResultRegister + " to i8***");
+        // the object is the first argument, the arguments of the expression list follow
+        List<Value> arguments = new ArrayList<>();
+        arguments.add(object);
 
-        // create a new register to store the vtable of the object
-        String vtableRegister = BuildTools.newRegister("i8**");
+        if (n.f4.present()) {
 
-        // load the vtable of the object into the register
-        BuildTools.emit("\t" + vtableRegister + " = load i8**, i8*** " + objectRegister);
+            ExpressionList expressionList = (ExpressionList) n.f4.node;
 
-        // create a new register to store the function pointer
-        String arrayFunctionRegister = BuildTools.newRegister("i8*");
+            arguments.add(expressionList.f0.accept(this, argu));
+            addTemporaryRoot(arguments.get(arguments.size() - 1));
 
-        // get the offset of the method in the vtable
-        List<CustomPair<MethodInformation, Integer>> methodOffsets = Offsets.classMethodOffsetMap
-                .get((classInfo == null ? currentClass : classInfo));
-
-        // get the offset of the method in the vtable
-        MethodInformation method = null;
-
-        for (CustomPair<MethodInformation, Integer> pair : methodOffsets) {
-            if (pair.firstObj.getMethodName().equals(methodName)) {
-                method = pair.firstObj;
-                break;
+            for (Node node : expressionList.f1.f0.nodes) {
+                arguments.add(((ExpressionTerm) node).f1.accept(this, argu));
+                addTemporaryRoot(arguments.get(arguments.size() - 1));
             }
         }
 
-        // if the method is null check for the method in the superclass
-        if (method == null) {
-
-            // get the superclass of the class that the method is in
-            ClassInformation superClass = SymbolTable.classInheritenceMap.get((classInfo == null ? currentClass : classInfo));
-
-            // get the method from the superclass
-            // iterate through all the super classes until found
-            // or until the super class is null
-            while (superClass != null) {
-
-                // get super class method offsets
-                List<CustomPair<MethodInformation, Integer>> superClassMethodOffsets = Offsets.classMethodOffsetMap.get(superClass);
-
-                // method found in the super class
-                // break out of the while loop
-                boolean doBreak = false;
-
-                // smae check as in line 1288 -> 1293
-                for (CustomPair<MethodInformation, Integer> pair : superClassMethodOffsets) {
+        // with the optimizations on, a method no class overrides is called directly
+        Function target = options.getOptimizationLevel() >= 1 ? getSingleTarget(classInfo, methodName) : null;
 
-                    if (pair.firstObj.getMethodName().equals(methodName)) {
+        if (target != null) {
 
-                        method = pair.firstObj;
+            Instruction call = builder.call(target, arguments.toArray(new Value[0]));
+            call.setComment(classInfo.getClassName() + ":" + methodName);
 
-                        // the new class info variable is the super class
-                        classInfo = superClass;
-
-                        // set the break flag to true
-                        doBreak = true;
-                        break;
-                    }
-                }
-
-                // if found break out of the while loop
-                if (doBreak) {
-                    break;
-                }
-
-                // continue to the next super class
-                superClass = SymbolTable.classInheritenceMap.get(superClass);
-            }
-
-            // check if we have this with an inherited method
-            if (primaryResultRegister.equals("%this")) {
-                
-            }
+            return call;
         }
 
-        CustomPair<ClassInformation, MethodInformation> pair = new CustomPair<>(
-                (classInfo == null ? currentClass : classInfo), method);
-
-        // load the function pointer from the vtable into the register
-        BuildTools.emit("\t" + arrayFunctionRegister + " = getelementptr i8*, i8** " + vtableRegister + ", i32 "
-                + (BuildTools.vtalbeMap.get(pair) / 8));
-
-        // create a new register to store the function pointer
-        String functionRegister = BuildTools.newRegister("i8*");
+        // the vtable pointer is at the start of the object
+        Instruction vtablePointer = builder.bitcast(object, IRType.I8_PTR_PTR.pointerTo());
+        vtablePointer.setComment(classInfo.getClassName() + ":" + methodName);
 
-        // load the function pointer into the register
-        BuildTools.emit("\t" + functionRegister + " = load i8*, i8** " + arrayFunctionRegister);
+        // load the vtable of the object
+        Value vtable = tagAccess(builder.load(vtablePointer), "vtable pointer", IRType.I8_PTR_PTR);
 
-        // create a new register to cast the function pointer to the correct signature
-        String functionPointerRegister = BuildTools
-                .newRegister(BuildTools.methodSignatureInVtableMap.get(pair).split(" ")[0]);
+        // load the function pointer from the slot of the method
+        Value function = tagAccess(builder.load(builder.getElementPointer(vtable, ConstantInt.i32(entry.getSlot()))), "vtable slot", IRType.I8_PTR);
 
         // cast the function pointer to the correct signature
-        BuildTools.emit("\t" + functionPointerRegister + " = bitcast i8* " + functionRegister + " to "
-                + BuildTools.methodSignatureInVtableMap.get(pair) + "*");
+        Value functionPointer = builder.bitcast(function, entry.getFunctionType().pointerTo());
 
-        // create a new register to store the result of the function call
-        String resultRegister = BuildTools.newRegister(BuildTools.methodSignatureInVtableMap.get(pair).split(" ")[0]);
-
-        // first accept the expression list and get the code for that
-        String expressionList = n.f4.accept(this, argu);
-
-        // emit call instuction to call the function
-        BuildTools.emit("\t" + resultRegister + " = call "
-                + BuildTools.registerMap.get(resultRegister).getRegisterType() + " " + functionPointerRegister + "(i8* "
-                + primaryResultRegister + (expressionList == null ? "" : ", " + expressionList) + ")");
-
-        // return the result register
-        return resultRegister;
+        // call the function, with the calling convention of the methods
+        Instruction call = builder.call(functionPointer, entry.getFunctionType(), arguments.toArray(new Value[0]));
+        call.setCallingConvention(entry.getFunction().getCallingConvention());
 
+        return call;
     }
 
     @Override
-    public String visit(ExpressionList n, SemanticAnalysis argu) throws Exception {
-
-        // custom pair of current class and current method
-        CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(currentClass, currentMethod);
-
-        // accept the expression and get the result register
-        String expressionResultRegister = n.f0.accept(this, argu);
-
-        // expression result type
-        String expressionResultType = "";
-
-        // check if expression result is a register to get the type
-        // check if it is a local variable or a method parameter to get the type
-        // if it is not a local variable or method parameter then check if it is a class
-        // field in order to load it from the object
-        // if it is not a class field check if it is a litteral to get the type
-        if (BuildTools.registerMap.containsKey(expressionResultRegister)) {
-            expressionResultType = BuildTools.registerMap.get(expressionResultRegister).getRegisterType();
-        } else if (isMethodVar(expressionResultRegister, classMethodPair)) {
-
-            // list of method variables to get the correct variable object
-            List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(classMethodPair);
-
-            // get the type of the method parameter
-            String variableType = "";
-
-            // loop through the method variables to get the correct variable object
-            for (VariableInformation variable : methodVars) {
-                if (variable.getVarName().equals(expressionResultRegister)) {
-
-                    // pair of classMethod and variable information object to get the type of the
-                    // variable
-                    CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> variablePair = new CustomPair<>(
-                            classMethodPair, variable);
-
-                    // get the type and break out of the loop
-                    variableType = SymbolTable.methodVariableTypeMap.get(variablePair);
-                    break;
-                }
-            }
-
-            // set the type of the expression result register to the variable type
-            expressionResultType = getLLVMSize(variableType);
-        } else if (isMethodParam(expressionResultRegister, classMethodPair)) {
-
-            // list of method variables to get the correct variable object
-            List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(classMethodPair);
-
-            // get the type of the method parameter
-            String parameterType = "";
-
-            // loop through the method variables to get the correct variable object
-            for (VariableInformation variable : methodParams) {
-                if (variable.getVarName().equals(expressionResultRegister)) {
-
-                    // pair of classMethod and variable information object to get the type of the
-                    // variable
-                    CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> variablePair = new CustomPair<>(
-                            classMethodPair, variable);
-
-                    // get the type and break out of the loop
-                    parameterType = SymbolTable.methodVariableTypeMap.get(variablePair);
-                    break;
-                }
-            }
-
-            // set the type of the expression result register to the variable type
-            expressionResultType = getLLVMSize(parameterType);
-        } else if (isClassField(expressionResultRegister)) {
-
-            // get the variable information object of the class field
-            VariableInformation variable = getIdentifier(expressionResultRegister, classMethodPair);
-
-            // custom pair of class information and variable information object to get the
-            // type of the variable
-            CustomPair<ClassInformation, VariableInformation> classFieldPair = new CustomPair<>(currentClass, variable);
-
-            // get the type of the class field
-            String classFieldType = SymbolTable.classFieldTypeMap.get(classFieldPair);
-            expressionResultType = getLLVMSize(classFieldType);
-
-            // create new register to load the value of the class field into
-            String classFieldPointerRegister = BuildTools.newRegister("i8*");
-
-            // get the offset and add 8 since we stored the vtable in the first 8 bytes of
-            // the object
-            int offset = 8;
-
-            // list of variable and offset pairs for the current class
-            List<CustomPair<VariableInformation, Integer>> classFields = Offsets.classFieldOffsetMap.get(currentClass);
-
-            // iterate through the class fields to get the correct offset
-            for (CustomPair<VariableInformation, Integer> field : classFields) {
-                if (field.firstObj.getVarName().equals(variable.getVarName())) {
-                    offset += field.secondObj;
-                    break;
-                }
-            }
-
-            // get the pointer to the class field using getelementptr
-            BuildTools.emit("\t" + classFieldPointerRegister + " = getelementptr i8, i8* " + expressionResultRegister
-                    + ", i32 " + offset);
-
-            // create a new register to bitcast the pointer to the correct type
-            String classFieldCastedRegister = BuildTools.newRegister(expressionResultType);
-
-            // bitcast the pointer to the correct type
-            BuildTools.emit("\t" + classFieldCastedRegister + " = bitcast i8* " + classFieldPointerRegister + " to "
-                    + expressionResultType + "*");
-
-            // create a new register to load the value of the class field into
-            String classFieldValueRegister = BuildTools.newRegister(expressionResultType);
-
-            // load the value of the class field into the register
-            BuildTools.emit("\t" + classFieldValueRegister + " = load " + expressionResultType + ", "
-                    + expressionResultType + "* " + classFieldCastedRegister);
-
-            // set the expression result register to the class field value register
-            expressionResultRegister = classFieldValueRegister;
-        }
-        else if (expressionResultRegister.equals("%this")) {
-            expressionResultType = "i8*";
-        }
-        else {
-            expressionResultType = (expressionResultRegister.equals("true") || expressionResultRegister.equals("false"))
-                    ? "i1"
-                    : "i32";
-        }
-
-        // get the tail of the expression list
-        String expressionTail = n.f1.accept(this, argu);
-
-        // return the result register and it's type and the expression tail string
-        return expressionResultType + " " + expressionResultRegister + expressionTail;
-
-    }
-
-    @Override
-    public String visit(ExpressionTail n, SemanticAnalysis argu) throws Exception {
-
-        // result string of the expression tail
-        String expressionTail = "";
-
-        // accept all the expression terms and get the resulting string
-        for (Node node : n.f0.nodes) {
-            expressionTail += node.accept(this, argu);
-        }
-
-        return expressionTail;
-    }
-
-    @Override
-    public String visit(ExpressionTerm n, SemanticAnalysis argu) throws Exception {
-        // custom pair of current class and current method
-        CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(currentClass, currentMethod);
-
-        // accept the expression and get the result register
-        String expressionResultRegister = n.f1.accept(this, argu);
-
-        // expression result type
-        String expressionResultType = "";
-
-        // check if expression result is a register to get the type
-        // check if it is a local variable or a method parameter to get the type
-        // if it is not a local variable or method parameter then check if it is a class
-        // field in order to load it from the object
-        // if it is not a class field check if it is a litteral to get the type
-        if (BuildTools.registerMap.containsKey(expressionResultRegister)) {
-            expressionResultType = BuildTools.registerMap.get(expressionResultRegister).getRegisterType();
-        } else if (isMethodVar(expressionResultRegister, classMethodPair)) {
-
-            // list of method variables to get the correct variable object
-            List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(classMethodPair);
-
-            // get the type of the method parameter
-            String variableType = "";
-
-            // loop through the method variables to get the correct variable object
-            for (VariableInformation variable : methodVars) {
-                if (variable.getVarName().equals(expressionResultRegister)) {
-
-                    // pair of classMethod and variable information object to get the type of the
-                    // variable
-                    CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> variablePair = new CustomPair<>(
-                            classMethodPair, variable);
-
-                    // get the type and break out of the loop
-                    variableType = SymbolTable.methodVariableTypeMap.get(variablePair);
-                    break;
-                }
-            }
-
-            // set the type of the expression result register to the variable type
-            expressionResultType = getLLVMSize(variableType);
-        } else if (isMethodParam(expressionResultRegister, classMethodPair)) {
-
-            // list of method variables to get the correct variable object
-            List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(classMethodPair);
-
-            // get the type of the method parameter
-            String parameterType = "";
-
-            // loop through the method variables to get the correct variable object
-            for (VariableInformation variable : methodParams) {
-                if (variable.getVarName().equals(expressionResultRegister)) {
-
-                    // pair of classMethod and variable information object to get the type of the
-                    // variable
-                    CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> variablePair = new CustomPair<>(
-                            classMethodPair, variable);
-
-                    // get the type and break out of the loop
-                    parameterType = SymbolTable.methodVariableTypeMap.get(variablePair);
-                    break;
-                }
-            }
-
-            // set the type of the expression result register to the variable type
-            expressionResultType = getLLVMSize(parameterType);
-        } else if (isClassField(expressionResultRegister)) {
-
-            // get the variable information object of the class field
-            VariableInformation variable = getIdentifier(expressionResultRegister, classMethodPair);
-
-            // custom pair of class information and variable information object to get the
-            // type of the variable
-            CustomPair<ClassInformation, VariableInformation> classFieldPair = new CustomPair<>(currentClass, variable);
-
-            // get the type of the class field
-            String classFieldType = SymbolTable.classFieldTypeMap.get(classFieldPair);
-            expressionResultType = getLLVMSize(classFieldType);
-
-            // create new register to load the value of the class field into
-            String classFieldPointerRegister = BuildTools.newRegister("i8*");
-
-            // get the offset and add 8 since we stored the vtable in the first 8 bytes of
-            // the object
-            int offset = 8;
-
-            // list of variable and offset pairs for the current class
-            List<CustomPair<VariableInformation, Integer>> classFields = Offsets.classFieldOffsetMap.get(currentClass);
-
-            // iterate through the class fields to get the correct offset
-            for (CustomPair<VariableInformation, Integer> field : classFields) {
-                if (field.firstObj.getVarName().equals(variable.getVarName())) {
-                    offset += field.secondObj;
-                    break;
-                }
-            }
-
-            // get the pointer to the class field using getelementptr
-            BuildTools.emit("\t" + classFieldPointerRegister + " = getelementptr i8, i8* " + expressionResultRegister
-                    + ", i32 " + offset);
-
-            // create a new register to bitcast the pointer to the correct type
-            String classFieldCastedRegister = BuildTools.newRegister(expressionResultType);
-
-            // bitcast the pointer to the correct type
-            BuildTools.emit("\t" + classFieldCastedRegister + " = bitcast i8* " + classFieldPointerRegister + " to "
-                    + expressionResultType + "*");
-
-            // create a new register to load the value of the class field into
-            String classFieldValueRegister = BuildTools.newRegister(expressionResultType);
-
-            // load the value of the class field into the register
-            BuildTools.emit("\t" + classFieldValueRegister + " = load " + expressionResultType + ", "
-                    + expressionResultType + "* " + classFieldCastedRegister);
-
-            // set the expression result register to the class field value register
-            expressionResultRegister = classFieldValueRegister;
-        }
-        else if (expressionResultRegister.equals("%this")) {
-            expressionResultType = "i8*";
-        }
-        else {
-            expressionResultType = (expressionResultRegister.equals("true") || expressionResultRegister.equals("false"))
-                    ? "i1"
-                    : "i32";
-        }
-
-        // return the result register and it's type and the expression tail string
-        return ", " + expressionResultType + " " + expressionResultRegister;
-    }
-
-    @Override
-    public String visit(Clause n, SemanticAnalysis argu) throws Exception {
+    public Value visit(Clause n, SemanticAnalysis argu) throws Exception {
         return n.f0.accept(this, argu);
     }
 
     @Override
-    public String visit(PrimaryExpression n, SemanticAnalysis argu) throws Exception {
+    public Value visit(PrimaryExpression n, SemanticAnalysis argu) throws Exception {
         return n.f0.accept(this, argu);
     }
 
     @Override
-    public String visit(IntegerLiteral n, SemanticAnalysis argu) throws Exception {
-        return n.f0.toString();
+    public Value visit(IntegerLiteral n, SemanticAnalysis argu) throws Exception {
+        return ConstantInt.i32(Long.parseLong(n.f0.toString()));
     }
 
     @Override
-    public String visit(TrueLiteral n, SemanticAnalysis argu) throws Exception {
-        return "true";
+    public Value visit(TrueLiteral n, SemanticAnalysis argu) throws Exception {
+        return ConstantInt.TRUE;
     }
 
     @Override
-    public String visit(FalseLiteral n, SemanticAnalysis argu) throws Exception {
-        return "false";
+    public Value visit(FalseLiteral n, SemanticAnalysis argu) throws Exception {
+        return ConstantInt.FALSE;
     }
 
     @Override
-    public String visit(Identifier n, SemanticAnalysis argu) throws Exception {
-
-        // get identifier name
-        String identifierName = n.f0.toString();
-
-        // create a custom pair of class method to get the identifier type
-        CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(currentClass, currentMethod);
-
-        // get identifier type
-        String identifierType = getIdentifierType(identifierName, classMethodPair);
-
-        // boolean to check if the identifier is an inherited class field
-        Boolean isInheritedField = false;
-        CustomPair<ClassInformation, VariableInformation> inheritedFieldPair = null;
-
-        // if the identifier type is null check if the identifier is a super class field
-        if (identifierType == null) {
-
-            // get super class of the current class
-            ClassInformation superClass = SymbolTable.classInheritenceMap.get(this.currentClass);
-
-            // if the super class is not null
-            if (superClass != null) {
-
-                // check every class in the inheritence tree
-                while (superClass != null) {
-
-                    // get the class fields
-                    List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(superClass);
-
-                    // if the class fields is not null
-                    if (classFields != null) {
-
-                        // check every class field
-                        for (VariableInformation var : classFields) {
-
-                            // if the class field name matches the identifier name
-                            if (var.getVarName().equals(identifierName)) {
-
-                                // custom pair of class info and var info to use as key for the map below
-                                inheritedFieldPair = new CustomPair<>(superClass, var);
-
-                                // set the identifier type to the class field type
-                                identifierType = SymbolTable.classFieldTypeMap.get(inheritedFieldPair);
-
-                                // set the isInheritedField to true
-                                isInheritedField = true;
-
-                                // break out of the loop
-                                break;
-                            }
-                        }
-                    }
-
-                    if (isInheritedField) {
-                        break;
-                    }
-
-                    // get the super class of the current class
-                    superClass = SymbolTable.classInheritenceMap.get(superClass);
-                }
-            }
-        }
-
-        // get the llvm size of the identifier type
-        String identifierSize = getLLVMSize(identifierType);
-
-        // result register
-        String resultRegister = "";
-
-        // check if the identifier is an inherited class field
-        if (isInheritedField) {
-
-            // call load field and set the result register to the register containing the value of the
-            // identifier
-            resultRegister = loadClassField(inheritedFieldPair.firstObj, identifierName, identifierSize);
-        }
-        else if (isMethodVar(identifierName, classMethodPair) || isMethodParam(identifierName, classMethodPair)) {
+    public Value visit(Identifier n, SemanticAnalysis argu) throws Exception {
 
-            // create a new register to load the value of the identifier
-            String identifierRegister = BuildTools.newRegister(identifierSize);
+        // get the declaration of the identifier found by the semantic analysis
+        VariableInformation identifier = argu.getDeclaration(n);
 
-            // load the value of the identifier into the register
-            BuildTools.emit("\t" + identifierRegister + " = load " + identifierSize + ", " + identifierSize + "* %"
-                    + identifierName);
+        // check if the identifier is a local variable or parameter, i.e. it has no owner class
+        if (identifier.getOwnerClass() == null) {
 
-            // set the result register to the register containing the value of the
-            // identifier
-            resultRegister = identifierRegister;
-        } else if (isClassField(identifierName)) {
-
-            // call load class field and set the result register to the register containing the value of the
-            // identifier
-            resultRegister = loadClassField(currentClass, identifierName, identifierSize);
+            // load the value of the identifier from its stack slot
+            return builder.load(localVariableMap.get(identifier));
         }
 
-        return resultRegister;
+        // load the field with its binding in the layout of the current class
+        return loadClassField(getFieldOffset(identifier.getVarName()));
     }
 
     @Override
-    public String visit(ThisExpression n, SemanticAnalysis argu) throws Exception {
-        return "%this";
+    public Value visit(ThisExpression n, SemanticAnalysis argu) throws Exception {
+
+        // the object the method was called on is the first argument
+        return builder.getFunction().getArgument(0);
     }
 
     @Override
-    public String visit(ArrayAllocationExpression n, SemanticAnalysis argu) throws Exception {
+    public Value visit(ArrayAllocationExpression n, SemanticAnalysis argu) throws Exception {
         return n.f0.accept(this, argu);
     }
 
     @Override
-    public String visit(BooleanArrayAllocationExpression n, SemanticAnalysis argu) throws Exception {
-
-        // create a new register to get the result of the expression
-        String expressionResultRegister = n.f3.accept(this, argu);
-
-        // add one to the expression result register, since we want to store the size of
-        // the array at the first index
-        // create a new register to get the result of the addition
-        String additionResultRegister = BuildTools.newRegister("i32");
+    public Value visit(BooleanArrayAllocationExpression n, SemanticAnalysis argu) throws Exception {
 
-        BuildTools.emit("\t" + additionResultRegister + " = add i32 " + expressionResultRegister + ", 1");
-
-        // create a register for icmp result
-        String icmpResultRegister = BuildTools.newRegister("i1");
-
-        // check if the expression is an integer higher than 0
-        BuildTools.emit("\t" + icmpResultRegister + " = icmp sgt i32 " + additionResultRegister + ", 1");
-
-        // create labels
-        String arrayAllocationNegative = BuildTools.newLabel("arr_neg_sz", false);
-        String arrayAllocationOk = BuildTools.newLabel("arr_ok_sz", true);
-
-        // add branch instruction to ll file
-        BuildTools.emit("\tbr i1 " + icmpResultRegister + ", label %" + arrayAllocationOk + ", label %"
-                + arrayAllocationNegative);
-
-        // add the labels to the ll file
-        BuildTools.emit(arrayAllocationNegative + ":");
-
-        // throw negative size exception
-        BuildTools.emit("\tcall void @throw_nsz()");
-
-        // br to ok label
-        BuildTools.emit("\tbr label %" + arrayAllocationOk);
-
-        // add ok label to ll file
-        BuildTools.emit(arrayAllocationOk + ":");
-
-        // allocate the array
-        String arrayRegister = BuildTools.newRegister("i8*");
-
-        BuildTools.emit("\t" + arrayRegister + " = call i8* @calloc(i32 " + additionResultRegister + ", i32 4)");
-
-        // cast the returned pointer of the calloc call to i32*
-        String arrayRegister32 = BuildTools.newRegister("i32*");
-
-        BuildTools.emit("\t" + arrayRegister32 + " = bitcast i8* " + arrayRegister + " to i32*");
-
-        // store the size of the array at the first index
-        BuildTools.emit("\tstore i32 " + expressionResultRegister + ", i32* " + arrayRegister32);
-
-        return arrayRegister32;
+        // allocate an array of the size of the expression
+        return allocateArray(n.f3.accept(this, argu), true);
     }
 
     @Override
-    public String visit(IntegerArrayAllocationExpression n, SemanticAnalysis argu) throws Exception {
-
-        // create a new register to get the result of the expression
-        String expressionResultRegister = n.f3.accept(this, argu);
-
-        // add one to the expression result register, since we want to store the size of
-        // the array at the first index
-        // create a new register to get the result of the addition
-        String additionResultRegister = BuildTools.newRegister("i32");
-
-        BuildTools.emit("\t" + additionResultRegister + " = add i32 " + expressionResultRegister + ", 1");
-
-        // create a register for icmp result
-        String icmpResultRegister = BuildTools.newRegister("i1");
-
-        // check if the expression is an integer higher than 0
-        BuildTools.emit("\t" + icmpResultRegister + " = icmp sgt i32 " + additionResultRegister + ", 1");
-
-        // create labels
-        String arrayAllocationNegative = BuildTools.newLabel("arr_neg_sz", false);
-        String arrayAllocationOk = BuildTools.newLabel("arr_ok_sz", true);
-
-        // add branch instruction to ll file
-        BuildTools.emit("\tbr i1 " + icmpResultRegister + ", label %" + arrayAllocationOk + ", label %"
-                + arrayAllocationNegative);
+    public Value visit(IntegerArrayAllocationExpression n, SemanticAnalysis argu) throws Exception {
 
-        // add the labels to the ll file
-        BuildTools.emit(arrayAllocationNegative + ":");
-
-        // throw negative size exception
-        BuildTools.emit("\tcall void @throw_nsz()");
-
-        // br to ok label
-        BuildTools.emit("\tbr label %" + arrayAllocationOk);
-
-        // add ok label to ll file
-        BuildTools.emit(arrayAllocationOk + ":");
-
-        // allocate the array
-        String arrayRegister = BuildTools.newRegister("i8*");
-
-        BuildTools.emit("\t" + arrayRegister + " = call i8* @calloc(i32 " + additionResultRegister + ", i32 4)");
-
-        // cast the returned pointer of the calloc call to i32*
-        String arrayRegister32 = BuildTools.newRegister("i32*");
-
-        BuildTools.emit("\t" + arrayRegister32 + " = bitcast i8* " + arrayRegister + " to i32*");
-
-        // store the size of the array at the first index
-        BuildTools.emit("\tstore i32 " + expressionResultRegister + ", i32* " + arrayRegister32);
-
-        return arrayRegister32;
+        // allocate an array of the size of the expression
+        return allocateArray(n.f3.accept(this, argu), false);
     }
 
     @Override
-    public String visit(AllocationExpression n, SemanticAnalysis argu) throws Exception {
-
-        // get the class name
-        String className = n.f1.f0.toString();
+    public Value visit(AllocationExpression n, SemanticAnalysis argu) throws Exception {
 
         // get the class information object
-        ClassInformation classInfo = SymbolTable.classesMap.get(className);
-
-        // get the size of the object and add 8 cause we need a pointer to the vtable
-        int objectSize = Offsets.classLastOffestsMap.get(classInfo).firstObj + 8;
+        ClassInformation classInfo = symbolTable.classesMap.get(n.f1.f0.toString());
 
-        // get vtable type
-        String vtableType = BuildTools.classVtableType.get(classInfo);
+        // get the size of the object, the size of the struct of the class with the vtable pointer and the padding
+        int objectSize = offsets.classObjectSizeMap.get(classInfo);
 
-        // create a new register to get the result of the allocation
-        String objectRegister = BuildTools.newRegister("i8*");
-
-        // allocate the object, using calloc
+        // allocate the object, using calloc, the arena or the collector
         // one object of object size
-        BuildTools.emit("\t" + objectRegister + " = call i8* @calloc(i32 1, i32 " + objectSize + ")");
+        Value object = allocate(ConstantInt.i32(1), ConstantInt.i32(objectSize), classInfo);
 
         // bitcast i8* to i8*** to store the vtable pointer
-        String bitcastedRegister = BuildTools.newRegister("i8***");
-
-        // emit bitcast instruction to ll file
-        BuildTools.emit("\t" + bitcastedRegister + " = bitcast i8* " + objectRegister + " to i8***");
+        Value vtablePointer = builder.bitcast(object, IRType.I8_PTR_PTR.pointerTo());
 
         // get the address of the first element of the vtable of the class
-        String vtableAddressRegister = BuildTools.newRegister("i8**");
+        Value vtable = builder.getElementPointer(buildTools.vtableMap.get(classInfo), ConstantInt.i32(0), ConstantInt.i32(0));
 
-        // emit getelementptr instruction to ll file
-        BuildTools.emit("\t" + vtableAddressRegister + " = getelementptr " + vtableType + ", " + vtableType + "* @."
-                + className + "_vtable, i32 0, i32 0");
+        // store the vtable address at the start of the object
+        tagAccess(builder.store(vtable, vtablePointer), "vtable pointer", IRType.I8_PTR_PTR);
 
-        // emit store instruction of the vtable address in the bitcasted register
-        BuildTools.emit("\tstore i8** " + vtableAddressRegister + ", i8*** " + bitcastedRegister);
-
-        // return the object register
-        return objectRegister;
+        // return the object
+        return object;
     }
 
     @Override
-    public String visit(NotExpression n, SemanticAnalysis argu) throws Exception {
-
-        // accept the clause and negate the result
-        String clauseResultRegister = n.f1.accept(this, argu);
-
-        // check if the expression result is in a register or not
-        if (BuildTools.registerMap.containsKey(clauseResultRegister)) {
-
-            // if it is, check the type of the expression result
-            // if it is i32 then we need to convert it to i1 using trunc
-            if (BuildTools.registerMap.get(clauseResultRegister).getRegisterType().equals("i32")) {
-
-                // create a new register to store the zext result
-                String truncRegister = BuildTools.newRegister("i1");
+    public Value visit(NotExpression n, SemanticAnalysis argu) throws Exception {
 
-                // emit the trunc instruction
-                BuildTools.emit("\t" + truncRegister + " = trunc i32 " + clauseResultRegister + " to i1");
-
-                // make expression result register the zext register
-                clauseResultRegister = truncRegister;
-            }
-        }
-
-        // negate the result of the clause using xor
-        // get the register for the result of the clause
-        String notExpressionResultRegister = BuildTools.newRegister("i1");
-
-        // emit the xor instruction
-        BuildTools.emit("\t" + notExpressionResultRegister + " = xor i1 " + clauseResultRegister + ", 1");
-
-        // return the register for the result of the not expression
-        return notExpressionResultRegister;
+        // accept the clause and negate the result using xor
+        return builder.xor(n.f1.accept(this, argu), ConstantInt.TRUE);
     }
 
     @Override
-    public String visit(BracketExpression n, SemanticAnalysis argu) throws Exception {
-
-        // accept the expression and get the result register
-        String expressionResultRegister = n.f1.accept(this, argu);
+    public Value visit(BracketExpression n, SemanticAnalysis argu) throws Exception {
 
-        return expressionResultRegister;
+        // accept the expression and get the result
+        return n.f1.accept(this, argu);
     }
 }
@@ -4,80 +4,99 @@ package irgeneration;
 import visitor.*;
 import syntaxtree.*;
 import symboltable.*;
+import compilationcontext.CompilationContext;
+import compilationcontext.CompilerOptions;
+import offsets.Offsets;
+import ir.*;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
 public class VTableBuilder extends GJDepthFirst<String, String> {
 
-    public String addMethodToVTable(ClassInformation classInfo, MethodInformation methodInfo, String vtableString) {
-
-        // get the type of the method
-        CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(classInfo, methodInfo);
-        String methodType = SymbolTable.classMethodTypeMap.get(classMethodPair);
-        String methodSignature = "";
-
-        switch (methodType) {
-            case "int":
-                vtableString += "i8* bitcast (i32 (i8*";
-                methodSignature += "i32 (i8*";
-                break;
-            case "boolean":
-                vtableString += "i8* bitcast (i1 (i8*";
-                methodSignature += "i1 (i8*";
-                break;
-            case "int[]":
-                vtableString += "i8* bitcast (i32* (i8*";
-                methodSignature += "i32* (i8*";
-                break;
-            case "boolean[]":
-                vtableString += "i8* bitcast (i32* (i8*";
-                methodSignature += "i32* (i8*";
-                break;
-            default:
-                vtableString += "i8* bitcast (i8* (i8*";
-                methodSignature += "i8* (i8*";
-                break;
+    // the symbol table, the offsets, the build tools and the options of the file being compiled
+    SymbolTable symbolTable;
+    Offsets offsets;
+    BuildTools buildTools;
+    CompilerOptions options;
+
+    public VTableBuilder(CompilationContext context) {
+        this.symbolTable = context.getSymbolTable();
+        this.offsets = context.getOffsets();
+        this.buildTools = context.getBuildTools();
+        this.options = context.getOptions();
+    }
+
+    public DispatchEntry buildDispatchEntry(ClassInformation classInfo, MethodInformation methodInfo, int slot) {
+
+        // every method takes the object as the first argument
+        List<IRType> parameterTypes = new ArrayList<>();
+        List<String> parameterNames = new ArrayList<>();
+
+        parameterTypes.add(IRType.I8_PTR);
+        parameterNames.add("this");
+
+        // the parameters are named with a dot, the name without it is the stack slot of the parameter
+        for (VariableInformation parameter : methodInfo.getParameters().values()) {
+            parameterTypes.add(parameter.getVarType().getLLVMType());
+            parameterNames.add("." + parameter.getVarName());
+        }
+
+        // the function of the method, the body is generated later
+        IRType functionType = IRType.function(methodInfo.getReturnType().getLLVMType(), parameterTypes, false);
+        Function function = new Function(classInfo.getClassName() + "." + methodInfo.getMethodName(), functionType, parameterNames);
+
+        // the methods are only called by the module, through the vtables or directly, so they can use the fast calling convention
+        // the object is never null and its fields can be read without a check
+        if (options.getEmitAttributes()) {
+            function.setLinkage("internal");
+            function.setCallingConvention("fastcc");
+            function.getArgument(0).getAttributes().add("nonnull");
+            function.getArgument(0).getAttributes().add("dereferenceable(" + offsets.classObjectSizeMap.get(classInfo) + ")");
         }
 
-        // get method parameter types
-        List<VariableInformation> methodParameters = SymbolTable.methodParametersMap.get(classMethodPair);
-
-        if (methodParameters != null) {
-            for (VariableInformation parameter : methodParameters) {
-
-                CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> parameterTypeKey = new CustomPair<>(classMethodPair, parameter);
-
-                String parameterType = SymbolTable.methodParameterTypeMap.get(parameterTypeKey);
-
-                switch (parameterType) {
-                    case "int":
-                        vtableString += ", i32";
-                        methodSignature += ", i32";
-                        break;
-                    case "boolean":
-                        vtableString += ", i1";
-                        methodSignature += ", i1";
-                        break;
-                    case "int[]":
-                    case "boolean[]":
-                        vtableString += ", i32*";
-                        methodSignature += ", i32*";
-                        break;
-                    default:
-                        vtableString += ", i8*";
-                        methodSignature += ", i8*";
-                        break;
-                }
-            }
+        buildTools.module.addFunction(function);
+
+        return new DispatchEntry(classInfo, methodInfo, slot, function);
+    }
+
+    public void buildVTable(ClassInformation classInfo) {
+
+        // the dispatch table of the class, method name to vtable slot
+        // kept in slot order so it can be emitted as is
+        Map<String, DispatchEntry> dispatchTable = new LinkedHashMap<>();
+
+        // the class inherits the slots of its super class, the super class is always declared first
+        // so its dispatch table is already built
+        if (classInfo.getSuperClass() != null) {
+            dispatchTable.putAll(buildTools.dispatchTableMap.get(classInfo.getSuperClass()));
+        }
+
+        // an overriding method takes the slot of the method it overrides
+        // a new method gets the next slot
+        for (MethodInformation method : classInfo.getMethods().values()) {
+
+            DispatchEntry inherited = dispatchTable.get(method.getMethodName());
+            int slot = (inherited != null) ? inherited.getSlot() : dispatchTable.size();
+
+            dispatchTable.put(method.getMethodName(), buildDispatchEntry(classInfo, method, slot));
         }
 
-        vtableString += ")* @" + classInfo.getClassName() + "." + methodInfo.getMethodName() + " to i8*)";
-        methodSignature += ")";
+        buildTools.dispatchTableMap.put(classInfo, dispatchTable);
 
-        // add method signature to the map
-        BuildTools.methodSignatureInVtableMap.put(classMethodPair, methodSignature);
+        // build the v-table for the class, one function pointer for every slot
+        List<Value> functionPointers = new ArrayList<>();
 
-        return vtableString;
+        for (DispatchEntry entry : dispatchTable.values()) {
+            functionPointers.add(new ConstantCast(entry.getFunction(), IRType.I8_PTR));
+        }
+
+        // add the v-table to the module and keep it for the allocations of the class
+        GlobalVariable vtable = new GlobalVariable("." + classInfo.getClassName() + "_vtable", new ConstantArray(IRType.I8_PTR, functionPointers), false);
+
+        buildTools.vtableMap.put(classInfo, buildTools.module.addGlobal(vtable));
     }
 
     /**
@@ -95,8 +114,8 @@ public class VTableBuilder extends GJDepthFirst<String, String> {
             node.accept(this, argu);
         }
 
-        // make all the trivial emits after the vtable declarations
-        BuildTools.makeAllTrivialEmits();
+        // add the runtime functions after the vtables
+        buildTools.addRuntime();
 
         return null;
     }
@@ -127,11 +146,13 @@ public class VTableBuilder extends GJDepthFirst<String, String> {
         // build the v-table for the main class first
         String mainClassName = n.f1.f0.toString();
 
-        // build the string to put in the .ll file
-        String vtableString = "@." + mainClassName + "_vtable = global [0 x i8*] []";
+        // the main class has no methods, its v-table is empty
+        GlobalVariable vtable = new GlobalVariable("." + mainClassName + "_vtable", new ConstantArray(IRType.I8_PTR, new ArrayList<>()), false);
+
+        buildTools.vtableMap.put(symbolTable.classesMap.get(mainClassName), buildTools.module.addGlobal(vtable));
 
-        // emit the vtable string to the .ll file
-        BuildTools.emit(vtableString);
+        // the main method is the main function of the program, added first so it is printed before the methods
+        buildTools.module.addFunction(new Function("main", IRType.function(IRType.I32, new ArrayList<>(), false), new ArrayList<>()));
 
         return null;
     }
@@ -146,49 +167,8 @@ public class VTableBuilder extends GJDepthFirst<String, String> {
     */
     public String visit(ClassDeclaration n, String argu) throws Exception {
 
-        // get class name
-        String className = n.f1.f0.toString();
-
-        // Class info object to store the class info
-        ClassInformation classInfo = SymbolTable.classesMap.get(className);
-
-        // get the method list
-        List<MethodInformation> methodList = SymbolTable.classMethodsMap.get(classInfo);
-
-        // build the type of the vtable string and store it in the vtable type map
-        int vtableSize = (methodList != null) ? methodList.size() : 0;
-        String vtableTypeString = "[" + vtableSize + " x i8*]";
-        BuildTools.classVtableType.put(classInfo, vtableTypeString);
-
-        // build the v-table for the class, get the lentgh of the v-table from the methods list in the symbol table
-        String vtableString = "@." + className + "_vtable = global " + vtableTypeString +" [";
-
-        // build the v-table for the class with the method
-        if (methodList != null) {
-
-            for (int i = 0; i < methodList.size(); i++) {
-                MethodInformation method = methodList.get(i);
-                vtableString = addMethodToVTable(classInfo, method, vtableString);
-                if (i != methodList.size() - 1) {
-                    vtableString += ", ";
-                }
-
-                // key for vtable map
-                CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(classInfo, method);
-
-                // add the vtable entry to the map
-                // this means that the vtable entry is the address of the method in the vtable
-                // i * 8 is the offset of the method in the vtable, i.e. if we have 3 methods, the first method is at offset 0, the second at offset 8, and the third at offset 16
-                // 8 is the size of the function pointer, i is the method counter
-                BuildTools.vtalbeMap.put(classMethodPair, i * 8);
-            }
-        }
-
-        // close the v-table string
-        vtableString += "]";
-
-        // emit the v-table string to the .ll file
-        BuildTools.emit(vtableString);
+        // build the v-table of the class
+        buildVTable(symbolTable.classesMap.get(n.f1.f0.toString()));
 
         return null;
     }
@@ -205,111 +185,8 @@ public class VTableBuilder extends GJDepthFirst<String, String> {
     */
     public String visit(ClassExtendsDeclaration n, String argu) throws Exception {
 
-        // get class name
-        String className = n.f1.f0.toString();
-
-        // Class info object to store the class info
-        ClassInformation classInfo = SymbolTable.classesMap.get(className);
-
-        // get the method list
-        List<MethodInformation> methodList = SymbolTable.classMethodsMap.get(classInfo);
-
-        // list to store list of class and methods of super classes inherited by this class
-        List<CustomPair<ClassInformation, List<MethodInformation>>> inheritedClassMethods = new ArrayList<>();
-
-        // get the super class
-        ClassInformation superClass = SymbolTable.classInheritenceMap.get(classInfo);
-
-        // while the super class is not null, i.e. there are classes above this class in the inheritance tree
-        while (superClass != null) {
-
-            // get the method list of the super class
-            List<MethodInformation> superClassMethodList = SymbolTable.classMethodsMap.get(superClass);
-
-            // add the super class and method list to the list of inherited classes and methods
-            inheritedClassMethods.add(new CustomPair<>(superClass, new ArrayList<>(superClassMethodList)));
-
-            // get the super class of the super class
-            superClass = SymbolTable.classInheritenceMap.get(superClass);
-        }
-
-        String vtableStringTail = "";
-        int vtableLength = 0;
-
-        // build the v-table for the class, first are the objects methods, next the inherited ones
-        // also delete any overridden methods from the inherited methods list
-        if (methodList != null) {
-
-            for (int i = 0; i < methodList.size(); i++) {
-
-                MethodInformation method = methodList.get(i);
-
-                // check if the method is overridden and remove it from the super class/classes method list
-                for (CustomPair<ClassInformation, List<MethodInformation>> classMethodList : inheritedClassMethods) {
-
-                    if (classMethodList.secondObj.contains(method)) {
-                        classMethodList.secondObj.remove(method);
-                        break;
-                    }
-                }
-
-                // add the method to the v-table string in order to emit it later
-                vtableStringTail = addMethodToVTable(classInfo, method, vtableStringTail);
-                if (i != methodList.size() - 1) {
-                    vtableStringTail += ", ";
-                }
-
-                // key for vtable map
-                CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(classInfo, method);
-
-                // add the vtable entry to the map
-                // this means that the vtable entry is the address of the method in the vtable
-                // i * 8 is the offset of the method in the vtable, i.e. if we have 3 methods, the first method is at offset 0, the second at offset 8, and the third at offset 16
-                // 8 is the size of the function pointer, i is the method counter
-                BuildTools.vtalbeMap.put(classMethodPair, i * 8);
-            }
-
-            vtableLength = methodList.size();
-        }
-
-        // do the same for every super class
-        for (CustomPair<ClassInformation, List<MethodInformation>> classMethodList : inheritedClassMethods) {
-
-            if (classMethodList.secondObj.size() > 0) {
-
-                if (methodList != null) vtableStringTail += ", ";
-
-                for (int i = 0; i < classMethodList.secondObj.size(); i++) {
-
-                    MethodInformation method = classMethodList.secondObj.get(i);
-                    vtableStringTail = addMethodToVTable(classMethodList.firstObj, method, vtableStringTail);
-                    if (i != classMethodList.secondObj.size() - 1) {
-                        vtableStringTail += ", ";
-                    }
-
-                    // key for vtable map
-                    CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(classMethodList.firstObj, method);
-
-                    // add the vtable entry to the map
-                    // this means that the vtable entry is the address of the method in the vtable
-                    // i * 8 is the offset of the method in the vtable, i.e. if we have 3 methods, the first method is at offset 0, the second at offset 8, and the third at offset 16
-                    // 8 is the size of the function pointer, i is the method counter
-                    BuildTools.vtalbeMap.put(classMethodPair, (i + (methodList != null ? methodList.size() : 0)) * 8);
-                }
-            }
-
-            vtableLength += classMethodList.secondObj.size();
-        }
-
-        vtableStringTail += "]";
-
-        // build the v-table for the class, get the lentgh of the v-table from the methods list in the symbol table
-        String vtableStringHead = "@." + className + "_vtable = global [" + vtableLength + " x i8*] [";
-
-        // add the type of the vtable to the vtable type map
-        BuildTools.classVtableType.put(classInfo, "[" + vtableLength + " x i8*]");
-
-        BuildTools.emit(vtableStringHead + vtableStringTail);
+        // build the v-table of the class, the inherited slots come first
+        buildVTable(symbolTable.classesMap.get(n.f1.f0.toString()));
 
         return null;
     }
@@ -0,0 +1,43 @@
+package offsets;
+
+import ir.IRType;
+import symboltable.ClassInformation;
+import symboltable.VariableInformation;
+
+// where a field lives inside an object and how it is loaded
+public class FieldOffset {
+
+    // the class that declares the field
+    ClassInformation declaringClass;
+
+    // the field
+    VariableInformation field;
+
+    // byte offset of the field from the start of the object, the vtable pointer included
+    int objectOffset;
+
+    // index of the field in the struct of the class, the vtable pointer is element 0
+    int structIndex;
+
+    // llvm type of the field, i.e. i32
+    IRType llvmType;
+
+    public FieldOffset(ClassInformation declaringClass, VariableInformation field, int objectOffset, int structIndex, IRType llvmType) {
+        this.declaringClass = declaringClass;
+        this.field = field;
+        this.objectOffset = objectOffset;
+        this.structIndex = structIndex;
+        this.llvmType = llvmType;
+    }
+
+    public ClassInformation getDeclaringClass() { return this.declaringClass; }
+    public VariableInformation getField() { return this.field; }
+    public int getObjectOffset() { return this.objectOffset; }
+    public int getStructIndex() { return this.structIndex; }
+    public IRType getLLVMType() { return this.llvmType; }
+
+    @Override
+    public String toString() {
+        return this.field.getVarName() + " : " + this.objectOffset;
+    }
+}
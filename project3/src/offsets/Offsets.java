@@ -2,46 +2,98 @@ package offsets;
 
 // custom packages
 import symboltable.*;
+import ir.IRType;
 
 // java libraries
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 
 public class Offsets {
 
+    // the symbol table of the compilation these offsets are computed for
+    SymbolTable symbolTable;
+
     /**
      * Class to field offset map
      * Usage : pair of class information and variable information to offset
      */
-    public static Map<ClassInformation, List<CustomPair<VariableInformation, Integer>>> classFieldOffsetMap = new LinkedHashMap<>();
+    public Map<ClassInformation, List<CustomPair<VariableInformation, Integer>>> classFieldOffsetMap = new LinkedHashMap<>();
+
+    /**
+     * Class to flattened field layout map
+     * Usage : class information to map of field name to field offset, the inherited fields included.
+     * A field declared in a derived class hides the inherited fields with the same name.
+     */
+    public Map<ClassInformation, Map<String, FieldOffset>> classFieldLayoutMap = new LinkedHashMap<>();
+
+    /**
+     * Class to struct type map
+     * Usage : class information to the named llvm struct of its objects, i.e. %class.A = type { i8**, i32, i1 }
+     * The vtable pointer comes first, then the fields of the super classes and then the fields of the class,
+     * the fields of the class ordered by decreasing alignment so the struct needs as little padding as possible.
+     */
+    public Map<ClassInformation, IRType> classStructTypeMap = new LinkedHashMap<>();
+
+    /**
+     * Class to struct fields map
+     * Usage : class information to list of field offsets, every field of the struct in struct order, hidden fields included.
+     */
+    public Map<ClassInformation, List<FieldOffset>> classStructFieldsMap = new LinkedHashMap<>();
+
+    /**
+     * Class to object size map
+     * Usage : class information to the size in bytes of its objects, the size of its struct.
+     */
+    public Map<ClassInformation, Integer> classObjectSizeMap = new LinkedHashMap<>();
 
     /**
      * Class to field offset map
      * Usage : pair of class information and variable information to offset
      */
-    public static Map<ClassInformation, List<CustomPair<MethodInformation, Integer>>> classMethodOffsetMap = new LinkedHashMap<>();
+    public Map<ClassInformation, List<CustomPair<MethodInformation, Integer>>> classMethodOffsetMap = new LinkedHashMap<>();
 
     /**
      * Class to last offsets map
      * Usage : class information to pair of integers, first is the field offset second the method offset.
      */
-    public static Map<ClassInformation, CustomPair<Integer, Integer>> classLastOffestsMap = new LinkedHashMap<>();
+    public Map<ClassInformation, CustomPair<Integer, Integer>> classLastOffestsMap = new LinkedHashMap<>();
 
     /**
      * Class to overidden methods offsets map
      * Usage : class information to list of pair of overidden method and integer, the offset.
      */
-    public static Map<ClassInformation, List<CustomPair<MethodInformation, Integer>>> classOverriddenMethodOffsetsMap = new LinkedHashMap<>();
+    public Map<ClassInformation, List<CustomPair<MethodInformation, Integer>>> classOverriddenMethodOffsetsMap = new LinkedHashMap<>();
+
+    public Offsets(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
 
-    public static void computeOffests() {
+    // the layout of the fields of a class, the inherited fields included
+    // null for the main class
+    public Map<String, FieldOffset> getFieldLayout(ClassInformation classInformation) {
+        return classFieldLayoutMap.get(classInformation);
+    }
+
+    // the struct of the objects of a class
+    public IRType getStructType(ClassInformation classInformation) {
+        return classStructTypeMap.get(classInformation);
+    }
+
+    // the first offset after the given one the type can be placed at, basic types are aligned to their size
+    static int align(int offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    public void computeOffests() {
 
         // loop counter
         int i = 0;
 
         // iterate though all the classes
-        for (ClassInformation classInformation : SymbolTable.classesMap.values()) {
+        for (ClassInformation classInformation : symbolTable.classesMap.values()) {
 
             // if the counter is 0, then we are in the first class, the main class, we dont want to print something for it
             if (i++ == 0) continue;
@@ -50,7 +102,7 @@ public class Offsets {
             int methodStartingOffset = 0;
 
             // super class if exists
-            ClassInformation superClass = SymbolTable.classInheritenceMap.get(classInformation);
+            ClassInformation superClass = classInformation.getSuperClass();
 
             if (superClass != null) {
 
@@ -60,16 +112,39 @@ public class Offsets {
             }
 
             // get the list of the methods for the class
-            List<MethodInformation> methods = SymbolTable.classMethodsMap.get(classInformation);
+            Collection<MethodInformation> methods = classInformation.getMethods().values();
 
             // get the list of the fields for the class
-            List<VariableInformation> fields = SymbolTable.classFieldsMap.get(classInformation);
+            Collection<VariableInformation> fields = classInformation.getFields().values();
 
             // list to store the pairs of fields and offsets
             List<CustomPair<VariableInformation, Integer>> fieldOffsets = null;
 
+            // the flattened layout starts with the layout of the super class
+            Map<String, FieldOffset> fieldLayout = (superClass != null) ? new LinkedHashMap<>(classFieldLayoutMap.get(superClass)) : new LinkedHashMap<>();
+
+            // the struct starts with the elements of the struct of the super class, or with the vtable pointer
+            List<IRType> elementTypes = new ArrayList<>();
+            List<FieldOffset> structFields = new ArrayList<>();
+
+            if (superClass != null) {
+                elementTypes.addAll(classStructTypeMap.get(superClass).getElementTypes());
+                structFields.addAll(classStructFieldsMap.get(superClass));
+            }
+            else {
+                elementTypes.add(IRType.I8_PTR_PTR);
+            }
+
+            // the end of the last element of the struct, the vtable pointer is 8 bytes long
+            int structEnd = 8;
+
+            if (!structFields.isEmpty()) {
+                FieldOffset lastField = structFields.get(structFields.size() - 1);
+                structEnd = lastField.getObjectOffset() + lastField.getField().getVarType().getSize();
+            }
+
             // if the class has fields
-            if (fields != null) {
+            if (!fields.isEmpty()) {
 
                 // initialize the list
                 fieldOffsets = new ArrayList<>();
@@ -80,45 +155,53 @@ public class Offsets {
                     // add offset of the field to the list and then update the starting offset
                     fieldOffsets.add(new CustomPair<>(field, fieldStartingOffset));
 
-                    // get the type of the field
-                    String fieldType = SymbolTable.classFieldTypeMap.get(new CustomPair<>(classInformation, field));
+                    // the next field starts after this one
+                    // boolean is 1 byte, int is 4 bytes, arrays and objects are pointers of 8 bytes
+                    fieldStartingOffset += field.getVarType().getSize();
+                }
 
-                    // switch case on the type
-                    switch (fieldType) {
+                // the fields of the class in struct order, the sort is stable so equal fields keep the declaration order
+                List<VariableInformation> structOrder = new ArrayList<>(fields);
+                structOrder.sort((first, second) -> second.getVarType().getSize() - first.getVarType().getSize());
 
-                        // the type is boolean
-                        // size of boolean is 1 bytes
-                        case "boolean":
-                            fieldStartingOffset++;
-                            break;
+                for (VariableInformation field : structOrder) {
 
-                        // the type is int
-                        // size of int is 4 bytes
-                        case "int":
-                            fieldStartingOffset += 4;
-                            break;
+                    // get the type of the field
+                    TypeInformation fieldType = field.getVarType();
 
-                        // the type is array of ints or booleans
-                        // size of array is 8 bytes
-                        case "int[]":
-                        case "boolean[]":
-                            fieldStartingOffset += 8;
-                            break;
-                    }
+                    // place the field at the next offset aligned to its size
+                    int objectOffset = align(structEnd, fieldType.getSize());
 
-                    // if the field type is inside this map in the symbol table then it is a class object so it is a pointer
-                    if (SymbolTable.classesMap.containsKey(fieldType)) fieldStartingOffset += 8;
+                    FieldOffset fieldOffset = new FieldOffset(classInformation, field, objectOffset, elementTypes.size(), fieldType.getLLVMType());
+
+                    // add the field to the struct and to the flattened layout
+                    elementTypes.add(fieldType.getLLVMType());
+                    structFields.add(fieldOffset);
+                    fieldLayout.put(field.getVarName(), fieldOffset);
+
+                    structEnd = objectOffset + fieldType.getSize();
                 }
             }
 
             // add the list to the map
             classFieldOffsetMap.put(classInformation, fieldOffsets);
 
+            // add the flattened layout to the map
+            classFieldLayoutMap.put(classInformation, fieldLayout);
+
+            // the struct of the class and the size of its objects, padded to the alignment of the vtable pointer
+            IRType structType = IRType.struct("class." + classInformation.getClassName());
+            structType.setElementTypes(elementTypes);
+
+            classStructTypeMap.put(classInformation, structType);
+            classStructFieldsMap.put(classInformation, structFields);
+            classObjectSizeMap.put(classInformation, align(structEnd, 8));
+
             // list to store the pairs of methods and offsets
             List<CustomPair<MethodInformation, Integer>> methodOffsets = null;
 
             // if the class has methods
-            if (methods != null) {
+            if (!methods.isEmpty()) {
 
                 // initialize the list
                 methodOffsets = new ArrayList<>();
@@ -139,13 +222,13 @@ public class Offsets {
                         // check if the current method is in the method list of the super class
                         // no need to perform extra checks since this file has already passed
                         // the semantic check
-                        if (SymbolTable.classMethodsMap.get(tempSuperClass).contains(method)) {
+                        if (tempSuperClass.getMethod(method.getMethodName()) != null) {
                             isInherited = true;
                             break;
                         }
 
                         // continue higher in the inheritance hierarchy
-                        tempSuperClass = SymbolTable.classInheritenceMap.get(tempSuperClass);
+                        tempSuperClass = tempSuperClass.getSuperClass();
                     }
 
                     // no need to compute the offset break out of the loop
@@ -175,13 +258,13 @@ public class Offsets {
 
     }
 
-    public static void printTable() {
+    public void printTable() {
 
         // loop counter
         int i = 0;
 
         // iterate though all the classes
-        for (ClassInformation classInformation : SymbolTable.classesMap.values()) {
+        for (ClassInformation classInformation : symbolTable.classesMap.values()) {
 
             // if the counter is 0, then we are in the first class, the main class, we dont want to print something for it
             if (i++ == 0) continue;
@@ -229,12 +312,4 @@ public class Offsets {
         }
 
     }
-
-    public static void reset() {
-
-        // clear all the tables to get the correct offsets for the other files
-        classFieldOffsetMap.clear();
-        classMethodOffsetMap.clear();
-        classLastOffestsMap.clear();
-    }
 }
@@ -0,0 +1,626 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes the array index checks that can never fail.
+ * The comparisons of the loop and if conditions are turned into facts about their operands: a copy of every
+ * compared value is placed as a single incoming phi at the start of the block the branch jumps to, and the uses
+ * dominated by that block use the copy. The ranges of the values are then found with the facts applied to the copies,
+ * so a counter starting at zero and going up while it is less than the length of an array is known to be inside it.
+ * Comparisons that are always true or always false are replaced by their result, the control flow is cleaned up after.
+ */
+public class BoundsCheckElimination {
+
+    // the widest range of an i32
+    static final long MIN = Integer.MIN_VALUE;
+    static final long MAX = Integer.MAX_VALUE;
+
+    // the range of a value that has no value yet, i.e. a phi before its incoming values are known
+    static final long[] EMPTY = null;
+
+    // a fact from a branch, the value compared to another one with the predicate
+    static class Fact {
+
+        // the value the copy was made for
+        Value original;
+
+        // the condition that holds, with the original on the left
+        Predicate predicate;
+
+        // the value it was compared to
+        Value other;
+
+        Fact(Value original, Predicate predicate, Value other) {
+            this.original = original;
+            this.predicate = predicate;
+            this.other = other;
+        }
+    }
+
+    /**
+     * Copy to fact map
+     * Usage : single incoming phi placed after a branch (Instruction object) -> what the branch says about it (Fact object)
+     */
+    Map<Instruction, Fact> factMap = new IdentityHashMap<>();
+
+    /**
+     * Value to range map
+     * Usage : i32 instruction (Instruction object) -> smallest and largest value it can have (array of two longs)
+     */
+    Map<Instruction, long[]> rangeMap = new IdentityHashMap<>();
+
+    /**
+     * Phi to updates map
+     * Usage : phi (Instruction object) -> times its range grew, it is widened after a few (Integer)
+     */
+    Map<Instruction, Integer> updatesMap = new IdentityHashMap<>();
+
+    // the dominators of the function
+    DominatorTree dominatorTree;
+
+    // the function the arrays are allocated with, calloc or the arena allocator
+    Function allocate;
+
+    public BoundsCheckElimination(Function allocate) {
+        this.allocate = allocate;
+    }
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        factMap.clear();
+        rangeMap.clear();
+        updatesMap.clear();
+
+        ControlFlowGraph.removeUnreachableBlocks(function);
+
+        dominatorTree = new DominatorTree(function);
+
+        insertFacts(function);
+
+        // the ranges did not settle, nothing is folded
+        if (!computeRanges()) return;
+
+        Map<Value, Value> replacements = new HashMap<>();
+
+        for (BasicBlock block : dominatorTree.getOrder()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                if (instruction.getOpcode() != Opcode.ICMP) continue;
+
+                ConstantInt result = evaluate(instruction);
+
+                if (result != null) replacements.put(instruction, result);
+            }
+        }
+
+        function.replaceAllUses(replacements);
+
+        // x and true is x, so the branch of a check with one side proven tests the other side only
+        simplifyOperations(function);
+
+        // a branch condition is known in the blocks it dominates from each side
+        propagateConditions(function);
+
+        function.renumber();
+    }
+
+    // places the copies of the compared values after the branches and records what the branches say about them
+    void insertFacts(Function function) {
+
+        // dominators first, so the comparisons inside a loop use the copies of the loop condition
+        for (BasicBlock block : dominatorTree.getOrder()) {
+
+            Instruction branch = block.getTerminator();
+
+            if (branch == null || branch.getOpcode() != Opcode.BR || branch.getNumOperands() != 3) continue;
+            if (!(branch.getOperand(0) instanceof Instruction)) continue;
+
+            Instruction condition = (Instruction) branch.getOperand(0);
+
+            if (condition.getOpcode() != Opcode.ICMP || !condition.getOperand(0).getType().equals(IRType.I32)) continue;
+
+            BasicBlock trueTarget = (BasicBlock) branch.getOperand(1);
+            BasicBlock falseTarget = (BasicBlock) branch.getOperand(2);
+
+            if (trueTarget == falseTarget) continue;
+
+            for (BasicBlock target : new BasicBlock[] { trueTarget, falseTarget }) {
+
+                // the facts hold only where every path comes through this branch
+                if (dominatorTree.getPredecessors(target).size() != 1) continue;
+
+                Predicate predicate = target == trueTarget ? condition.getPredicate() : inverse(condition.getPredicate());
+
+                Value left = condition.getOperand(0);
+                Value right = condition.getOperand(1);
+
+                if (!(left instanceof ConstantInt)) insertCopy(function, block, target, new Fact(left, predicate, right));
+                if (!(right instanceof ConstantInt)) insertCopy(function, block, target, new Fact(right, swapped(predicate), left));
+            }
+        }
+    }
+
+    void insertCopy(Function function, BasicBlock predecessor, BasicBlock target, Fact fact) {
+
+        Instruction copy = new Instruction(Opcode.PHI, IRType.I32);
+        copy.addIncoming(fact.original, predecessor);
+
+        target.insert(0, copy);
+        factMap.put(copy, fact);
+
+        // the uses the target block dominates see the copy
+        for (BasicBlock block : dominatorTree.getOrder()) {
+
+            if (!dominatorTree.dominates(target, block)) {
+
+                // phis use their incoming values at the end of the incoming block
+                for (Instruction instruction : block.getInstructions()) {
+
+                    if (instruction.getOpcode() != Opcode.PHI) break;
+
+                    for (int i = 0; i < instruction.getNumIncoming(); i++) {
+                        if (instruction.getIncomingValue(i) == fact.original && dominatorTree.dominates(target, instruction.getIncomingBlock(i))) {
+                            instruction.setOperand(2 * i, copy);
+                        }
+                    }
+                }
+
+                continue;
+            }
+
+            for (Instruction instruction : block.getInstructions()) {
+
+                if (instruction == copy) continue;
+
+                if (instruction.getOpcode() == Opcode.PHI) {
+
+                    // the copies and the phis of the target are on its incoming edge
+                    if (block == target) continue;
+
+                    for (int i = 0; i < instruction.getNumIncoming(); i++) {
+                        if (instruction.getIncomingValue(i) == fact.original && dominatorTree.dominates(target, instruction.getIncomingBlock(i))) {
+                            instruction.setOperand(2 * i, copy);
+                        }
+                    }
+
+                    continue;
+                }
+
+                for (int i = 0; i < instruction.getNumOperands(); i++) {
+                    if (instruction.getOperand(i) == fact.original) instruction.setOperand(i, copy);
+                }
+            }
+        }
+    }
+
+    // the range of every i32 value, false if they do not settle
+    boolean computeRanges() {
+
+        boolean changed = true;
+
+        for (int round = 0; changed; round++) {
+
+            // the phis are widened after a few updates, so this only happens for very deep nests of loops
+            if (round == 100) return false;
+
+            changed = false;
+
+            for (BasicBlock block : dominatorTree.getOrder()) {
+                for (Instruction instruction : block.getInstructions()) {
+
+                    if (!instruction.getType().equals(IRType.I32)) continue;
+
+                    long[] range = evaluateRange(instruction);
+                    long[] previous = rangeMap.get(instruction);
+
+                    if (range == EMPTY) continue;
+
+                    // the ranges only grow, so the rounds end
+                    if (previous != EMPTY) range = new long[] { Math.min(range[0], previous[0]), Math.max(range[1], previous[1]) };
+
+                    if (previous != EMPTY && previous[0] == range[0] && previous[1] == range[1]) continue;
+
+                    // loops would grow the range of their counters one step at a time
+                    if (instruction.getOpcode() == Opcode.PHI && !factMap.containsKey(instruction) && previous != EMPTY) {
+
+                        int updates = updatesMap.merge(instruction, 1, Integer::sum);
+
+                        if (updates > 2) {
+                            range = new long[] { range[0] < previous[0] ? MIN : range[0], range[1] > previous[1] ? MAX : range[1] };
+                        }
+                    }
+
+                    rangeMap.put(instruction, range);
+                    changed = true;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    long[] rangeOf(Value value) {
+
+        if (value instanceof ConstantInt) {
+            long constant = ((ConstantInt) value).getValue();
+            return new long[] { constant, constant };
+        }
+
+        if (value instanceof Instruction) return rangeMap.get(value);
+
+        // arguments can be anything
+        return new long[] { MIN, MAX };
+    }
+
+    // the range of the result of the operation, or the widest range if it can wrap around
+    static long[] checked(long low, long high) {
+
+        if (low < MIN || high > MAX) return new long[] { MIN, MAX };
+
+        return new long[] { low, high };
+    }
+
+    long[] evaluateRange(Instruction instruction) {
+
+        switch (instruction.getOpcode()) {
+
+            case PHI: {
+
+                // a copy after a branch, the range of the value cut by the fact
+                if (factMap.containsKey(instruction)) return applyFact(factMap.get(instruction));
+
+                long[] merged = EMPTY;
+
+                for (int i = 0; i < instruction.getNumIncoming(); i++) {
+
+                    long[] incoming = rangeOf(instruction.getIncomingValue(i));
+
+                    if (incoming == EMPTY) continue;
+
+                    merged = merged == EMPTY ? incoming.clone() : new long[] { Math.min(merged[0], incoming[0]), Math.max(merged[1], incoming[1]) };
+                }
+
+                return merged;
+            }
+
+            case ADD:
+            case SUB:
+            case MUL: {
+
+                long[] left = rangeOf(instruction.getOperand(0));
+                long[] right = rangeOf(instruction.getOperand(1));
+
+                if (left == EMPTY || right == EMPTY) return EMPTY;
+
+                if (instruction.getOpcode() == Opcode.ADD) return checked(left[0] + right[0], left[1] + right[1]);
+                if (instruction.getOpcode() == Opcode.SUB) return checked(left[0] - right[1], left[1] - right[0]);
+
+                // the products of the ends fit in a long since the ends are ints
+                long[] products = { left[0] * right[0], left[0] * right[1], left[1] * right[0], left[1] * right[1] };
+
+                long low = Long.MAX_VALUE;
+                long high = Long.MIN_VALUE;
+
+                for (long product : products) {
+                    low = Math.min(low, product);
+                    high = Math.max(high, product);
+                }
+
+                return checked(low, high);
+            }
+
+            case ZEXT:
+                return new long[] { 0, 1 };
+
+            case LOAD: {
+
+                // the length of an array allocated in this function is the size it was allocated with
+                Value size = allocatedSize(instruction.getOperand(0));
+
+                if (size != null) return rangeOf(size);
+
+                return new long[] { MIN, MAX };
+            }
+
+            default:
+                return new long[] { MIN, MAX };
+        }
+    }
+
+    long[] applyFact(Fact fact) {
+
+        long[] range = rangeOf(fact.original);
+        long[] other = rangeOf(fact.other);
+
+        if (range == EMPTY || other == EMPTY) return EMPTY;
+
+        long low = range[0];
+        long high = range[1];
+
+        switch (fact.predicate) {
+            case SLT: high = Math.min(high, other[1] - 1); break;
+            case SLE: high = Math.min(high, other[1]); break;
+            case SGT: low = Math.max(low, other[0] + 1); break;
+            case SGE: low = Math.max(low, other[0]); break;
+            case EQ: low = Math.max(low, other[0]); high = Math.min(high, other[1]); break;
+            case ULT:
+                // below a value that is not negative as an unsigned number means not negative and below it
+                if (other[0] >= 0 || isArrayLength(fact.other)) {
+                    low = Math.max(low, 0);
+                    high = Math.min(high, other[1] - 1);
+                }
+                break;
+            default: break;
+        }
+
+        // the branch can not be taken, keep the range of the value so nothing is concluded from it
+        if (low > high) return range;
+
+        return new long[] { low, high };
+    }
+
+    // the size stored at the start of an array allocated by the runtime, null if the pointer is not such an array
+    Value allocatedSize(Value pointer) {
+
+        if (!(pointer instanceof Instruction) || ((Instruction) pointer).getOpcode() != Opcode.BITCAST) return null;
+
+        Value allocation = ((Instruction) pointer).getOperand(0);
+
+        if (!(allocation instanceof Instruction) || ((Instruction) allocation).getOpcode() != Opcode.CALL) return null;
+        if (((Instruction) allocation).getOperand(0) != allocate) return null;
+
+        // the elements are stored through getelementptr, the only store to the pointer itself is the length
+        BasicBlock block = ((Instruction) pointer).getParent();
+
+        for (Instruction instruction : block.getInstructions()) {
+            if (instruction.getOpcode() == Opcode.STORE && instruction.getOperand(1) == pointer) return instruction.getOperand(0);
+        }
+
+        return null;
+    }
+
+    // the result of a comparison if the ranges and the facts decide it, null otherwise
+    ConstantInt evaluate(Instruction compare) {
+
+        if (!compare.getOperand(0).getType().equals(IRType.I32)) return null;
+
+        long[] left = rangeOf(compare.getOperand(0));
+        long[] right = rangeOf(compare.getOperand(1));
+
+        if (left == EMPTY || right == EMPTY) return null;
+
+        switch (compare.getPredicate()) {
+
+            case SLT:
+                if (left[1] < right[0] || isLessThanLength(compare.getOperand(0), compare.getOperand(1))) return ConstantInt.TRUE;
+                if (left[0] >= right[1]) return ConstantInt.FALSE;
+                return null;
+
+            case SGE:
+                if (left[0] >= right[1]) return ConstantInt.TRUE;
+                if (left[1] < right[0] || isLessThanLength(compare.getOperand(0), compare.getOperand(1))) return ConstantInt.FALSE;
+                return null;
+
+            case SGT:
+                if (left[0] > right[1]) return ConstantInt.TRUE;
+                if (left[1] <= right[0]) return ConstantInt.FALSE;
+                return null;
+
+            case SLE:
+                if (left[1] <= right[0]) return ConstantInt.TRUE;
+                if (left[0] > right[1]) return ConstantInt.FALSE;
+                return null;
+
+            case ULT:
+                // the index checks, both ends of the index are checked with one unsigned compare
+                if (left[0] >= 0 && (left[1] < right[0] || isLessThanLength(compare.getOperand(0), compare.getOperand(1)))) return ConstantInt.TRUE;
+                if (left[0] >= 0 && right[0] >= 0 && left[0] >= right[1]) return ConstantInt.FALSE;
+                return null;
+
+            default:
+                return null;
+        }
+    }
+
+    // the value the copies were made of
+    Value original(Value value) {
+
+        while (value instanceof Instruction && factMap.containsKey(value)) value = factMap.get(value).original;
+
+        return value;
+    }
+
+    // the pointer a length is loaded from, null if the value is not a load
+    Value loadedFrom(Value value) {
+
+        value = original(value);
+
+        if (value instanceof Instruction && ((Instruction) value).getOpcode() == Opcode.LOAD) return ((Instruction) value).getOperand(0);
+
+        return null;
+    }
+
+    // checks if the value is the length of an array, loaded from the pointer to the array itself
+    // the elements and the fields are loaded through getelementptr, the locals from their stack slots, and the lengths are never negative
+    boolean isArrayLength(Value value) {
+
+        Value pointer = loadedFrom(value);
+
+        if (pointer == null || !pointer.getType().equals(IRType.I32_PTR)) return false;
+
+        if (!(pointer instanceof Instruction)) return true;
+
+        Opcode opcode = ((Instruction) pointer).getOpcode();
+
+        return opcode != Opcode.GETELEMENTPTR && opcode != Opcode.ALLOCA;
+    }
+
+    // checks if a branch said the index is less than the length of the same array, directly or before a constant was taken off
+    boolean isLessThanLength(Value index, Value length) {
+
+        Value array = loadedFrom(length);
+
+        if (array == null) return false;
+
+        while (index instanceof Instruction) {
+
+            Instruction instruction = (Instruction) index;
+
+            // a copy with the fact index < length of the array, the arrays never change length
+            if (factMap.containsKey(instruction)) {
+
+                Fact fact = factMap.get(instruction);
+
+                if ((fact.predicate == Predicate.SLT || fact.predicate == Predicate.ULT) && loadedFrom(fact.other) == array) return true;
+
+                index = fact.original;
+                continue;
+            }
+
+            // index - c or index + (-c) is smaller than index if it does not wrap around
+            boolean isSmaller = false;
+
+            if (instruction.getOpcode() == Opcode.SUB && instruction.getOperand(1) instanceof ConstantInt) {
+                isSmaller = ((ConstantInt) instruction.getOperand(1)).getValue() >= 0;
+            }
+            else if (instruction.getOpcode() == Opcode.ADD && instruction.getOperand(1) instanceof ConstantInt) {
+                isSmaller = ((ConstantInt) instruction.getOperand(1)).getValue() <= 0;
+            }
+
+            long[] range = rangeMap.get(instruction);
+
+            if (!isSmaller || range == EMPTY || range[0] == MIN) return false;
+
+            index = instruction.getOperand(0);
+        }
+
+        return false;
+    }
+
+    // folds the operations with a constant that does nothing, the proven comparisons left them behind
+    void simplifyOperations(Function function) {
+
+        Map<Value, Value> replacements = new HashMap<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+
+            List<Instruction> instructions = block.getInstructions();
+
+            for (int i = 0; i < instructions.size(); i++) {
+
+                Instruction instruction = instructions.get(i);
+
+                if (!instruction.getOpcode().isBinary()) continue;
+
+                Value left = resolve(instruction.getOperand(0), replacements);
+                Value right = resolve(instruction.getOperand(1), replacements);
+
+                Value simplified = (left instanceof ConstantInt && right instanceof ConstantInt)
+                        ? ConstantFolder.binary(instruction.getOpcode(), (ConstantInt) left, (ConstantInt) right)
+                        : ConstantFolder.simplify(instruction.getOpcode(), left, right);
+
+                if (simplified != null) {
+                    replacements.put(instruction, simplified);
+                    instructions.remove(i--);
+                }
+            }
+        }
+
+        function.replaceAllUses(replacements);
+    }
+
+    static Value resolve(Value value, Map<Value, Value> replacements) {
+
+        while (replacements.containsKey(value)) value = replacements.get(value);
+
+        return value;
+    }
+
+    // a block reached only from one side of a branch knows the condition of the branch
+    void propagateConditions(Function function) {
+
+        DominatorTree tree = new DominatorTree(function);
+
+        for (BasicBlock block : tree.getOrder()) {
+
+            Instruction branch = block.getTerminator();
+
+            if (branch == null || branch.getOpcode() != Opcode.BR || branch.getNumOperands() != 3) continue;
+            if (!(branch.getOperand(0) instanceof Instruction)) continue;
+
+            Value condition = branch.getOperand(0);
+            BasicBlock trueTarget = (BasicBlock) branch.getOperand(1);
+            BasicBlock falseTarget = (BasicBlock) branch.getOperand(2);
+
+            if (trueTarget == falseTarget) continue;
+
+            for (BasicBlock target : new BasicBlock[] { trueTarget, falseTarget }) {
+
+                if (tree.getPredecessors(target).size() != 1) continue;
+
+                ConstantInt known = ConstantInt.bool(target == trueTarget);
+
+                // only the plain uses, the phis of the dominated blocks may come from elsewhere
+                for (BasicBlock dominated : tree.getOrder()) {
+
+                    if (!tree.dominates(target, dominated)) continue;
+
+                    for (Instruction instruction : dominated.getInstructions()) {
+
+                        if (instruction.getOpcode() == Opcode.PHI) continue;
+
+                        for (int i = 0; i < instruction.getNumOperands(); i++) {
+                            if (instruction.getOperand(i) == condition) instruction.setOperand(i, known);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    static Predicate inverse(Predicate predicate) {
+
+        switch (predicate) {
+            case EQ: return Predicate.NE;
+            case NE: return Predicate.EQ;
+            case SGT: return Predicate.SLE;
+            case SGE: return Predicate.SLT;
+            case SLT: return Predicate.SGE;
+            case SLE: return Predicate.SGT;
+            case UGT: return Predicate.ULE;
+            case UGE: return Predicate.ULT;
+            case ULT: return Predicate.UGE;
+            default: return Predicate.UGT;
+        }
+    }
+
+    // the same condition with the operands swapped
+    static Predicate swapped(Predicate predicate) {
+
+        switch (predicate) {
+            case SGT: return Predicate.SLT;
+            case SGE: return Predicate.SLE;
+            case SLT: return Predicate.SGT;
+            case SLE: return Predicate.SGE;
+            case UGT: return Predicate.ULT;
+            case UGE: return Predicate.ULE;
+            case ULT: return Predicate.UGT;
+            case ULE: return Predicate.UGE;
+            default: return predicate;
+        }
+    }
+}
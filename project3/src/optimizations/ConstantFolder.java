@@ -0,0 +1,116 @@
+package optimizations;
+
+import ir.*;
+
+// computes the result of an operation on constants, with the wrap around of the integer type
+public class ConstantFolder {
+
+    // the constant of the type with the given value, cut to the bits of the type
+    public static ConstantInt constant(IRType type, long value) {
+
+        int bits = type.getBits();
+
+        // booleans are 0 or 1, the rest are kept sign extended
+        if (bits == 1) return ConstantInt.bool((value & 1) != 0);
+
+        return new ConstantInt(type, (value << (64 - bits)) >> (64 - bits));
+    }
+
+    // the bits of the constant as an unsigned number
+    static long unsigned(ConstantInt constant) {
+
+        int bits = constant.getType().getBits();
+
+        return bits == 64 ? constant.getValue() : constant.getValue() & ((1L << bits) - 1);
+    }
+
+    public static ConstantInt binary(Opcode opcode, ConstantInt left, ConstantInt right) {
+
+        long a = left.getValue();
+        long b = right.getValue();
+
+        switch (opcode) {
+            case ADD: return constant(left.getType(), a + b);
+            case SUB: return constant(left.getType(), a - b);
+            case MUL: return constant(left.getType(), a * b);
+            case AND: return constant(left.getType(), a & b);
+            case OR: return constant(left.getType(), a | b);
+            case XOR: return constant(left.getType(), a ^ b);
+
+            // a division by zero is left for the program to do
+            case UDIV: return b == 0 ? null : constant(left.getType(), Long.divideUnsigned(unsigned(left), unsigned(right)));
+            case UREM: return b == 0 ? null : constant(left.getType(), Long.remainderUnsigned(unsigned(left), unsigned(right)));
+            default: return null;
+        }
+    }
+
+    public static ConstantInt compare(Predicate predicate, ConstantInt left, ConstantInt right) {
+
+        long a = left.getValue();
+        long b = right.getValue();
+        int unsignedOrder = Long.compareUnsigned(unsigned(left), unsigned(right));
+
+        switch (predicate) {
+            case EQ: return ConstantInt.bool(a == b);
+            case NE: return ConstantInt.bool(a != b);
+            case SGT: return ConstantInt.bool(a > b);
+            case SGE: return ConstantInt.bool(a >= b);
+            case SLT: return ConstantInt.bool(a < b);
+            case SLE: return ConstantInt.bool(a <= b);
+            case UGT: return ConstantInt.bool(unsignedOrder > 0);
+            case UGE: return ConstantInt.bool(unsignedOrder >= 0);
+            case ULT: return ConstantInt.bool(unsignedOrder < 0);
+            case ULE: return ConstantInt.bool(unsignedOrder <= 0);
+            default: return null;
+        }
+    }
+
+    // folds the instruction with the given constants as its operands, null if it can not be folded
+    public static ConstantInt fold(Instruction instruction, ConstantInt[] operands) {
+
+        Opcode opcode = instruction.getOpcode();
+
+        if (opcode.isBinary()) return binary(opcode, operands[0], operands[1]);
+
+        switch (opcode) {
+            case ICMP: return compare(instruction.getPredicate(), operands[0], operands[1]);
+            case ZEXT: return constant(instruction.getType(), unsigned(operands[0]));
+            case TRUNC: return constant(instruction.getType(), operands[0].getValue());
+            case SELECT: return operands[0].getValue() != 0 ? operands[1] : operands[2];
+            default: return null;
+        }
+    }
+
+    // an operation with one constant operand that does nothing, i.e. x * 1, is the other operand, null if there is no such rule
+    public static Value simplify(Opcode opcode, Value left, Value right) {
+
+        // constants are on the right, the operations with both orders are swapped
+        if (left instanceof ConstantInt && !(right instanceof ConstantInt) && opcode.isCommutative()) {
+            Value swap = left;
+            left = right;
+            right = swap;
+        }
+
+        if (!(right instanceof ConstantInt)) return null;
+
+        ConstantInt constant = (ConstantInt) right;
+        long value = constant.getValue();
+
+        // all the bits set, -1 for i32 and true for i1
+        boolean allOnes = constant.equals(constant(constant.getType(), -1));
+
+        switch (opcode) {
+            case ADD: case SUB: case OR: case XOR: return value == 0 ? left : null;
+            case MUL: return value == 1 ? left : value == 0 ? constant : null;
+            case AND: return allOnes ? left : value == 0 ? constant : null;
+            case UDIV: return value == 1 ? left : null;
+            case UREM: return value == 1 ? constant(constant.getType(), 0) : null;
+            default: return null;
+        }
+    }
+
+    // the operations that can be folded, everything else reads memory or calls a function
+    public static boolean canFold(Opcode opcode) {
+        return opcode.isBinary() || opcode == Opcode.ICMP || opcode == Opcode.ZEXT || opcode == Opcode.TRUNC || opcode == Opcode.SELECT;
+    }
+}
@@ -0,0 +1,110 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// predecessors and reachability of the basic blocks of a function
+public class ControlFlowGraph {
+
+    /**
+     * Block to predecessors map
+     * Usage : basic block (BasicBlock object) -> blocks jumping to it (list of BasicBlock objects)
+     * A block jumping to another from both sides of a branch is listed once.
+     */
+    public static Map<BasicBlock, List<BasicBlock>> predecessors(Function function) {
+
+        Map<BasicBlock, List<BasicBlock>> predecessorsMap = new LinkedHashMap<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+            predecessorsMap.put(block, new ArrayList<>());
+        }
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (BasicBlock successor : block.getSuccessors()) {
+
+                List<BasicBlock> predecessors = predecessorsMap.get(successor);
+
+                if (!predecessors.contains(block)) predecessors.add(block);
+            }
+        }
+
+        return predecessorsMap;
+    }
+
+    // the blocks reached from the entry block in reverse post-order, every block comes before its successors except loop back edges
+    public static List<BasicBlock> reversePostOrder(Function function) {
+
+        List<BasicBlock> postOrder = new ArrayList<>();
+        Set<BasicBlock> visited = new HashSet<>();
+
+        // iterative depth first visit, the stack keeps the block and the index of the next successor to visit
+        List<BasicBlock> stack = new ArrayList<>();
+        List<Integer> nextSuccessor = new ArrayList<>();
+
+        stack.add(function.getEntryBlock());
+        nextSuccessor.add(0);
+        visited.add(function.getEntryBlock());
+
+        while (!stack.isEmpty()) {
+
+            int top = stack.size() - 1;
+            BasicBlock current = stack.get(top);
+            List<BasicBlock> successors = current.getSuccessors();
+            int successorIndex = nextSuccessor.get(top);
+
+            // all the successors were visited, the block is done
+            if (successorIndex == successors.size()) {
+                postOrder.add(current);
+                stack.remove(top);
+                nextSuccessor.remove(top);
+                continue;
+            }
+
+            nextSuccessor.set(top, successorIndex + 1);
+
+            BasicBlock successor = successors.get(successorIndex);
+
+            if (visited.add(successor)) {
+                stack.add(successor);
+                nextSuccessor.add(0);
+            }
+        }
+
+        List<BasicBlock> order = new ArrayList<>();
+
+        for (int i = postOrder.size() - 1; i >= 0; i--) {
+            order.add(postOrder.get(i));
+        }
+
+        return order;
+    }
+
+    // removes the blocks that can not be reached from the entry block and their incoming values from the phis
+    public static boolean removeUnreachableBlocks(Function function) {
+
+        Set<BasicBlock> reachable = new HashSet<>(reversePostOrder(function));
+
+        if (reachable.size() == function.getBlocks().size()) return false;
+
+        function.getBlocks().removeIf(block -> !reachable.contains(block));
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                if (instruction.getOpcode() != Opcode.PHI) continue;
+
+                for (int i = instruction.getNumIncoming() - 1; i >= 0; i--) {
+                    if (!reachable.contains(instruction.getIncomingBlock(i))) instruction.removeIncoming(i);
+                }
+            }
+        }
+
+        return true;
+    }
+}
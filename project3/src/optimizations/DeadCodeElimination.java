@@ -0,0 +1,56 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// removes the instructions whose results are never used and that do nothing else
+public class DeadCodeElimination {
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        // removing an instruction can leave its operands unused, repeat until nothing is removed
+        boolean changed = true;
+
+        while (changed) {
+
+            Set<Value> used = new HashSet<>();
+
+            for (BasicBlock block : function.getBlocks()) {
+                for (Instruction instruction : block.getInstructions()) {
+                    for (Value operand : instruction.getOperands()) {
+                        if (operand instanceof Instruction) used.add(operand);
+                    }
+                }
+            }
+
+            changed = false;
+
+            for (BasicBlock block : function.getBlocks()) {
+                changed |= block.getInstructions().removeIf(instruction -> !used.contains(instruction) && isRemovable(instruction));
+            }
+        }
+
+        function.renumber();
+    }
+
+    // instructions that only compute their result, stores calls and branches stay
+    static boolean isRemovable(Instruction instruction) {
+
+        switch (instruction.getOpcode()) {
+            case STORE:
+            case CALL:
+                return false;
+            default:
+                return instruction.hasResult();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dominators of the basic blocks of a function.
+ * The immediate dominators are found with the iterative algorithm of Cooper, Harvey and Kennedy
+ * over the reverse post-order of the blocks, the dominance frontiers from the predecessors of the join blocks.
+ * Only the blocks reached from the entry block are part of the tree.
+ */
+public class DominatorTree {
+
+    // the reachable blocks in reverse post-order
+    List<BasicBlock> order;
+
+    /**
+     * Block to position map
+     * Usage : basic block (BasicBlock object) -> position in the reverse post-order (Integer)
+     */
+    Map<BasicBlock, Integer> orderIndexMap = new HashMap<>();
+
+    /**
+     * Block to predecessors map
+     * Usage : basic block (BasicBlock object) -> blocks jumping to it (list of BasicBlock objects)
+     */
+    Map<BasicBlock, List<BasicBlock>> predecessorsMap;
+
+    /**
+     * Block to immediate dominator map
+     * Usage : basic block (BasicBlock object) -> closest block every path from the entry goes through (BasicBlock object)
+     * The entry block is its own immediate dominator.
+     */
+    Map<BasicBlock, BasicBlock> immediateDominatorMap = new HashMap<>();
+
+    /**
+     * Block to children map
+     * Usage : basic block (BasicBlock object) -> blocks it immediately dominates (list of BasicBlock objects)
+     */
+    Map<BasicBlock, List<BasicBlock>> childrenMap = new HashMap<>();
+
+    /**
+     * Block to dominance frontier map
+     * Usage : basic block (BasicBlock object) -> blocks where its dominance stops (set of BasicBlock objects)
+     */
+    Map<BasicBlock, Set<BasicBlock>> frontierMap = new HashMap<>();
+
+    public DominatorTree(Function function) {
+
+        this.order = ControlFlowGraph.reversePostOrder(function);
+        this.predecessorsMap = ControlFlowGraph.predecessors(function);
+
+        for (int i = 0; i < order.size(); i++) {
+            orderIndexMap.put(order.get(i), i);
+            childrenMap.put(order.get(i), new ArrayList<>());
+            frontierMap.put(order.get(i), new LinkedHashSet<>());
+        }
+
+        BasicBlock entry = order.get(0);
+        immediateDominatorMap.put(entry, entry);
+
+        // refine the dominators until nothing changes, a couple of rounds for the loops of a method
+        boolean changed = true;
+
+        while (changed) {
+
+            changed = false;
+
+            for (BasicBlock block : order) {
+
+                if (block == entry) continue;
+
+                BasicBlock newDominator = null;
+
+                // meet of the predecessors that already have a dominator
+                for (BasicBlock predecessor : predecessorsMap.get(block)) {
+
+                    if (!immediateDominatorMap.containsKey(predecessor)) continue;
+
+                    newDominator = (newDominator == null) ? predecessor : intersect(predecessor, newDominator);
+                }
+
+                if (immediateDominatorMap.get(block) != newDominator) {
+                    immediateDominatorMap.put(block, newDominator);
+                    changed = true;
+                }
+            }
+        }
+
+        for (BasicBlock block : order) {
+            if (block != entry) childrenMap.get(immediateDominatorMap.get(block)).add(block);
+        }
+
+        // a join block is in the frontier of every block from its predecessors up to its immediate dominator
+        for (BasicBlock block : order) {
+
+            List<BasicBlock> predecessors = predecessorsMap.get(block);
+
+            if (predecessors.size() < 2) continue;
+
+            for (BasicBlock predecessor : predecessors) {
+
+                // predecessors that can not be reached have no dominators
+                if (!immediateDominatorMap.containsKey(predecessor)) continue;
+
+                BasicBlock runner = predecessor;
+
+                while (runner != immediateDominatorMap.get(block)) {
+                    frontierMap.get(runner).add(block);
+                    runner = immediateDominatorMap.get(runner);
+                }
+            }
+        }
+    }
+
+    // walk up from both blocks to their closest common dominator
+    BasicBlock intersect(BasicBlock first, BasicBlock second) {
+
+        while (first != second) {
+            while (orderIndexMap.get(first) > orderIndexMap.get(second)) first = immediateDominatorMap.get(first);
+            while (orderIndexMap.get(second) > orderIndexMap.get(first)) second = immediateDominatorMap.get(second);
+        }
+
+        return first;
+    }
+
+    public List<BasicBlock> getOrder() { return this.order; }
+    public BasicBlock getRoot() { return this.order.get(0); }
+    public BasicBlock getImmediateDominator(BasicBlock block) { return this.immediateDominatorMap.get(block); }
+    public List<BasicBlock> getChildren(BasicBlock block) { return this.childrenMap.get(block); }
+    public Set<BasicBlock> getFrontier(BasicBlock block) { return this.frontierMap.get(block); }
+    public List<BasicBlock> getPredecessors(BasicBlock block) { return this.predecessorsMap.get(block); }
+    public boolean isReachable(BasicBlock block) { return this.orderIndexMap.containsKey(block); }
+
+    // checks if every path from the entry to the second block goes through the first
+    public boolean dominates(BasicBlock first, BasicBlock second) {
+
+        while (true) {
+
+            if (first == second) return true;
+
+            BasicBlock dominator = immediateDominatorMap.get(second);
+
+            if (dominator == second || dominator == null) return false;
+
+            second = dominator;
+        }
+    }
+}
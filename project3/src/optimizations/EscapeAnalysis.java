@@ -0,0 +1,192 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the objects and the arrays of constant size that never leave the method from the heap to the stack.
+ * An allocation escapes if a pointer to it, or to one of its fields or elements, is stored, returned, passed
+ * to a call or merged with other pointers by a phi. The rest get a slot in the entry block, which is cleared
+ * with memset where the allocation was, so an allocation inside a loop reuses the same slot on every iteration.
+ * That is safe since no pointer to the previous object survives the next allocation.
+ */
+public class EscapeAnalysis {
+
+    // the largest allocation moved to the stack, in bytes
+    public static final int STACK_ALLOCATION_LIMIT = 4096;
+
+    // the function the objects and the arrays are allocated with, calloc or the arena allocator
+    Function allocate;
+
+    // the memset intrinsic, declared when the first slot is made, and its name
+    Function memset;
+    String memsetName;
+
+    public EscapeAnalysis(Function allocate, String memsetName) {
+        this.allocate = allocate;
+        this.memsetName = memsetName;
+    }
+
+    public void run(IRModule module) {
+
+        List<Function> stackAllocating = new ArrayList<>();
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration() && hasStackAllocations(function)) stackAllocating.add(function);
+        }
+
+        if (stackAllocating.isEmpty()) return;
+
+        // declare void @llvm.memset.p0i8.i32(i8*, i8, i32, i1)
+        memset = module.getFunction(memsetName);
+
+        if (memset == null) {
+            IRType memsetType = IRType.function(IRType.VOID, Arrays.asList(IRType.I8_PTR, IRType.I8, IRType.I32, IRType.I1), false);
+            memset = module.addFunction(new Function(memsetName, memsetType, Arrays.asList("", "", "", "")));
+        }
+
+        for (Function function : stackAllocating) {
+            run(function);
+        }
+    }
+
+    boolean hasStackAllocations(Function function) {
+
+        Map<Value, List<Instruction>> users = findUsers(function);
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                if (allocatedSize(instruction) > 0 && !escapes(instruction, users)) return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void run(Function function) {
+
+        Map<Value, List<Instruction>> users = findUsers(function);
+
+        BasicBlock entry = function.getEntryBlock();
+
+        // the slots go to the start of the entry block, after the ones already there
+        int slotPosition = 0;
+
+        while (entry.getInstructions().get(slotPosition).getOpcode() == Opcode.ALLOCA) slotPosition++;
+
+        Map<Value, Value> replacements = new HashMap<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+
+            List<Instruction> instructions = block.getInstructions();
+
+            for (int i = 0; i < instructions.size(); i++) {
+
+                Instruction allocation = instructions.get(i);
+                int size = allocatedSize(allocation);
+
+                if (size <= 0 || escapes(allocation, users)) continue;
+
+                // %slot = alloca [n x i64], whole words keep the fields aligned
+                IRType slotType = IRType.arrayOf((size + 7) / 8, IRType.I64);
+
+                Instruction slot = new Instruction(Opcode.ALLOCA, slotType.pointerTo());
+                slot.setOperationType(slotType);
+                slot.setComment("stack slot of the allocation in " + block.getName());
+
+                // %object = bitcast [n x i64]* %slot to i8*
+                Instruction object = new Instruction(Opcode.BITCAST, IRType.I8_PTR, slot);
+
+                entry.insert(slotPosition++, slot);
+                entry.insert(slotPosition++, object);
+
+                // adding to the entry block moves the allocation down
+                if (block == entry) i += 2;
+
+                // call void @llvm.memset.p0i8.i32(i8* %object, i8 0, i32 size, i1 false), the allocator cleared the memory too
+                Instruction clear = new Instruction(Opcode.CALL, IRType.VOID, memset, object, new ConstantInt(IRType.I8, 0), ConstantInt.i32(size), ConstantInt.FALSE);
+                clear.setOperationType(memset.getFunctionType());
+                clear.setComment(allocation.getComment());
+
+                block.set(i, clear);
+                replacements.put(allocation, object);
+            }
+        }
+
+        if (replacements.isEmpty()) return;
+
+        function.replaceAllUses(replacements);
+        function.renumber();
+    }
+
+    // bytes allocated by a call of the allocator with constant arguments, 0 for anything else
+    int allocatedSize(Instruction instruction) {
+
+        if (instruction.getOpcode() != Opcode.CALL || instruction.getOperand(0) != allocate) return 0;
+
+        if (!(instruction.getOperand(1) instanceof ConstantInt) || !(instruction.getOperand(2) instanceof ConstantInt)) return 0;
+
+        long size = ((ConstantInt) instruction.getOperand(1)).getValue() * ((ConstantInt) instruction.getOperand(2)).getValue();
+
+        return (size <= 0 || size > STACK_ALLOCATION_LIMIT) ? 0 : (int) size;
+    }
+
+    // follows the pointers derived from the allocation, only loads and stores through them keep it in the method
+    boolean escapes(Instruction allocation, Map<Value, List<Instruction>> users) {
+
+        List<Value> pointers = new ArrayList<>();
+        pointers.add(allocation);
+
+        for (int p = 0; p < pointers.size(); p++) {
+
+            Value pointer = pointers.get(p);
+
+            for (Instruction user : users.getOrDefault(pointer, new ArrayList<>())) {
+
+                switch (user.getOpcode()) {
+
+                    // the address of a field or an element, or the same address as another type
+                    case GETELEMENTPTR:
+                    case BITCAST:
+                        if (user.getOperand(0) != pointer) return true;
+                        if (!pointers.contains(user)) pointers.add(user);
+                        break;
+
+                    case LOAD:
+                        break;
+
+                    // storing to the allocation is fine, storing the pointer itself is not
+                    case STORE:
+                        if (user.getOperand(0) == pointer) return true;
+                        break;
+
+                    default:
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // the instructions using every value of the function
+    static Map<Value, List<Instruction>> findUsers(Function function) {
+
+        Map<Value, List<Instruction>> users = new HashMap<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                for (Value operand : instruction.getOperands()) {
+                    users.computeIfAbsent(operand, key -> new ArrayList<>()).add(instruction);
+                }
+            }
+        }
+
+        return users;
+    }
+}
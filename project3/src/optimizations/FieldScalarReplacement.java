@@ -0,0 +1,393 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the fields of this in registers inside a method.
+ * Every field the method reads or writes through this gets a stack slot, loaded from the object on entry, the
+ * accesses go to the slot and the slots are promoted to SSA values, so a field used in a loop is not loaded
+ * and stored on every iteration. The object is brought up to date before whatever may look at it, the calls,
+ * the returns and the accesses of the same field of other objects, which may be this object. The slot is
+ * loaded again after whatever may change the field, the calls and the stores to the same field of other objects.
+ * A field is only written back if it may have been stored to since the slot and the object last agreed.
+ */
+public class FieldScalarReplacement {
+
+    // the functions of the methods, the first argument of every one is this
+    Set<Function> methods;
+
+    // the runtime functions that never look at an object, calls of them leave the fields in the slots
+    Set<Function> transparent;
+
+    /**
+     * Field to slot map
+     * Usage : index of the field in the struct of the class (Integer) -> alloca keeping its value (Instruction object)
+     */
+    Map<Integer, Instruction> slotMap = new LinkedHashMap<>();
+
+    /**
+     * Field to pointer map
+     * Usage : index of the field in the struct of the class (Integer) -> getelementptr of the field in the entry block (Instruction object)
+     */
+    Map<Integer, Instruction> pointerMap = new HashMap<>();
+
+    /**
+     * Field to metadata map
+     * Usage : index of the field in the struct of the class (Integer) -> metadata of an access of the field, i.e. its tbaa tag (map of String to Metadata objects)
+     */
+    Map<Integer, Map<String, Metadata>> metadataMap = new HashMap<>();
+
+    /**
+     * Slot to field map
+     * Usage : alloca keeping the value of a field (Value object) -> index of the field in the struct of the class (Integer)
+     */
+    Map<Value, Integer> slotFieldMap = new HashMap<>();
+
+    // the casts of this to the struct of its class or of a super class, the inlined methods called on this add their own
+    Set<Value> thisCasts = new HashSet<>();
+
+    // the loads and stores added to bring the slots and the object in agreement, they do not make a field dirty
+    Set<Instruction> syncInstructions = new HashSet<>();
+
+    public FieldScalarReplacement(Set<Function> methods, Set<Function> transparent) {
+        this.methods = methods;
+        this.transparent = transparent;
+    }
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (methods.contains(function) && !function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        slotMap.clear();
+        slotFieldMap.clear();
+        pointerMap.clear();
+        metadataMap.clear();
+        thisCasts.clear();
+        syncInstructions.clear();
+
+        Argument self = function.getArgument(0);
+
+        // the widest struct this is cast to is the one of the class of the method, every field index is inside it
+        Instruction fields = null;
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                if (instruction.getOpcode() != Opcode.BITCAST || instruction.getOperand(0) != self) continue;
+
+                if (!instruction.getType().getElementType().isStruct()) continue;
+
+                thisCasts.add(instruction);
+
+                if (fields == null || width(instruction) > width(fields)) fields = instruction;
+            }
+        }
+
+        if (thisCasts.isEmpty()) return;
+
+        Map<Integer, IRType> fieldTypes = findFields(function);
+
+        if (fieldTypes.isEmpty()) return;
+
+        BasicBlock entry = function.getEntryBlock();
+        IRType structType = fields.getType().getElementType();
+
+        // the loads on entry go after the cast of this of the method, the cast is made if only inlined methods had one
+        if (fields.getParent() != entry) {
+
+            // %this.fields = bitcast i8* %this to %class.A*
+            fields = new Instruction(Opcode.BITCAST, structType.pointerTo(), self);
+            fields.setName("this.fields");
+            entry.insert(0, fields);
+        }
+
+        int position = entry.getInstructions().indexOf(fields) + 1;
+
+        for (Map.Entry<Integer, IRType> fieldEntry : fieldTypes.entrySet()) {
+
+            int index = fieldEntry.getKey();
+            IRType type = fieldEntry.getValue();
+
+            // %_0 = getelementptr %class.A, %class.A* %this.fields, i32 0, i32 index
+            Instruction pointer = new Instruction(Opcode.GETELEMENTPTR, type.pointerTo(), fields, ConstantInt.i32(0), ConstantInt.i32(index));
+            pointer.setOperationType(structType);
+
+            Instruction slot = new Instruction(Opcode.ALLOCA, type.pointerTo());
+            slot.setOperationType(type);
+
+            entry.insert(position++, pointer);
+            entry.insert(position++, slot);
+
+            pointerMap.put(index, pointer);
+            slotMap.put(index, slot);
+
+            slotFieldMap.put(slot, index);
+
+            // the value of the field on entry
+            position += reload(entry, position, index);
+        }
+
+        // the accesses of the fields through this go to the slots
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                if (syncInstructions.contains(instruction)) continue;
+
+                int addressOperand = addressOperand(instruction);
+
+                if (addressOperand < 0) continue;
+
+                int index = thisFieldIndex(instruction.getOperand(addressOperand));
+
+                if (!slotMap.containsKey(index)) continue;
+
+                instruction.setOperand(addressOperand, slotMap.get(index));
+                instruction.getMetadata().clear();
+            }
+        }
+
+        insertWriteBacks(function);
+
+        // the slots become registers, the fields nothing reads are left to dead code elimination
+        new PromoteMemoryToRegister(new HashSet<>(slotMap.values())).run(function);
+    }
+
+    // the fields of this only loaded and stored, and the type of their values
+    Map<Integer, IRType> findFields(Function function) {
+
+        Map<Integer, IRType> fieldTypes = new TreeMap<>();
+        Set<Integer> escaping = new HashSet<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                int addressOperand = addressOperand(instruction);
+
+                for (int i = 0; i < instruction.getNumOperands(); i++) {
+
+                    Value operand = instruction.getOperand(i);
+
+                    // this cast to a struct is only used to index the fields
+                    if (thisCasts.contains(operand) && thisFieldIndex(instruction) < 0) escaping.add(-1);
+
+                    int index = thisFieldIndex(operand);
+
+                    if (index < 0) continue;
+
+                    // the address of the field is used for something other than loading and storing it
+                    if (i != addressOperand) {
+                        escaping.add(index);
+                        continue;
+                    }
+
+                    IRType type = instruction.getOpcode() == Opcode.LOAD ? instruction.getType() : instruction.getOperand(0).getType();
+
+                    fieldTypes.put(index, type);
+                    metadataMap.putIfAbsent(index, new LinkedHashMap<>(instruction.getMetadata()));
+                }
+            }
+        }
+
+        // a cast of this that may reach any field leaves all of them in memory
+        if (escaping.contains(-1)) fieldTypes.clear();
+
+        fieldTypes.keySet().removeAll(escaping);
+
+        return fieldTypes;
+    }
+
+    // the number of elements of the struct a cast of this points to
+    static int width(Instruction cast) {
+        return cast.getType().getElementType().getElementTypes().size();
+    }
+
+    // the position of the address in a load or a store, -1 for anything else
+    static int addressOperand(Instruction instruction) {
+
+        if (instruction.getOpcode() == Opcode.LOAD) return 0;
+        if (instruction.getOpcode() == Opcode.STORE) return 1;
+
+        return -1;
+    }
+
+    // the index of the field of this a value points to, -1 if it is not a field of this
+    int thisFieldIndex(Value value) {
+
+        if (!isFieldPointer(value) || !thisCasts.contains(((Instruction) value).getOperand(0))) return -1;
+
+        return (int) ((ConstantInt) ((Instruction) value).getOperand(2)).getValue();
+    }
+
+    // getelementptr of a field of an object, i32 0, i32 index on the struct of a class
+    static boolean isFieldPointer(Value value) {
+
+        if (!(value instanceof Instruction)) return false;
+
+        Instruction instruction = (Instruction) value;
+
+        return instruction.getOpcode() == Opcode.GETELEMENTPTR && instruction.getOperationType().isStruct()
+                && instruction.getNumOperands() == 3 && instruction.getOperand(2) instanceof ConstantInt;
+    }
+
+    /**
+     * Places the write backs and the loads of the fields.
+     * A field may be dirty after a store to its slot, the write backs and the loads of the field make it clean.
+     * The dirty fields at the start of every block are found with a forward data flow over the blocks first.
+     */
+    void insertWriteBacks(Function function) {
+
+        Map<BasicBlock, List<BasicBlock>> predecessorsMap = ControlFlowGraph.predecessors(function);
+
+        Map<BasicBlock, BitSet> dirtyOnEntry = new HashMap<>();
+        Map<BasicBlock, BitSet> dirtyOnExit = new HashMap<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+            dirtyOnEntry.put(block, new BitSet());
+            dirtyOnExit.put(block, new BitSet());
+        }
+
+        Deque<BasicBlock> worklist = new ArrayDeque<>(function.getBlocks());
+        Set<BasicBlock> queued = new HashSet<>(function.getBlocks());
+
+        while (!worklist.isEmpty()) {
+
+            BasicBlock block = worklist.poll();
+            queued.remove(block);
+
+            BitSet dirty = new BitSet();
+
+            for (BasicBlock predecessor : predecessorsMap.get(block)) {
+                dirty.or(dirtyOnExit.get(predecessor));
+            }
+
+            dirtyOnEntry.put(block, (BitSet) dirty.clone());
+
+            visit(block, dirty, false);
+
+            if (dirty.equals(dirtyOnExit.get(block))) continue;
+
+            dirtyOnExit.put(block, dirty);
+
+            for (BasicBlock successor : block.getSuccessors()) {
+                if (queued.add(successor)) worklist.add(successor);
+            }
+        }
+
+        for (BasicBlock block : function.getBlocks()) {
+            visit(block, dirtyOnEntry.get(block), true);
+        }
+    }
+
+    // follows the dirty fields through the block, adding the write backs and the loads if asked to
+    void visit(BasicBlock block, BitSet dirty, boolean insert) {
+
+        List<Instruction> instructions = block.getInstructions();
+
+        for (int i = 0; i < instructions.size(); i++) {
+
+            Instruction instruction = instructions.get(i);
+
+            if (syncInstructions.contains(instruction)) continue;
+
+            // a store to a slot
+            if (instruction.getOpcode() == Opcode.STORE && slotFieldMap.containsKey(instruction.getOperand(1))) {
+                dirty.set(slotFieldMap.get(instruction.getOperand(1)));
+                continue;
+            }
+
+            // the called method or the caller may look at any field, and the called method may change it
+            boolean isCall = instruction.getOpcode() == Opcode.CALL && !transparent.contains(instruction.getOperand(0));
+
+            if (isCall || instruction.getOpcode() == Opcode.RET) {
+
+                if (insert) {
+
+                    for (int index = dirty.nextSetBit(0); index >= 0; index = dirty.nextSetBit(index + 1)) {
+                        i += writeBack(block, i, index);
+                    }
+
+                    if (isCall) {
+                        for (int index : slotMap.keySet()) {
+                            reload(block, i + 1, index);
+                        }
+                    }
+                }
+
+                dirty.clear();
+                continue;
+            }
+
+            // the same field of another object, which may be this
+            int addressOperand = addressOperand(instruction);
+
+            if (addressOperand < 0 || !isFieldPointer(instruction.getOperand(addressOperand))) continue;
+
+            int index = (int) ((ConstantInt) ((Instruction) instruction.getOperand(addressOperand)).getOperand(2)).getValue();
+
+            if (!slotMap.containsKey(index)) continue;
+
+            if (insert) {
+
+                if (dirty.get(index)) i += writeBack(block, i, index);
+
+                if (instruction.getOpcode() == Opcode.STORE) reload(block, i + 1, index);
+            }
+
+            dirty.clear(index);
+        }
+    }
+
+    // store the value of the slot to the field at the position, returns the number of instructions added
+    int writeBack(BasicBlock block, int position, int index) {
+
+        Instruction slot = slotMap.get(index);
+
+        Instruction value = new Instruction(Opcode.LOAD, slot.getOperationType(), slot);
+        Instruction store = new Instruction(Opcode.STORE, IRType.VOID, value, pointerMap.get(index));
+
+        return sync(block, position, index, value, store, store);
+    }
+
+    // load the value of the field to the slot at the position, returns the number of instructions added
+    int reload(BasicBlock block, int position, int index) {
+
+        Instruction slot = slotMap.get(index);
+
+        Instruction value = new Instruction(Opcode.LOAD, slot.getOperationType(), pointerMap.get(index));
+        Instruction store = new Instruction(Opcode.STORE, IRType.VOID, value, slot);
+
+        return sync(block, position, index, value, store, value);
+    }
+
+    // the access of the field keeps the metadata of the accesses it stands for
+    int sync(BasicBlock block, int position, int index, Instruction value, Instruction store, Instruction fieldAccess) {
+
+        for (Map.Entry<String, Metadata> entry : metadataMap.get(index).entrySet()) {
+            fieldAccess.setMetadata(entry.getKey(), entry.getValue());
+        }
+
+        syncInstructions.add(value);
+        syncInstructions.add(store);
+
+        block.insert(position, value);
+        block.insert(position + 1, store);
+
+        return 2;
+    }
+}
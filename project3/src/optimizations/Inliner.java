@@ -0,0 +1,250 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces the direct calls of small methods that call no other method with a copy of their body.
+ * The call block is split at the call, the blocks of the method are copied in between with their labels
+ * prefixed by the number of the inlining, the arguments take the place of the parameters and the returns
+ * jump to the second half of the split block, where the returned value takes the place of the call.
+ */
+public class Inliner {
+
+    // the most instructions a method can have to be inlined, enough for getters, setters and small computations
+    public static final int INLINE_BUDGET = 12;
+
+    // the functions of the methods, the runtime functions are never inlined
+    Set<Function> methods;
+
+    // number of the next inlining in the current function, keeps the copied labels apart
+    int inlineCounter;
+
+    public Inliner(Set<Function> methods) {
+        this.methods = methods;
+    }
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        // the numbering goes on after the inlinings of earlier runs, i.e. the arena allocator after the methods
+        inlineCounter = 0;
+
+        for (BasicBlock block : function.getBlocks()) {
+            inlineCounter = Math.max(inlineCounter, inlineNumber(block.getName()) + 1);
+        }
+
+        // the blocks are split while they are walked, the index goes over the new blocks too
+        for (int b = 0; b < function.getBlocks().size(); b++) {
+
+            BasicBlock block = function.getBlocks().get(b);
+
+            for (int i = 0; i < block.getInstructions().size(); i++) {
+
+                Instruction instruction = block.getInstructions().get(i);
+
+                if (instruction.getOpcode() != Opcode.CALL || !(instruction.getOperand(0) instanceof Function)) continue;
+
+                Function callee = (Function) instruction.getOperand(0);
+
+                if (callee == function || !isInlinable(callee)) continue;
+
+                inline(function, block, i, callee);
+
+                // the rest of the block was moved to the exit block, which is looked at next
+                break;
+            }
+        }
+
+        function.renumber();
+    }
+
+    // the number of the inlining a copied label comes from, -1 for the labels of the function itself
+    static int inlineNumber(String label) {
+
+        if (!label.startsWith("inline")) return -1;
+
+        int end = label.indexOf('.');
+
+        try {
+            return end < 0 ? -1 : Integer.parseInt(label.substring("inline".length(), end));
+        }
+        catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    // a small method that calls no other method
+    boolean isInlinable(Function function) {
+
+        if (!methods.contains(function) || function.isDeclaration()) return false;
+
+        int size = 0;
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                // calls of other methods would make the copies grow and could recurse
+                if (instruction.getOpcode() == Opcode.CALL && methods.contains(instruction.getOperand(0))) return false;
+
+                // so would calls through the vtable
+                if (instruction.getOpcode() == Opcode.CALL && !(instruction.getOperand(0) instanceof Function)) return false;
+
+                // the copies of the allocas would not be in the entry block of the caller
+                if (instruction.getOpcode() == Opcode.ALLOCA) return false;
+
+                if (!instruction.isTerminator() && instruction.getOpcode() != Opcode.PHI) size++;
+            }
+        }
+
+        return size <= INLINE_BUDGET;
+    }
+
+    void inline(Function caller, BasicBlock block, int callIndex, Function callee) {
+
+        String prefix = "inline" + inlineCounter++ + ".";
+
+        Instruction call = block.getInstructions().get(callIndex);
+
+        IRBuilder builder = new IRBuilder(caller);
+
+        // the instructions after the call continue in the exit block
+        BasicBlock exit = builder.newBlock(prefix + "exit");
+
+        List<Instruction> rest = new ArrayList<>(block.getInstructions().subList(callIndex + 1, block.getInstructions().size()));
+        block.getInstructions().subList(callIndex, block.getInstructions().size()).clear();
+
+        for (Instruction instruction : rest) {
+            exit.add(instruction);
+        }
+
+        // the successors are now reached from the exit block
+        for (BasicBlock successor : exit.getSuccessors()) {
+            for (Instruction instruction : successor.getInstructions()) {
+
+                if (instruction.getOpcode() != Opcode.PHI) break;
+
+                for (int i = 0; i < instruction.getNumIncoming(); i++) {
+                    if (instruction.getIncomingBlock(i) == block) instruction.setOperand(2 * i + 1, exit);
+                }
+            }
+        }
+
+        // the copies of the values and the blocks of the callee
+        Map<Value, Value> valueMap = new IdentityHashMap<>();
+
+        for (int i = 0; i < callee.getArguments().size(); i++) {
+            valueMap.put(callee.getArgument(i), call.getOperand(i + 1));
+        }
+
+        List<BasicBlock> copies = new ArrayList<>();
+
+        for (BasicBlock calleeBlock : callee.getBlocks()) {
+
+            BasicBlock copy = builder.newBlock(prefix + calleeBlock.getName());
+
+            valueMap.put(calleeBlock, copy);
+            copies.add(copy);
+        }
+
+        // the values returned and the blocks they are returned from
+        List<Value> returnedValues = new ArrayList<>();
+        List<BasicBlock> returningBlocks = new ArrayList<>();
+        List<Instruction> clones = new ArrayList<>();
+
+        for (int b = 0; b < callee.getBlocks().size(); b++) {
+
+            BasicBlock copy = copies.get(b);
+
+            for (Instruction instruction : callee.getBlocks().get(b).getInstructions()) {
+
+                // a return jumps to the exit block
+                if (instruction.getOpcode() == Opcode.RET) {
+
+                    if (instruction.getNumOperands() == 1) {
+                        returnedValues.add(instruction.getOperand(0));
+                        returningBlocks.add(copy);
+                    }
+
+                    copy.add(new Instruction(Opcode.BR, IRType.VOID, exit));
+                    continue;
+                }
+
+                Instruction clone = new Instruction(instruction.getOpcode(), instruction.getType());
+
+                for (Value operand : instruction.getOperands()) {
+                    clone.getOperands().add(operand);
+                }
+
+                clone.setPredicate(instruction.getPredicate());
+                clone.setOperationType(instruction.getOperationType());
+                clone.setComment(instruction.getComment());
+                clone.setCallingConvention(instruction.getCallingConvention());
+                clone.getMetadata().putAll(instruction.getMetadata());
+
+                if (instruction.getName() != null) clone.setName(prefix + instruction.getName());
+
+                valueMap.put(instruction, clone);
+                copy.add(clone);
+                clones.add(clone);
+            }
+        }
+
+        // the operands of the copies are the copies of the operands, a value used before its definition is copied already
+        for (Instruction clone : clones) {
+            for (int i = 0; i < clone.getNumOperands(); i++) {
+                if (valueMap.containsKey(clone.getOperand(i))) clone.setOperand(i, valueMap.get(clone.getOperand(i)));
+            }
+        }
+
+        // the call block jumps into the copy of the callee
+        block.add(new Instruction(Opcode.BR, IRType.VOID, copies.get(0)));
+
+        int position = caller.getBlocks().indexOf(block) + 1;
+
+        caller.getBlocks().addAll(position, copies);
+        caller.getBlocks().add(position + copies.size(), exit);
+
+        // the returned value takes the place of the call
+        Value result = null;
+
+        if (returnedValues.size() == 1) {
+            result = mapped(returnedValues.get(0), valueMap);
+        }
+        else if (returnedValues.size() > 1) {
+
+            Instruction phi = new Instruction(Opcode.PHI, call.getType());
+
+            for (int i = 0; i < returnedValues.size(); i++) {
+                phi.addIncoming(mapped(returnedValues.get(i), valueMap), returningBlocks.get(i));
+            }
+
+            exit.insert(0, phi);
+            result = phi;
+        }
+
+        if (result != null) {
+
+            Map<Value, Value> replacements = new HashMap<>();
+            replacements.put(call, result);
+
+            caller.replaceAllUses(replacements);
+        }
+    }
+
+    static Value mapped(Value value, Map<Value, Value> valueMap) {
+        return valueMap.containsKey(value) ? valueMap.get(value) : value;
+    }
+}
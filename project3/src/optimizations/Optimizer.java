@@ -0,0 +1,107 @@
+package optimizations;
+
+import compilationcontext.CompilationContext;
+import compilationcontext.CompilerOptions;
+import ir.Function;
+import ir.IRModule;
+import irgeneration.BuildTools;
+import irgeneration.DispatchEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// runs the passes asked for in the options on the module of a file
+public class Optimizer {
+
+    // the module and the options of the file being compiled
+    IRModule module;
+    CompilerOptions options;
+
+    // the functions of the methods of the classes, the only ones the inliner copies
+    Set<Function> methods = new HashSet<>();
+
+    // the function the objects and the arrays are allocated with, and the arena allocator if it is used
+    Function allocate;
+    Function arenaAlloc;
+
+    // the runtime functions that never look at the objects, calls of them do not write the fields kept in registers back
+    Set<Function> transparent = new HashSet<>();
+
+    // the name of the memset intrinsic the stack allocations are cleared with
+    String memsetName;
+
+    public Optimizer(CompilationContext context) {
+        this.module = context.getBuildTools().module;
+        this.options = context.getOptions();
+        this.allocate = context.getBuildTools().allocate;
+        this.arenaAlloc = context.getBuildTools().arenaAlloc;
+        this.memsetName = context.getBuildTools().getMemsetName();
+
+        BuildTools buildTools = context.getBuildTools();
+
+        for (Function function : Arrays.asList(buildTools.calloc, buildTools.write, buildTools.exit, buildTools.memset, buildTools.flushOutput,
+                buildTools.printInt, buildTools.throwOob, buildTools.throwNsz, buildTools.arenaAlloc, buildTools.arenaRefill)) {
+            if (function != null) transparent.add(function);
+        }
+
+        for (Map<String, DispatchEntry> dispatchTable : context.getBuildTools().dispatchTableMap.values()) {
+            for (DispatchEntry entry : dispatchTable.values()) {
+                methods.add(entry.getFunction());
+            }
+        }
+    }
+
+    public void run() {
+
+        // locals and parameters in registers instead of stack slots
+        if (options.getPromoteLocals()) new PromoteMemoryToRegister().run(module);
+
+        if (options.getOptimizationLevel() >= 1) {
+
+            // fold the constants and remove the branches never taken
+            new SparseConditionalConstantPropagation().run(module);
+
+            // remove what the folding left unused and merge the blocks of the removed branches
+            new DeadCodeElimination().run(module);
+            new SimplifyControlFlow().run(module);
+
+            // copy the small methods called directly into their callers, and fold what the arguments make constant
+            new Inliner(methods).run(module);
+            new SparseConditionalConstantPropagation().run(module);
+            new DeadCodeElimination().run(module);
+            new SimplifyControlFlow().run(module);
+
+            // keep the fields of this in registers inside the methods, the inlined methods called on this included
+            new FieldScalarReplacement(methods, transparent).run(module);
+
+            // remove the array index checks the loop conditions prove, and clean up the branches of the checks
+            new BoundsCheckElimination(allocate).run(module);
+            new SparseConditionalConstantPropagation().run(module);
+            new DeadCodeElimination().run(module);
+            new SimplifyControlFlow().run(module);
+
+            // objects and arrays that never leave their method go to the stack
+            // not with the collector, it does not look for pointers in objects on the stack
+            if (!options.getGarbageCollection()) new EscapeAnalysis(allocate, memsetName).run(module);
+        }
+
+        // the fast path of the arena allocator goes into every allocation, the refilling stays a call
+        if (arenaAlloc != null) {
+
+            new Inliner(Collections.singleton(arenaAlloc)).run(module);
+
+            // the sizes of the objects are constants, fold the rounding
+            if (options.getOptimizationLevel() >= 1) {
+                new SparseConditionalConstantPropagation().run(module);
+                new DeadCodeElimination().run(module);
+                new SimplifyControlFlow().run(module);
+            }
+        }
+
+        // with opaque pointers the casts between pointers are not needed
+        if (options.getOpaquePointers()) new PointerCastElimination().run(module);
+    }
+}
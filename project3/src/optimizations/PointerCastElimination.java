@@ -0,0 +1,53 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes the bitcast instructions for the opaque pointer output, where every pointer is a ptr and the cast of
+ * a pointer is the pointer itself. Loads, getelementptr and calls write the types they work with themselves,
+ * so they need nothing from the type of the pointer they are given.
+ * Runs after every other pass, the types of the pointers in the module do not match after it.
+ */
+public class PointerCastElimination {
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        // every cast is replaced by the pointer it casts
+        Map<Value, Value> replacements = new HashMap<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+
+            List<Instruction> instructions = block.getInstructions();
+
+            for (int i = 0; i < instructions.size(); i++) {
+
+                Instruction instruction = instructions.get(i);
+
+                if (instruction.getOpcode() != Opcode.BITCAST) continue;
+
+                replacements.put(instruction, instruction.getOperand(0));
+
+                // the comment of the cast goes to the next instruction, the block always ends with a terminator
+                Instruction next = instructions.get(i + 1);
+
+                if (instruction.getComment() != null && next.getComment() == null) next.setComment(instruction.getComment());
+            }
+
+            instructions.removeIf(instruction -> instruction.getOpcode() == Opcode.BITCAST);
+        }
+
+        function.replaceAllUses(replacements);
+        function.renumber();
+    }
+}
@@ -0,0 +1,310 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns the stack slots of the local variables and the parameters into SSA values.
+ * Phis are placed at the iterated dominance frontiers of the blocks storing to a slot,
+ * then the loads are replaced by the value reaching them while walking down the dominator tree.
+ * Phis nothing uses are removed at the end, so a phi is only left where a variable really merges.
+ */
+public class PromoteMemoryToRegister {
+
+    /**
+     * Stack slot to blocks map
+     * Usage : promoted alloca (Instruction object) -> blocks storing to it (set of BasicBlock objects)
+     */
+    Map<Instruction, Set<BasicBlock>> definingBlocksMap = new LinkedHashMap<>();
+
+    /**
+     * Phi to stack slot map
+     * Usage : inserted phi (Instruction object) -> the alloca it merges the values of (Instruction object)
+     */
+    Map<Instruction, Instruction> phiSlotMap = new IdentityHashMap<>();
+
+    /**
+     * Replaced value map
+     * Usage : removed load (Instruction object) -> the value it read (Value object)
+     */
+    Map<Value, Value> replacements = new HashMap<>();
+
+    // the tree of the function being promoted
+    DominatorTree dominatorTree;
+
+    // the only slots to promote, null for every alloca of the entry block
+    Set<Instruction> slots;
+
+    public PromoteMemoryToRegister() {}
+
+    public PromoteMemoryToRegister(Set<Instruction> slots) {
+        this.slots = slots;
+    }
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        definingBlocksMap.clear();
+        phiSlotMap.clear();
+        replacements.clear();
+
+        // blocks that can not be reached would use values that are never defined
+        ControlFlowGraph.removeUnreachableBlocks(function);
+
+        findPromotableSlots(function);
+
+        if (definingBlocksMap.isEmpty()) return;
+
+        dominatorTree = new DominatorTree(function);
+
+        insertPhis();
+
+        // the value of every slot on entry, a variable read before it is written is zero like a field
+        Map<Instruction, Value> currentValues = new HashMap<>();
+
+        for (Instruction slot : definingBlocksMap.keySet()) {
+            currentValues.put(slot, zero(slot.getOperationType()));
+        }
+
+        rename(dominatorTree.getRoot(), currentValues);
+
+        // the loads are gone, their users take the value they read
+        function.replaceAllUses(replacements);
+
+        for (BasicBlock block : function.getBlocks()) {
+            block.getInstructions().removeIf(instruction -> isSlotAccess(instruction) || definingBlocksMap.containsKey(instruction));
+        }
+
+        removeDeadPhis(function);
+
+        function.renumber();
+    }
+
+    // a slot can be promoted if it is only loaded and stored to, the address never escapes
+    void findPromotableSlots(Function function) {
+
+        Set<Instruction> escaping = new HashSet<>();
+
+        for (Instruction instruction : function.getEntryBlock().getInstructions()) {
+            if (instruction.getOpcode() == Opcode.ALLOCA && (slots == null || slots.contains(instruction))) {
+                definingBlocksMap.put(instruction, new HashSet<>());
+            }
+        }
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                for (int i = 0; i < instruction.getNumOperands(); i++) {
+
+                    Value operand = instruction.getOperand(i);
+
+                    if (!definingBlocksMap.containsKey(operand)) continue;
+
+                    // only the address operand of loads and stores is fine
+                    boolean isAddress = (instruction.getOpcode() == Opcode.LOAD && i == 0) || (instruction.getOpcode() == Opcode.STORE && i == 1);
+
+                    if (!isAddress) escaping.add((Instruction) operand);
+                }
+
+                if (instruction.getOpcode() == Opcode.STORE && definingBlocksMap.containsKey(instruction.getOperand(1))) {
+                    definingBlocksMap.get(instruction.getOperand(1)).add(block);
+                }
+            }
+        }
+
+        definingBlocksMap.keySet().removeAll(escaping);
+    }
+
+    // a load or store of a promoted slot
+    boolean isSlotAccess(Instruction instruction) {
+
+        if (instruction.getOpcode() == Opcode.LOAD) return definingBlocksMap.containsKey(instruction.getOperand(0));
+        if (instruction.getOpcode() == Opcode.STORE) return definingBlocksMap.containsKey(instruction.getOperand(1));
+
+        return false;
+    }
+
+    // a phi for the slot in every block of the iterated dominance frontier of the blocks storing to it
+    void insertPhis() {
+
+        for (Map.Entry<Instruction, Set<BasicBlock>> entry : definingBlocksMap.entrySet()) {
+
+            Instruction slot = entry.getKey();
+
+            Set<BasicBlock> hasPhi = new HashSet<>();
+            Deque<BasicBlock> worklist = new ArrayDeque<>(entry.getValue());
+
+            while (!worklist.isEmpty()) {
+
+                BasicBlock block = worklist.poll();
+
+                if (!dominatorTree.isReachable(block)) continue;
+
+                for (BasicBlock frontierBlock : dominatorTree.getFrontier(block)) {
+
+                    if (!hasPhi.add(frontierBlock)) continue;
+
+                    Instruction phi = new Instruction(Opcode.PHI, slot.getOperationType());
+                    frontierBlock.insert(0, phi);
+                    phiSlotMap.put(phi, slot);
+
+                    // the phi is a new definition of the variable
+                    worklist.add(frontierBlock);
+                }
+            }
+        }
+    }
+
+    // walk down the dominator tree keeping the value of every slot at the current point
+    void rename(BasicBlock root, Map<Instruction, Value> rootValues) {
+
+        // iterative to keep deep nesting off the java stack, every block gets a copy of the values of its dominator
+        Deque<BasicBlock> blocks = new ArrayDeque<>();
+        Deque<Map<Instruction, Value>> values = new ArrayDeque<>();
+
+        blocks.push(root);
+        values.push(rootValues);
+
+        while (!blocks.isEmpty()) {
+
+            BasicBlock block = blocks.pop();
+            Map<Instruction, Value> currentValues = new HashMap<>(values.pop());
+
+            for (Instruction instruction : block.getInstructions()) {
+
+                switch (instruction.getOpcode()) {
+
+                    case PHI:
+                        if (phiSlotMap.containsKey(instruction)) currentValues.put(phiSlotMap.get(instruction), instruction);
+                        break;
+
+                    case LOAD:
+                        if (definingBlocksMap.containsKey(instruction.getOperand(0))) {
+                            replacements.put(instruction, currentValues.get(instruction.getOperand(0)));
+                        }
+                        break;
+
+                    case STORE:
+                        if (definingBlocksMap.containsKey(instruction.getOperand(1))) {
+                            currentValues.put((Instruction) instruction.getOperand(1), instruction.getOperand(0));
+                        }
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+
+            // the phis of the successors get the values leaving this block
+            for (BasicBlock successor : block.getSuccessors()) {
+                for (Instruction instruction : successor.getInstructions()) {
+
+                    if (instruction.getOpcode() != Opcode.PHI) break;
+
+                    if (phiSlotMap.containsKey(instruction)) instruction.addIncoming(currentValues.get(phiSlotMap.get(instruction)), block);
+                }
+            }
+
+            for (BasicBlock child : dominatorTree.getChildren(block)) {
+                blocks.push(child);
+                values.push(currentValues);
+            }
+        }
+    }
+
+    // removes the inserted phis that only feed other unused phis, and the phis merging a single value
+    void removeDeadPhis(Function function) {
+
+        // phis with the same value from every predecessor are that value
+        boolean changed = true;
+
+        while (changed) {
+
+            changed = false;
+            Map<Value, Value> trivial = new HashMap<>();
+
+            for (BasicBlock block : function.getBlocks()) {
+                for (Instruction instruction : block.getInstructions()) {
+
+                    if (!phiSlotMap.containsKey(instruction)) continue;
+
+                    Value single = null;
+                    boolean isTrivial = true;
+
+                    for (int i = 0; i < instruction.getNumIncoming(); i++) {
+
+                        Value incoming = instruction.getIncomingValue(i);
+
+                        if (incoming == instruction || incoming.equals(single)) continue;
+
+                        if (single != null) {
+                            isTrivial = false;
+                            break;
+                        }
+
+                        single = incoming;
+                    }
+
+                    if (isTrivial && single != null) trivial.put(instruction, single);
+                }
+            }
+
+            if (!trivial.isEmpty()) {
+
+                function.replaceAllUses(trivial);
+
+                for (BasicBlock block : function.getBlocks()) {
+                    block.getInstructions().removeIf(trivial::containsKey);
+                }
+
+                changed = true;
+            }
+        }
+
+        // the phis used by something other than an inserted phi are live, and so are the phis they use
+        Set<Instruction> live = new HashSet<>();
+        Deque<Instruction> worklist = new ArrayDeque<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+
+                if (phiSlotMap.containsKey(instruction)) continue;
+
+                for (Value operand : instruction.getOperands()) {
+                    if (phiSlotMap.containsKey(operand) && live.add((Instruction) operand)) worklist.add((Instruction) operand);
+                }
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            for (Value operand : worklist.poll().getOperands()) {
+                if (phiSlotMap.containsKey(operand) && live.add((Instruction) operand)) worklist.add((Instruction) operand);
+            }
+        }
+
+        for (BasicBlock block : function.getBlocks()) {
+            block.getInstructions().removeIf(instruction -> phiSlotMap.containsKey(instruction) && !live.contains(instruction));
+        }
+    }
+
+    // the zero value of a type, null for pointers
+    static Value zero(IRType type) {
+        return type.isPointer() ? new ConstantNull(type) : new ConstantInt(type, 0);
+    }
+}
@@ -0,0 +1,163 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cleans up the control flow left by the other passes and by the code generation.
+ * Blocks no branch reaches are removed and a block reached only by an unconditional branch
+ * is merged into the block jumping to it. The jumps to a block that only jumps on are sent straight
+ * to where it jumps, and a branch with the same block on both sides becomes a jump.
+ */
+public class SimplifyControlFlow {
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        ControlFlowGraph.removeUnreachableBlocks(function);
+
+        boolean changed = true;
+
+        while (changed) {
+
+            changed = false;
+
+            Map<BasicBlock, List<BasicBlock>> predecessorsMap = ControlFlowGraph.predecessors(function);
+
+            for (BasicBlock block : function.getBlocks()) {
+
+                List<BasicBlock> predecessors = predecessorsMap.get(block);
+
+                // a branch to the same block from both sides
+                Instruction terminator = block.getTerminator();
+
+                if (terminator.getOpcode() == Opcode.BR && terminator.getNumOperands() == 3 && terminator.getOperand(1) == terminator.getOperand(2)) {
+
+                    block.set(block.getInstructions().size() - 1, new Instruction(Opcode.BR, IRType.VOID, terminator.getOperand(1)));
+
+                    changed = true;
+                    break;
+                }
+
+                if (block == function.getEntryBlock() || predecessors.isEmpty()) continue;
+
+                // a block that only jumps on
+                if (block.getInstructions().size() == 1 && terminator.getOpcode() == Opcode.BR && terminator.getNumOperands() == 1
+                        && threadJumps(function, block, predecessors, predecessorsMap.get((BasicBlock) terminator.getOperand(0)))) {
+
+                    changed = true;
+                    break;
+                }
+
+                if (predecessors.size() != 1) continue;
+
+                BasicBlock predecessor = predecessors.get(0);
+                Instruction branch = predecessor.getTerminator();
+
+                // only a jump that always goes to this block
+                if (predecessor == block || branch.getNumOperands() != 1) continue;
+
+                mergeInto(function, predecessor, block);
+
+                changed = true;
+                break;
+            }
+        }
+
+        function.renumber();
+    }
+
+    // sends the predecessors of an empty block straight to its successor and removes it, false if the phis of the successor can not tell them apart
+    boolean threadJumps(Function function, BasicBlock block, List<BasicBlock> predecessors, List<BasicBlock> successorPredecessors) {
+
+        BasicBlock successor = (BasicBlock) block.getTerminator().getOperand(0);
+
+        if (successor == block) return false;
+
+        // a predecessor already jumping to the successor would need two values in the same phi
+        boolean hasPhis = successor.getInstructions().get(0).getOpcode() == Opcode.PHI;
+
+        for (BasicBlock predecessor : predecessors) {
+            if (hasPhis && successorPredecessors.contains(predecessor)) return false;
+        }
+
+        for (BasicBlock predecessor : predecessors) {
+
+            Instruction branch = predecessor.getTerminator();
+
+            for (int i = 0; i < branch.getNumOperands(); i++) {
+                if (branch.getOperand(i) == block) branch.setOperand(i, successor);
+            }
+        }
+
+        // the value that came through the block comes from each of its predecessors
+        for (Instruction instruction : successor.getInstructions()) {
+
+            if (instruction.getOpcode() != Opcode.PHI) break;
+
+            for (int i = 0; i < instruction.getNumIncoming(); i++) {
+
+                if (instruction.getIncomingBlock(i) != block) continue;
+
+                Value value = instruction.getIncomingValue(i);
+
+                instruction.setOperand(2 * i + 1, predecessors.get(0));
+
+                for (int j = 1; j < predecessors.size(); j++) {
+                    instruction.addIncoming(value, predecessors.get(j));
+                }
+
+                break;
+            }
+        }
+
+        function.getBlocks().remove(block);
+
+        return true;
+    }
+
+    // moves the instructions of the block to the end of its only predecessor
+    void mergeInto(Function function, BasicBlock predecessor, BasicBlock block) {
+
+        Map<Value, Value> replacements = new HashMap<>();
+
+        // the branch of the predecessor is not needed anymore
+        predecessor.getInstructions().remove(predecessor.getInstructions().size() - 1);
+
+        for (Instruction instruction : block.getInstructions()) {
+
+            // a phi with a single predecessor is the value coming from it
+            if (instruction.getOpcode() == Opcode.PHI) {
+                replacements.put(instruction, instruction.getIncomingValue(0));
+                continue;
+            }
+
+            predecessor.add(instruction);
+        }
+
+        function.getBlocks().remove(block);
+
+        // the successors are now reached from the predecessor
+        for (BasicBlock successor : predecessor.getSuccessors()) {
+            for (Instruction instruction : successor.getInstructions()) {
+
+                if (instruction.getOpcode() != Opcode.PHI) break;
+
+                for (int i = 0; i < instruction.getNumIncoming(); i++) {
+                    if (instruction.getIncomingBlock(i) == block) instruction.setOperand(2 * i + 1, predecessor);
+                }
+            }
+        }
+
+        function.replaceAllUses(replacements);
+    }
+}
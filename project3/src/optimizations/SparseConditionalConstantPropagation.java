@@ -0,0 +1,350 @@
+package optimizations;
+
+import ir.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sparse conditional constant propagation of Wegman and Zadeck.
+ * Every value starts unknown and only moves down to a constant and then to overdefined, a block is only looked at
+ * once a branch that can be taken reaches it, so constants flowing around loops and branches that are never taken
+ * are found together. The constant values are folded into their users and the branches never taken are removed.
+ */
+public class SparseConditionalConstantPropagation {
+
+    /**
+     * Value to constant map
+     * Usage : instruction (Instruction object) -> the only value it can have (ConstantInt object)
+     */
+    Map<Instruction, ConstantInt> constantMap = new HashMap<>();
+
+    // the instructions that can have more than one value
+    Set<Instruction> overdefined = new HashSet<>();
+
+    // the blocks some executable branch reaches
+    Set<BasicBlock> executableBlocks = new HashSet<>();
+
+    /**
+     * Executable edges map
+     * Usage : basic block (BasicBlock object) -> successors the block can jump to (set of BasicBlock objects)
+     */
+    Map<BasicBlock, Set<BasicBlock>> executableEdgesMap = new HashMap<>();
+
+    /**
+     * Value to users map
+     * Usage : instruction (Instruction object) -> instructions using its result (list of Instruction objects)
+     */
+    Map<Instruction, List<Instruction>> usersMap = new HashMap<>();
+
+    // the edges and the instructions that have to be looked at again
+    Deque<BasicBlock[]> edgeWorklist = new ArrayDeque<>();
+    Deque<Instruction> instructionWorklist = new ArrayDeque<>();
+
+    public void run(IRModule module) {
+
+        for (Function function : module.getFunctions()) {
+            if (!function.isDeclaration()) run(function);
+        }
+    }
+
+    public void run(Function function) {
+
+        constantMap.clear();
+        overdefined.clear();
+        executableBlocks.clear();
+        executableEdgesMap.clear();
+        usersMap.clear();
+
+        for (BasicBlock block : function.getBlocks()) {
+            for (Instruction instruction : block.getInstructions()) {
+                for (Value operand : instruction.getOperands()) {
+                    if (operand instanceof Instruction) usersMap.computeIfAbsent((Instruction) operand, key -> new ArrayList<>()).add(instruction);
+                }
+            }
+        }
+
+        markBlockExecutable(function.getEntryBlock());
+
+        while (!edgeWorklist.isEmpty() || !instructionWorklist.isEmpty()) {
+
+            while (!edgeWorklist.isEmpty()) {
+
+                BasicBlock[] edge = edgeWorklist.poll();
+
+                // a block reached for the first time is looked at whole, after that only its phis can change
+                if (executableBlocks.contains(edge[1])) {
+                    for (Instruction instruction : edge[1].getInstructions()) {
+                        if (instruction.getOpcode() == Opcode.PHI) visit(instruction);
+                    }
+                }
+                else {
+                    markBlockExecutable(edge[1]);
+                }
+            }
+
+            while (!instructionWorklist.isEmpty()) {
+
+                Instruction instruction = instructionWorklist.poll();
+
+                if (executableBlocks.contains(instruction.getParent())) visit(instruction);
+            }
+        }
+
+        rewrite(function);
+    }
+
+    void markBlockExecutable(BasicBlock block) {
+
+        executableBlocks.add(block);
+
+        for (Instruction instruction : block.getInstructions()) {
+            visit(instruction);
+        }
+    }
+
+    void markEdgeExecutable(BasicBlock from, BasicBlock to) {
+
+        if (executableEdgesMap.computeIfAbsent(from, key -> new HashSet<>()).add(to)) {
+            edgeWorklist.add(new BasicBlock[] { from, to });
+        }
+    }
+
+    boolean isEdgeExecutable(BasicBlock from, BasicBlock to) {
+        return executableEdgesMap.getOrDefault(from, new HashSet<>()).contains(to);
+    }
+
+    // the constant of a value, null if it is unknown or overdefined
+    ConstantInt constantOf(Value value) {
+
+        if (value instanceof ConstantInt) return (ConstantInt) value;
+        if (value instanceof Instruction) return constantMap.get(value);
+
+        return null;
+    }
+
+    // the constant of a value if it has one, the value itself otherwise
+    Value valueOf(Value value) {
+
+        ConstantInt constant = constantOf(value);
+
+        return constant != null ? constant : value;
+    }
+
+    // arguments, globals and instructions that were found to have many values
+    boolean isOverdefined(Value value) {
+
+        if (value instanceof ConstantInt) return false;
+        if (value instanceof Instruction) return overdefined.contains(value);
+
+        return true;
+    }
+
+    void markOverdefined(Instruction instruction) {
+        if (overdefined.add(instruction)) {
+            constantMap.remove(instruction);
+            instructionWorklist.addAll(usersMap.getOrDefault(instruction, new ArrayList<>()));
+        }
+    }
+
+    void markConstant(Instruction instruction, ConstantInt constant) {
+
+        if (overdefined.contains(instruction)) return;
+
+        ConstantInt previous = constantMap.get(instruction);
+
+        // a value that was a different constant has more than one value
+        if (previous != null && !previous.equals(constant)) {
+            markOverdefined(instruction);
+            return;
+        }
+
+        if (previous == null) {
+            constantMap.put(instruction, constant);
+            instructionWorklist.addAll(usersMap.getOrDefault(instruction, new ArrayList<>()));
+        }
+    }
+
+    void visit(Instruction instruction) {
+
+        Opcode opcode = instruction.getOpcode();
+
+        if (opcode == Opcode.BR) {
+            visitBranch(instruction);
+            return;
+        }
+
+        if (!instruction.hasResult() || overdefined.contains(instruction)) return;
+
+        if (opcode == Opcode.PHI) {
+            visitPhi(instruction);
+            return;
+        }
+
+        // memory, calls and casts of pointers have values we can not know
+        if (!ConstantFolder.canFold(opcode)) {
+            markOverdefined(instruction);
+            return;
+        }
+
+        // a select with a known condition is the value it picks
+        if (opcode == Opcode.SELECT && constantOf(instruction.getOperand(0)) != null) {
+
+            Value picked = instruction.getOperand(constantOf(instruction.getOperand(0)).getValue() != 0 ? 1 : 2);
+
+            if (isOverdefined(picked)) markOverdefined(instruction);
+            else if (constantOf(picked) != null) markConstant(instruction, constantOf(picked));
+
+            return;
+        }
+
+        ConstantInt[] operands = new ConstantInt[instruction.getNumOperands()];
+
+        for (int i = 0; i < operands.length; i++) {
+
+            if (isOverdefined(instruction.getOperand(i))) {
+                markOverdefined(instruction);
+                return;
+            }
+
+            operands[i] = constantOf(instruction.getOperand(i));
+
+            // an operand is not known yet, wait for it
+            if (operands[i] == null) return;
+        }
+
+        ConstantInt result = ConstantFolder.fold(instruction, operands);
+
+        if (result == null) markOverdefined(instruction);
+        else markConstant(instruction, result);
+    }
+
+    void visitBranch(Instruction branch) {
+
+        BasicBlock block = branch.getParent();
+
+        // unconditional branch
+        if (branch.getNumOperands() == 1) {
+            markEdgeExecutable(block, (BasicBlock) branch.getOperand(0));
+            return;
+        }
+
+        Value condition = branch.getOperand(0);
+        ConstantInt constant = constantOf(condition);
+
+        if (constant != null) {
+            markEdgeExecutable(block, (BasicBlock) branch.getOperand(constant.getValue() != 0 ? 1 : 2));
+        }
+        else if (isOverdefined(condition)) {
+            markEdgeExecutable(block, (BasicBlock) branch.getOperand(1));
+            markEdgeExecutable(block, (BasicBlock) branch.getOperand(2));
+        }
+    }
+
+    void visitPhi(Instruction phi) {
+
+        ConstantInt merged = null;
+
+        // meet of the values coming from the edges that can be taken
+        for (int i = 0; i < phi.getNumIncoming(); i++) {
+
+            if (!isEdgeExecutable(phi.getIncomingBlock(i), phi.getParent())) continue;
+
+            Value incoming = phi.getIncomingValue(i);
+
+            if (isOverdefined(incoming)) {
+                markOverdefined(phi);
+                return;
+            }
+
+            ConstantInt constant = constantOf(incoming);
+
+            if (constant == null) continue;
+
+            if (merged != null && !merged.equals(constant)) {
+                markOverdefined(phi);
+                return;
+            }
+
+            merged = constant;
+        }
+
+        if (merged != null) markConstant(phi, merged);
+    }
+
+    // fold the constants and remove the branches that are never taken
+    void rewrite(Function function) {
+
+        Map<Value, Value> replacements = new HashMap<>();
+
+        for (BasicBlock block : function.getBlocks()) {
+
+            if (!executableBlocks.contains(block)) continue;
+
+            List<Instruction> instructions = block.getInstructions();
+
+            for (int i = 0; i < instructions.size(); i++) {
+
+                Instruction instruction = instructions.get(i);
+
+                // the constants are used directly, folded instructions have no side effects
+                if (constantMap.containsKey(instruction)) {
+                    replacements.put(instruction, constantMap.get(instruction));
+                    instructions.remove(i--);
+                    continue;
+                }
+
+                // an operation with a constant that does nothing is its other operand
+                if (instruction.getOpcode().isBinary()) {
+
+                    Value simplified = ConstantFolder.simplify(instruction.getOpcode(), valueOf(instruction.getOperand(0)), valueOf(instruction.getOperand(1)));
+
+                    if (simplified != null) {
+                        replacements.put(instruction, simplified);
+                        instructions.remove(i--);
+                        continue;
+                    }
+                }
+
+                // the incoming values of edges never taken are gone
+                if (instruction.getOpcode() == Opcode.PHI) {
+                    for (int j = instruction.getNumIncoming() - 1; j >= 0; j--) {
+                        if (!isEdgeExecutable(instruction.getIncomingBlock(j), block)) instruction.removeIncoming(j);
+                    }
+
+                    if (instruction.getNumIncoming() == 1) {
+                        replacements.put(instruction, instruction.getIncomingValue(0));
+                        instructions.remove(i--);
+                    }
+                    continue;
+                }
+
+                // a branch that can only go one way jumps there
+                if (instruction.getOpcode() == Opcode.BR && instruction.getNumOperands() == 3) {
+
+                    BasicBlock trueTarget = (BasicBlock) instruction.getOperand(1);
+                    BasicBlock falseTarget = (BasicBlock) instruction.getOperand(2);
+
+                    boolean trueTaken = isEdgeExecutable(block, trueTarget);
+                    boolean falseTaken = isEdgeExecutable(block, falseTarget);
+
+                    if (trueTaken != falseTaken) {
+                        block.set(i, new Instruction(Opcode.BR, IRType.VOID, trueTaken ? trueTarget : falseTarget));
+                    }
+                }
+            }
+        }
+
+        function.replaceAllUses(replacements);
+
+        ControlFlowGraph.removeUnreachableBlocks(function);
+
+        function.renumber();
+    }
+}
@@ -5,82 +5,55 @@ import visitor.*;
 import syntaxtree.*;
 import symboltable.*;
 import exceptions.*;
+import compilationcontext.CompilationContext;
 
 // java libraries import
 import java.util.List;
-import java.util.ArrayList;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.IdentityHashMap;
 
-public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInformation, MethodInformation>> {
+public class SemanticAnalysis extends GJDepthFirst<TypeInformation, CustomPair<ClassInformation, MethodInformation>> {
 
-    public String getIdentifierType(String identifierName, CustomPair<ClassInformation, MethodInformation> argu) {
+    // the symbol table of the file being compiled
+    SymbolTable symbolTable;
 
-        // this represents the identifier we're working with
-        VariableInformation methodVariable = null;
-
-        // check if the identifier is a local variable and get it's type, i.e. it is in the current scope of method and class
-        List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(argu);
-
-        boolean isLocalVar = false;
-
-        if (methodVars != null) {
-            for (VariableInformation var : methodVars) {
-                if (var.getVarName().equals(identifierName)) {
-                    methodVariable = var;
-                    isLocalVar = true;
-                    break;
-                }
-            }
-        }
-
-        if (isLocalVar) {
-            CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> varTypePairKey = new CustomPair<>(argu, methodVariable);
-            return SymbolTable.methodVariableTypeMap.get(varTypePairKey);
-        }
+    /**
+     * Expression node to resolved type map, filled during the analysis
+     * Usage : expression node (Expression, Clause or PrimaryExpression) -> type (TypeInformation object)
+     * Nodes are compared by identity since every node of the tree is a different expression.
+     */
+    Map<Node, TypeInformation> expressionTypeMap = new IdentityHashMap<>();
 
-        // check if the identifier is a class parameter and get it's type, i.e. it is in the current scope of method and class
-        List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(argu);
+    /**
+     * Identifier node to resolved declaration map, filled during the analysis
+     * Usage : identifier node (Identifier) -> local variable, parameter or field (VariableInformation)
+     * Identifiers naming classes have no entry.
+     */
+    Map<Identifier, VariableInformation> identifierDeclarationMap = new IdentityHashMap<>();
 
-        boolean isMethodParam = false;
+    public SemanticAnalysis(CompilationContext context) {
+        this.symbolTable = context.getSymbolTable();
+    }
 
-        if (methodParams != null) {
-            for (VariableInformation var : methodParams) {
-                if (var.getVarName().equals(identifierName)) {
-                    methodVariable = var;
-                    isMethodParam = true;
-                    break;
-                }
-            }
-        }
+    // get the type of an expression node computed during the analysis
+    public TypeInformation getExpressionType(Node expression) { return this.expressionTypeMap.get(expression); }
 
-        if (isMethodParam) {
-            CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation> paramTypePairKey = new CustomPair<>(argu, methodVariable);
-            return SymbolTable.methodParameterTypeMap.get(paramTypePairKey);
-        }
+    // get the declaration an identifier node refers to, found during the analysis
+    public VariableInformation getDeclaration(Identifier identifier) { return this.identifierDeclarationMap.get(identifier); }
 
-        // check if the identifier is a class field and get it's type, i.e. it is in the current scope of class
-        List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(argu.firstObj);
+    public TypeInformation getIdentifierType(String identifierName, CustomPair<ClassInformation, MethodInformation> argu) {
 
-        boolean isClassField = false;
+        // get the identifier in the current scope, i.e. local variable, parameter or field of the current class
+        VariableInformation identifier = getIdentifier(identifierName, argu);
 
-        if (classFields != null) {
-            for(VariableInformation var : classFields) {
-                if (var.getVarName().equals(identifierName)) {
-                    methodVariable = var;
-                    isClassField = true;
-                    break;
-                }
-            }
-        }
-
-        if (isClassField) {
-            CustomPair<ClassInformation, VariableInformation> fieldTypePairKey = new CustomPair<>(argu.firstObj, methodVariable);
-            return SymbolTable.classFieldTypeMap.get(fieldTypePairKey);
+        // found the identifier, return its type
+        if (identifier != null) {
+            return identifier.getVarType();
         }
 
         // check if the identifier is a class or not
-        if (SymbolTable.classesMap.containsKey(identifierName)) {
-            return identifierName;
+        if (symbolTable.classesMap.containsKey(identifierName)) {
+            return symbolTable.getClassType(identifierName);
         }
 
         // unknown type
@@ -89,41 +62,41 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
 
     public VariableInformation getIdentifier(String identifierName, CustomPair<ClassInformation, MethodInformation> argu) {
 
-        // check if the identifier is a local variable and get it's type, i.e. it is in the current scope of method and class
-        List<VariableInformation> methodVars = SymbolTable.methodVariablesMap.get(argu);
+        // this represents the identifier we're working with
+        VariableInformation identifier = null;
 
-        if (methodVars != null) {
-            for (VariableInformation var : methodVars) {
-                if (var.getVarName().equals(identifierName)) {
-                    return var;
-                }
-            }
-        }
+        if (argu.secondObj != null) {
 
-        // check if the identifier is a class parameter and get it's type, i.e. it is in the current scope of method and class
-        List<VariableInformation> methodParams = SymbolTable.methodParametersMap.get(argu);
+            // check if the identifier is a local variable, i.e. it is in the current scope of method and class
+            identifier = argu.secondObj.getVariable(identifierName);
 
-        if (methodParams != null) {
-            for (VariableInformation var : methodParams) {
-                if (var.getVarName().equals(identifierName)) {
-                    return var;
-                }
+            if (identifier != null) {
+                return identifier;
             }
-        }
 
-        // check if the identifier is a class field and get it's type, i.e. it is in the current scope of class
-        List<VariableInformation> classFields = SymbolTable.classFieldsMap.get(argu.firstObj);
+            // check if the identifier is a method parameter, i.e. it is in the current scope of method and class
+            identifier = argu.secondObj.getParameter(identifierName);
 
-        if (classFields != null) {
-            for(VariableInformation var : classFields) {
-                if (var.getVarName().equals(identifierName)) {
-                    return var;
-                }
+            if (identifier != null) {
+                return identifier;
             }
         }
 
-        // unknown type
-        return null;
+        // check if the identifier is a class field, i.e. it is in the current scope of class
+        // unknown identifier if the class has no such field
+        return argu.firstObj.getField(identifierName);
+    }
+
+    /**
+     * Checks the type of an argument of a message send against the parameter in the same position.
+     * Returns false if the method has no such parameter or the argument is not the same type as the parameter or an inherited object.
+     */
+    public boolean checkArgument(Expression argument, int position, List<TypeInformation> parameterTypes, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+
+        // get the type of the argument, the argument is checked even if there is no parameter for it
+        TypeInformation argumentType = argument.accept(this, argu);
+
+        return position < parameterTypes.size() && symbolTable.classHierarchy.isSubtype(argumentType, parameterTypes.get(position));
     }
 
     /**
@@ -133,13 +106,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * 2. All the other type declarations, i.e. the other Classes.
     */
     @Override
-    public String visit(Goal n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(Goal n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // build the argu object for the visitor
-        ClassInformation mainClass = SymbolTable.classesMap.get(n.f0.f1.f0.toString());
+        ClassInformation mainClass = symbolTable.classesMap.get(n.f0.f1.f0.toString());
 
         // get the first element of the method list of the main class since there should be only one item in this list, the main method
-        MethodInformation mainMethod = SymbolTable.classMethodsMap.get(mainClass).get(0);
+        MethodInformation mainMethod = mainClass.getMethods().values().iterator().next();
 
         argu = new CustomPair<>(mainClass, mainMethod);
 
@@ -164,7 +137,7 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
      * Stronger semantic analysis is deeper.
      */
     @Override
-    public String visit(MainClass n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(MainClass n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // for each statement inside the main method
         for(Node statement : n.f15.nodes) {
@@ -185,13 +158,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
      * Everything else was checked in the symbol table builing phase.
      */
     @Override
-    public String visit(ClassDeclaration n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(ClassDeclaration n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the class name
-        String className = n.f1.accept(this, argu);
+        String className = n.f1.f0.toString();
 
         // get the class information object
-        ClassInformation classInfo = SymbolTable.classesMap.get(className);
+        ClassInformation classInfo = symbolTable.classesMap.get(className);
 
         // construct the new argu with the class information
         CustomPair<ClassInformation, MethodInformation> newArgu = new CustomPair<>(classInfo, null);
@@ -214,16 +187,16 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
      * Essentially the same as the class declaration visitor method.
      */
     @Override
-    public String visit(ClassExtendsDeclaration n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(ClassExtendsDeclaration n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the derived class name
         // we already know wich class is the super class
         // since we have the symbol table inheritance map
         // built in the previous phase
-        String className = n.f1.accept(this, argu);
+        String className = n.f1.f0.toString();
 
         // get the class information object
-        ClassInformation classInfo = SymbolTable.classesMap.get(className);
+        ClassInformation classInfo = symbolTable.classesMap.get(className);
 
         // construct the new argu with the class information
         CustomPair<ClassInformation, MethodInformation> newArgu = new CustomPair<>(classInfo, null);
@@ -248,25 +221,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
      * Also checks the return type of the method and the type of the expression in the return statement.
      */
     @Override
-    public String visit(MethodDeclaration n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(MethodDeclaration n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the method type and name
         String methodName = n.f2.f0.toString();
 
         // get the method information object
-        MethodInformation methodInfo = null;
-        List<MethodInformation> methodInfoList = SymbolTable.classMethodsMap.get(argu.firstObj);
-
-        // iterate over the list of methods to find the desired method
-        for(MethodInformation methodIterator : methodInfoList) {
-
-            // found the method
-            // break from the loop
-            if(methodIterator.getMethodName().equals(methodName)) {
-                methodInfo = methodIterator;
-                break;
-            }
-        }
+        MethodInformation methodInfo = argu.firstObj.getMethod(methodName);
 
         // build the argu with the new method information
         CustomPair<ClassInformation, MethodInformation> newArgu = new CustomPair<>(argu.firstObj, methodInfo);
@@ -282,37 +243,11 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
         }
 
         // find the return type of the return expression
-        String returnType = n.f10.accept(this, newArgu);
-
-        // check if the return type is the same as the method return type
-        if(!returnType.equals(SymbolTable.classMethodTypeMap.get(newArgu))) {
-
-            boolean isTypeError = true;
-
-            // check if the return type is a subtype of the method return type
-            // get the class information object of the return type
-            // working our way up the inheritance tree
-            if (SymbolTable.classInheritenceMap.get(SymbolTable.classesMap.get(returnType)) != null) {
-
-                ClassInformation superOfReturn = SymbolTable.classInheritenceMap.get(SymbolTable.classesMap.get(returnType));
-
-                while (superOfReturn != null) {
-
-                    // check if the return type is the same as the method return type
-                    if (superOfReturn.getClassName().equals(SymbolTable.classMethodTypeMap.get(newArgu))) {
-                        isTypeError = false;
-                        break;
-                    }
+        TypeInformation returnType = n.f10.accept(this, newArgu);
 
-                    // get the next class information object
-                    superOfReturn = SymbolTable.classInheritenceMap.get(superOfReturn);
-                }
-
-
-            }
-
-            // if we reach this point then its a type error
-            if (isTypeError) throw new TypeMissMatch("Return value of method " + methodName + " is not the same as the method return type.\nReturn value type : " + returnType + "\nMethod return type : " + SymbolTable.classMethodTypeMap.get(newArgu));
+        // check if the return type is the same as the method return type or a subtype of it
+        if(!symbolTable.classHierarchy.isSubtype(returnType, methodInfo.getReturnType())) {
+            throw new TypeMissMatch("Return value of method " + methodName + " is not the same as the method return type.\nReturn value type : " + returnType + "\nMethod return type : " + methodInfo.getReturnType());
         }
 
         // nothing to return
@@ -324,7 +259,7 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The statment can be one of the above, we accept the statement and continueing the semantic analysis deeper.
     */
     @Override
-    public String visit(Statement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(Statement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // accept the statement, has to be one of the above
         // all of them don't need a check at this point of the code
@@ -336,7 +271,7 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Accept all the statements inside the block.
     */
     @Override
-    public String visit(Block n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(Block n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // for each statement inside the block
         for (Node statement : n.f1.nodes) {
@@ -355,13 +290,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The types of the identifier and expression must match to accept the statement.
     */
     @Override
-    public String visit(AssignmentStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(AssignmentStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the identifier name
-        String identifierType = n.f0.accept(this, argu);
+        TypeInformation identifierType = n.f0.accept(this, argu);
 
         // get the expression type
-        String exprType = n.f2.accept(this, argu);
+        TypeInformation exprType = n.f2.accept(this, argu);
 
         // check if either of the types is null, i.e. unknown types
         // if so, throw an exception
@@ -371,46 +306,11 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
 
         // check if the type of the expression is a class and if it has a super class
         // in order to check inheritance between the two types
-        if(SymbolTable.classesMap.containsKey(exprType) && SymbolTable.classInheritenceMap.get(SymbolTable.classesMap.get(exprType)) != null) {
-
-            // check if the identifier type is the same as the expression type, i.e. the same class
-            if(identifierType.equals(exprType)) return null;
-
-
-            // get the super class information object
-            ClassInformation superClassInfo = null;
-
-            // get the derived class information object
-            ClassInformation derivedClassInfo = SymbolTable.classesMap.get(exprType);
-
-            // check if the identifier is a class type
-            if(SymbolTable.classesMap.containsKey(identifierType)) {
-
-                // get the object
-                superClassInfo = SymbolTable.classesMap.get(identifierType);
-            }
-
-            boolean isInherited = false;
-
-            // iterate till there's no super class
-            while(derivedClassInfo != null) {
-
-                // check if the parent of the derived class is the super class is the identifier type
-                if (superClassInfo.equals(SymbolTable.classInheritenceMap.get(derivedClassInfo))) {
-
-                    // the parent is the super class
-                    // update the boolean flag and exit the loop
-                    isInherited = true;
-                    break;
-                }
-
-                // change the derived class to the parent in order to bottom up check
-                derivedClassInfo = SymbolTable.classInheritenceMap.get(derivedClassInfo);
-            }
+        if(exprType.isClass() && ((ClassTypeInformation) exprType).getClassInformation() != null && ((ClassTypeInformation) exprType).getClassInformation().getSuperClass() != null) {
 
             // check if the identifier is a class type and if it is inherited from the expression type
             // if not throw an error
-            if (!isInherited) {
+            if (!symbolTable.classHierarchy.isSubtype(exprType, identifierType)) {
                 throw new TypeMissMatch("Class " + exprType + " is not derived from class " + identifierType + ".");
             }
 
@@ -419,7 +319,7 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
         }
 
         // check if the types are compatible
-        if(!identifierType.equals(exprType)) {
+        if(identifierType != exprType) {
             throw new TypeMissMatch("Type missmatch in assignment statement.\nIdentifier " + n.f0.f0.toString() + " is of type : " + identifierType + "\nExpression type : " + exprType);
         }
 
@@ -434,28 +334,29 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Also the identifier must be an array.
     */
     @Override
-    public String visit(ArrayAssignmentStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(ArrayAssignmentStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get array name
-        String arrayType = n.f0.accept(this, argu);
+        TypeInformation arrayType = n.f0.accept(this, argu);
 
-        if (!Pattern.compile("\\[\\]").matcher(arrayType).find()) {
+        // check if the identifier is an array
+        if (!arrayType.isArray()) {
             throw new TypeMissMatch("Array assignment statement type missmatch.\nIdentifier : " + n.f0.toString() + " is not an array.");
         }
 
         // get the expression type of the array index
-        String indexType = n.f2.accept(this, argu);
+        TypeInformation indexType = n.f2.accept(this, argu);
 
         // check if the index type is an integer
-        if(!indexType.equals("int")) {
+        if(indexType != TypeInformation.INT) {
             throw new TypeMissMatch("Array assignment statement type missmatch.\nArray index must be of type int.");
         }
 
         // get the expression type of the assignment
-        String exprType = n.f5.accept(this, argu);
+        TypeInformation exprType = n.f5.accept(this, argu);
 
-        // check if the expression type is the same as the array type
-        if(!arrayType.contains(exprType)) {
+        // check if the expression type is the same as the type of the array elements
+        if(((ArrayTypeInformation) arrayType).getElementType() != exprType) {
             throw new TypeMissMatch("Array assignment statement type missmatch.\nArray is of type : " + arrayType + "\nExpression is of type : " + exprType);
         }
 
@@ -469,13 +370,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The condition expression must be of type boolean.
     */
     @Override
-    public String visit(IfStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(IfStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the expression type
-        String exprType = n.f2.accept(this, argu);
+        TypeInformation exprType = n.f2.accept(this, argu);
 
         // check if the expression type is boolean
-        if(!exprType.equals("boolean")) {
+        if(exprType != TypeInformation.BOOLEAN) {
             throw new TypeMissMatch("If statement type missmatch.\nExpression is not of type boolean.");
         }
 
@@ -495,13 +396,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The condition expression must be of type boolean.
     */
     @Override
-    public String visit(WhileStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(WhileStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the expression type
-        String exprType = n.f2.accept(this, argu);
+        TypeInformation exprType = n.f2.accept(this, argu);
 
         // check if the expression type is boolean
-        if(!exprType.equals("boolean")) {
+        if(exprType != TypeInformation.BOOLEAN) {
             throw new TypeMissMatch("While statement type missmatch.\nExpression is not of type boolean.");
         }
 
@@ -518,13 +419,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The expression must be of type int in order to print in stdout.
     */
     @Override
-    public String visit(PrintStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(PrintStatement n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the expression type
-        String exprType = n.f2.accept(this, argu);
+        TypeInformation exprType = n.f2.accept(this, argu);
 
         // check if the expression type is an integer
-        if(!exprType.equals("int")) {
+        if(exprType != TypeInformation.INT) {
             throw new TypeMissMatch("Print statement type missmatch.\nExpression is not of type int.");
         }
 
@@ -537,10 +438,15 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Calls the visitor method for right expression from the list of the available ones.
     */
     @Override
-    public String visit(Expression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(Expression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // accept the expression, the type will be computed deeper in the analysis
-        return n.f0.accept(this, argu);
+        TypeInformation exprType = n.f0.accept(this, argu);
+
+        // keep the type of the expression for the code generation
+        expressionTypeMap.put(n, exprType);
+
+        return exprType;
     }
 
     /**
@@ -549,21 +455,21 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The expressions must be of type boolean.
     */
     @Override
-    public String visit(AndExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(AndExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the expressions types
-        String firstClauseType = n.f0.accept(this, argu);
-        String secondClauseType = n.f2.accept(this, argu);
+        TypeInformation firstClauseType = n.f0.accept(this, argu);
+        TypeInformation secondClauseType = n.f2.accept(this, argu);
 
         // check are the same type and if they are check if the type is boolean
         // if not throw an exception
-        if (!(firstClauseType.equals(secondClauseType) && firstClauseType.equals("boolean"))) {
+        if (!(firstClauseType == secondClauseType && firstClauseType == TypeInformation.BOOLEAN)) {
             throw new TypeMissMatch("Logical and expression type missmatch.\nBoth clauses must be of type boolean.");
         }
 
         // return the type of the expression
         // since this is a logical and expression, the type is boolean
-        return "boolean";
+        return TypeInformation.BOOLEAN;
     }
 
     /**
@@ -572,20 +478,20 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The expressions must be of type int.
     */
     @Override
-    public String visit(CompareExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(CompareExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the type of the primary expressions
-        String firstPrimExpr = n.f0.accept(this, argu);
-        String secondPrimExpr = n.f2.accept(this, argu);
+        TypeInformation firstPrimExpr = n.f0.accept(this, argu);
+        TypeInformation secondPrimExpr = n.f2.accept(this, argu);
 
         // check if they are the same and if they are check if they are ints
         // if not throw an exception
-        if (!(firstPrimExpr.equals(secondPrimExpr) && firstPrimExpr.equals("int"))) {
+        if (!(firstPrimExpr == secondPrimExpr && firstPrimExpr == TypeInformation.INT)) {
             throw new TypeMissMatch("Compare expression type missmatch.\nComparison is allowed between integers.");
         }
 
         // return the type of the expression, if we reach this point then the type is boolean
-        return "boolean";
+        return TypeInformation.BOOLEAN;
     }
 
     /**
@@ -594,20 +500,20 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The expressions must be of type int.
     */
     @Override
-    public String visit(PlusExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(PlusExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the type of both the primary expressions
-        String firstPrimExpr = n.f0.accept(this, argu);
-        String secondPrimExpr = n.f2.accept(this, argu);
+        TypeInformation firstPrimExpr = n.f0.accept(this, argu);
+        TypeInformation secondPrimExpr = n.f2.accept(this, argu);
 
         // check if they are the same and if they are check if they are ints
         // if not throw an exception
-        if (!(firstPrimExpr.equals(secondPrimExpr) && firstPrimExpr.equals("int"))) {
+        if (!(firstPrimExpr == secondPrimExpr && firstPrimExpr == TypeInformation.INT)) {
             throw new TypeMissMatch("Plus expression type missmatch.\nAddition is allowed only between integers.");
         }
 
         // return the type of the expression, if we reach this point then the type is int
-        return "int";
+        return TypeInformation.INT;
     }
 
     /**
@@ -616,20 +522,20 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The expressions must be of type int.
     */
     @Override
-    public String visit(MinusExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(MinusExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the type of both the primary expressions
-        String firstPrimExpr = n.f0.accept(this, argu);
-        String secondPrimExpr = n.f2.accept(this, argu);
+        TypeInformation firstPrimExpr = n.f0.accept(this, argu);
+        TypeInformation secondPrimExpr = n.f2.accept(this, argu);
 
         // check if they are the same and if they are check if they are ints
         // if not throw an exception
-        if (!(firstPrimExpr.equals(secondPrimExpr) && firstPrimExpr.equals("int"))) {
+        if (!(firstPrimExpr == secondPrimExpr && firstPrimExpr == TypeInformation.INT)) {
             throw new TypeMissMatch("Minus expression type missmatch.\nSubtraction is allowed only between integers.");
         }
 
         // return the type of the expression, if we reach this point then the type is int
-        return "int";
+        return TypeInformation.INT;
     }
 
     /**
@@ -638,20 +544,20 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The expressions must be of type int.
     */
     @Override
-    public String visit(TimesExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(TimesExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the type of both the primary expressions
-        String firstPrimExpr = n.f0.accept(this, argu);
-        String secondPrimExpr = n.f2.accept(this, argu);
+        TypeInformation firstPrimExpr = n.f0.accept(this, argu);
+        TypeInformation secondPrimExpr = n.f2.accept(this, argu);
 
         // check if they are the same and if they are check if they are ints
         // if not throw an exception
-        if (!(firstPrimExpr.equals(secondPrimExpr) && firstPrimExpr.equals("int"))) {
+        if (!(firstPrimExpr == secondPrimExpr && firstPrimExpr == TypeInformation.INT)) {
             throw new TypeMissMatch("Times expression type missmatch.\nMultiplication is allowed only between integers.");
         }
 
         // return the type of the expression, if we reach this point then the type is int
-        return "int";
+        return TypeInformation.INT;
     }
 
     /**
@@ -661,27 +567,27 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The second expression must be of type int since it is the index of the array lookup.
     */
     @Override
-    public String visit(ArrayLookup n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(ArrayLookup n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // since this is an array lookup we're getting the name of the identifier
-        String identifierType = n.f0.accept(this, argu);
+        TypeInformation identifierType = n.f0.accept(this, argu);
 
-        // check if the identifier is an array with this simple regex
-        if (!Pattern.compile("\\[\\]").matcher(identifierType).find()) {
+        // check if the identifier is an array
+        if (!identifierType.isArray()) {
             throw new TypeMissMatch("Array lookup expression type missmatch.\nGiven primary experssion is not an array.");
         }
 
         // get the type of the primary expression inside the square brackets
-        String primExprType = n.f2.accept(this, argu);
+        TypeInformation primExprType = n.f2.accept(this, argu);
 
         // check if the type of the primary expression is int or not
-        if (!primExprType.equals("int")) {
+        if (primExprType != TypeInformation.INT) {
             throw new TypeMissMatch("Array lookup expression type missmatch.\nArray index must be of type int.");
         }
 
         // return the correct type of the expression, if the array is of type int then the type is int
         // if the array is of type boolean then the type is boolean
-        return (identifierType.equals("int[]")) ? "int" : "boolean";
+        return ((ArrayTypeInformation) identifierType).getElementType();
     }
 
     /**
@@ -690,18 +596,18 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The first expression must be an array.
     */
     @Override
-    public String visit(ArrayLength n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(ArrayLength n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // since this is an array lookup we're getting the name of the identifier
-        String identifierType = n.f0.accept(this, argu);
+        TypeInformation identifierType = n.f0.accept(this, argu);
 
-        // check if the identifier is an array with this simple regex
-        if (!Pattern.compile("\\[\\]").matcher(identifierType).find()) {
+        // check if the identifier is an array
+        if (!identifierType.isArray()) {
             throw new TypeMissMatch("Array length expression type missmatch.\nGiven primary experssion is not an array.");
         }
 
         // return the type of this expression, the type is int since we're getting the length of an array
-        return "int";
+        return TypeInformation.INT;
     }
 
     /**
@@ -712,59 +618,27 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The expression list must have the same number of parameters as the method has and the same types *OREDERED*.
     */
     @Override
-    public String visit(MessageSend n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(MessageSend n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the type of the primary expression
-        String primExprType = n.f0.accept(this, argu);
+        TypeInformation primExprType = n.f0.accept(this, argu);
 
         // check if the primary expression is the this expression
 
         // check if it is an existing class
-        if (!SymbolTable.classesMap.containsKey(primExprType)) {
+        if (!primExprType.isClass() || ((ClassTypeInformation) primExprType).getClassInformation() == null) {
             throw new TypeMissMatch("Message send expression type missmatch.\nClass " + primExprType + " does not exist.");
         }
 
         // get the class information
-        ClassInformation classInfo = SymbolTable.classesMap.get(primExprType);
+        ClassInformation classInfo = ((ClassTypeInformation) primExprType).getClassInformation();
 
         // get the method name
         String methodName = n.f2.f0.toString();
 
-        // MethodInformation variable to store the actual method
-        MethodInformation methodInfo = null;
-
-        // while the class information is not null
-        // this is used because the method could be inherited from a parent class
-        while (classInfo != null) {
-
-            // check if the class found above has a method with the name of the identifier
-            // list of methods to store all the class methods
-            List<MethodInformation> classMethods = SymbolTable.classMethodsMap.get(classInfo);
-
-            methodInfo = null;
-
-            // check if this class has any methods declared or not
-            // if not continue to the next class if this class has a parent class
-            if (classMethods != null) {
-
-                // iterate through the list of methods to find the method with the name of the identifier
-                for (MethodInformation method : classMethods) {
-
-                    // method found so set the methodInfo variable to the method
-                    // break out of the loop
-                    if (method.getMethodName().equals(methodName)) {
-                        methodInfo = method;
-                        break;
-                    }
-                }
-            }
-
-            // if we found the method we can break out of the loop
-            if (methodInfo != null) break;
-
-            // get the parent class of the class information to continue the search
-            classInfo = SymbolTable.classInheritenceMap.get(classInfo);
-        }
+        // get the method with the name of the identifier
+        // the method could be inherited from a parent class
+        MethodInformation methodInfo = symbolTable.lookupMethod(classInfo, methodName);
 
         // check if the method variable is null
         // if it is then the method does not exist in the class
@@ -773,85 +647,48 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
             throw new TypeMissMatch("Message send expression type missmatch.\nMethod " + methodName + " does not exist in class " + primExprType + ".");
         }
 
-        // create a pair of class information and method information to get the needed information
-        // from the correct maps stored in the SymbolTable
-        CustomPair<ClassInformation, MethodInformation> classMethodPair = new CustomPair<>(classInfo, methodInfo);
-
         // get the type of the method
-        String methodType = SymbolTable.classMethodTypeMap.get(classMethodPair);
-
-        // get the list of parameters of the method
-        List<VariableInformation> methodParameters = SymbolTable.methodParametersMap.get(classMethodPair);
+        TypeInformation methodType = methodInfo.getReturnType();
 
         // store the type of the method parameters *ORDERED*
-        List<String> methodParametersTypes = new ArrayList<>();
+        List<TypeInformation> methodParametersTypes = methodInfo.getParameterTypes();
 
-        // check if the method has parameters
-        if (!(methodParameters == null)) {
-            for (VariableInformation parameter : methodParameters) {
-                methodParametersTypes.add(SymbolTable.methodParameterTypeMap.get(new CustomPair<>(classMethodPair, parameter)));
+        // number of arguments given and if one of them is not the same type as its parameter
+        int argumentCount = 0;
+        boolean argumentMissMatch = false;
+
+        // check the arguments *ORDERED* as they are given, the first expression and then the expression terms
+        if (n.f4.present()) {
+
+            ExpressionList expressionList = (ExpressionList) n.f4.node;
+
+            argumentMissMatch |= !checkArgument(expressionList.f0, argumentCount++, methodParametersTypes, argu);
+
+            for (Node expressionTerm : expressionList.f1.f0.nodes) {
+                argumentMissMatch |= !checkArgument(((ExpressionTerm) expressionTerm).f1, argumentCount++, methodParametersTypes, argu);
             }
         }
 
-        // get the list of expressions
-        String expressionList = n.f4.accept(this, argu);
-
-        // check every possible state of the expression list and the method parameters
+        // check every possible state of the arguments and the method parameters
         // if there are parameters and given arguments check the number of arguments and the types *OREDERED*
         // if there are no arguments given and the method takes parameters throw an exception
         // if there are arguments and the method takes no parameters throw an exception
-        if (expressionList != null && methodParameters != null) {
-
-            // split all the expressions into a list
-            String [] expressions = expressionList.split(" ");
+        if (argumentCount != 0 && !methodParametersTypes.isEmpty()) {
 
             // check if the number of arguments is correct
-            if (expressions.length != methodParametersTypes.size()) {
-                throw new TypeMissMatch("Message send expression type missmatch.\nMethod " + methodName + " in class " + primExprType + " has " + methodParametersTypes.size() + " parameters but " + expressions.length + " arguments were given.");
+            if (argumentCount != methodParametersTypes.size()) {
+                throw new TypeMissMatch("Message send expression type missmatch.\nMethod " + methodName + " in class " + primExprType + " has " + methodParametersTypes.size() + " parameters but " + argumentCount + " arguments were given.");
             }
 
-            // iterate through all the types and check if they are the same *OREDERED*
-            for (int i = 0; i < expressions.length; i++) {
-
-                // boolean flag to check for inheritance tree
-                boolean isInherited = false;
-
-                // check if the expression is a class that has inherited from another class
-                if (SymbolTable.classesMap.containsKey(expressions[i]) && SymbolTable.classInheritenceMap.get(SymbolTable.classesMap.get(expressions[i])) != null) {
-
-                    // bottom up check this argument to see if it is an inherited object
-                    ClassInformation derClassInfo = SymbolTable.classesMap.get(expressions[i]);
-
-                    // while the class information is not null
-                    while (derClassInfo != null) {
-
-                        // check if the argument is an inherited object
-                        if (i > methodParametersTypes.size()) continue;
-                        if (SymbolTable.classInheritenceMap.get(derClassInfo) != null && methodParametersTypes.get(i).equals(SymbolTable.classInheritenceMap.get(derClassInfo).getClassName())) {
-
-                            isInherited = true;
-                            break;
-                        }
-
-                        // get the parent class of the class information to continue the search
-                        derClassInfo = SymbolTable.classInheritenceMap.get(derClassInfo);
-                    }
-                }
-
-                // check if the expression is an inherited object
-                // if it is then we can proceed to the next parameter
-                if (isInherited) continue;
-
-                // check if the type of the expression is the same as the type of the method parameter
-                if (!methodParametersTypes.get(i).equals(expressions[i])) {
-                    throw new TypeMissMatch("Message send expression type missmatch.\nIn method : " + methodName + " in class " + primExprType + " there are different argument types than expected.");
-                }
+            // check if every argument is the same type as the parameter or an inherited object
+            if (argumentMissMatch) {
+                throw new TypeMissMatch("Message send expression type missmatch.\nIn method : " + methodName + " in class " + primExprType + " there are different argument types than expected.");
             }
         }
-        else if (expressionList == null && methodParameters != null) {
+        else if (argumentCount == 0 && !methodParametersTypes.isEmpty()) {
             throw new TypeMissMatch("Message send expression type missmatch.\nMethod " + methodName + " in class " + primExprType + " has " + methodParametersTypes.size() + " parameters but no arguments were given.");
         }
-        else if (expressionList != null && methodParameters == null) {
+        else if (argumentCount != 0 && methodParametersTypes.isEmpty()) {
             throw new TypeMissMatch("Message send expression type missmatch.\nMethod " + methodName + " in class " + primExprType + " takes no parameters.");
         }
 
@@ -859,68 +696,21 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
         return methodType;
     }
 
-    /**
-    * Expression list visitor.
-    * Gets the types of all the expressions.
-    * Returns the types in a string separated by spaces.
-    */
-    @Override
-    public String visit(ExpressionList n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
-
-        // get the type of the expression
-        String exprType = n.f0.accept(this, argu);
-
-        // get the type of the expression tail types
-        String exprTailTypes = n.f1.accept(this, argu);
-
-        // return only the types of the expression list
-        return exprType + " " + exprTailTypes;
-    }
-
-    /**
-    * Expression tail visitor.
-    * Gets the types of all the expressions.
-    * Returns the types in a string separated by spaces.
-    */
-    @Override
-    public String visit(ExpressionTail n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
-
-        // string to store the types
-        String types = "";
-
-        // accept the expression term
-        for (Node expr : n.f0.nodes) {
-
-            // add the types to the string separated by spaces
-            types += expr.accept(this, argu) + " ";
-        }
-
-        // return the types
-        return types;
-    }
-
-    /**
-    * Expression term visitor.
-    * Gets the type of the expression.
-    * Returns the type.
-    */
-    @Override
-    public String visit(ExpressionTerm n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
-
-        // this is just an expression so accept it and get it's type
-        return n.f1.accept(this, argu);
-    }
-
     /**
     * Primary expression visitor.
     * Calls one of the many primary expressions.
     * Returns the type of the primary expression.
     */
     @Override
-    public String visit(PrimaryExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(PrimaryExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // accept the primary expression and get the type
-        return n.f0.accept(this, argu);
+        TypeInformation primExprType = n.f0.accept(this, argu);
+
+        // keep the type of the primary expression for the code generation
+        expressionTypeMap.put(n, primExprType);
+
+        return primExprType;
     }
 
     /**
@@ -928,8 +718,8 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the integer literal which is int.
     */
     @Override
-    public String visit(IntegerLiteral n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
-        return "int";
+    public TypeInformation visit(IntegerLiteral n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+        return TypeInformation.INT;
     }
 
     /**
@@ -937,8 +727,8 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the true literal which is boolean.
     */
     @Override
-    public String visit(TrueLiteral n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
-        return "boolean";
+    public TypeInformation visit(TrueLiteral n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+        return TypeInformation.BOOLEAN;
     }
 
     /**
@@ -946,8 +736,8 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the false literal which is boolean.
     */
     @Override
-    public String visit(FalseLiteral n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
-        return "boolean";
+    public TypeInformation visit(FalseLiteral n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+        return TypeInformation.BOOLEAN;
     }
 
     /**
@@ -957,84 +747,55 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the identifier.
     */
     @Override
-    public String visit(Identifier n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(Identifier n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the identifier name
         String identifierName = n.f0.toString();
 
         // get the identifier type
-        String identifierType = getIdentifierType(identifierName, argu);
+        TypeInformation identifierType = getIdentifierType(identifierName, argu);
 
         // check if the type is null, this could mean that a variable is inherited from another class
         // check if the variable is inherited or not, if not throw an exception
         if (identifierType == null) {
 
             // get the class information of the class that the variable is inherited from
-            ClassInformation derivedClass = SymbolTable.classesMap.get(argu.firstObj.getClassName());
-            ClassInformation superClass = SymbolTable.classInheritenceMap.get(derivedClass);
+            ClassInformation derivedClass = symbolTable.classesMap.get(argu.firstObj.getClassName());
+            ClassInformation superClass = derivedClass.getSuperClass();
 
             // check if the class has a parent class that inherits the variable we're checking
             if (superClass == null) {
                 throw new UnknownType("Unknown type.\nVariable " + identifierName + " is not defined.");
             }
 
-            // boolean to check if the variable is an inherited super class field
-            boolean isField = false;
-
-            // variable information object to store the field
-            VariableInformation superClassField = null;
-
             // check if the identifier is a field of the super class until there's no super class to check
-            while(superClass != null) {
-
-                // get the fields of the super class
-                List<VariableInformation> superClassFields = SymbolTable.classFieldsMap.get(superClass);
-                isField = false;
-
-                // check if the super class has fields or not
-                // if not continue higher to the class hierarchy if there's one
-                if (superClassFields != null) {
-
-                    // check if the identifier is a field of the super class
-                    for (VariableInformation field : superClassFields) {
-
-                        // check if the identifier is a field of the super class
-                        if (field.getVarName().equals(identifierName)) {
-
-                            // update the boolean to true
-                            // and update the field variable information object
-                            isField = true;
-                            superClassField = field;
-                            break;
-                        }
-                    }
-                }
-
-                // if the identifier is a field of the super class
-                // we can break the loop
-                if (isField) break;
-
-                // get the super class of the current class
-                superClass = SymbolTable.classInheritenceMap.get(superClass);
-            }
+            VariableInformation superClassField = symbolTable.lookupField(superClass, identifierName);
 
             // if the identifier is not a field of the super class
             // throw an exception
-            if (!isField) {
+            if (superClassField == null) {
                 throw new UnknownType("Unknown type.\nVariable " + identifierName + " is not defined.");
             }
 
+            // keep the declaration of the identifier for the code generation
+            identifierDeclarationMap.put(n, superClassField);
+
             // get the type of the field
-            return SymbolTable.classFieldTypeMap.get(new CustomPair<ClassInformation, VariableInformation>(superClass, superClassField));
+            return superClassField.getVarType();
 
         }
 
         // check if the identifier type is String[] and if it is then
         // throw an exception, cannot use main method string array argument
-        if (identifierType.equals("String[]")) {
+        if (identifierType == TypeInformation.STRING_ARRAY) {
             throw new TypeMissMatch("Cannot use main method string array argument.");
         }
 
+        // keep the declaration of the identifier for the code generation
+        // class names have no declaration
+        VariableInformation identifier = getIdentifier(identifierName, argu);
+        if (identifier != null) identifierDeclarationMap.put(n, identifier);
+
         // return the identifier type
         return identifierType;
     }
@@ -1044,13 +805,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the this expression which is the type of the class.
     */
     @Override
-    public String visit(ThisExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(ThisExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the class information from argu
         ClassInformation classInfo = argu.firstObj;
 
-        // return the type of this expression, the type is the class name
-        return classInfo.getClassName();
+        // return the type of this expression, the type of the objects of the class
+        return symbolTable.getClassType(classInfo.getClassName());
     }
 
     /**
@@ -1059,7 +820,7 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the array allocation expression.
     */
     @Override
-    public String visit(ArrayAllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(ArrayAllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // accept the type of the array allocation expression
         // the type will be either int[] or boolean[]
@@ -1073,19 +834,19 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The type must be int.
     */
     @Override
-    public String visit(BooleanArrayAllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(BooleanArrayAllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the type of the expression inside the square brackets
-        String exprType = n.f3.accept(this, argu);
+        TypeInformation exprType = n.f3.accept(this, argu);
 
         // check if the type of the expression is int or not
         // if it is not then throw an exception
-        if (!exprType.equals("int")) {
+        if (exprType != TypeInformation.INT) {
             throw new TypeMissMatch("Boolean array allocation expression type missmatch.\nArray allocation size must be of type int.");
         }
 
         // return the type of the array, since we're in a boolean array allocation expression the type is boolean[]
-        return "boolean[]";
+        return TypeInformation.BOOLEAN_ARRAY;
     }
 
     /**
@@ -1095,19 +856,19 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * The type must be int.
     */
     @Override
-    public String visit(IntegerArrayAllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(IntegerArrayAllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the type of the expression inside the square brackets
-        String exprType = n.f3.accept(this, argu);
+        TypeInformation exprType = n.f3.accept(this, argu);
 
         // check if the type of the expression is int or not
         // if it is not then throw an exception
-        if (!exprType.equals("int")) {
+        if (exprType != TypeInformation.INT) {
             throw new TypeMissMatch("Integer array allocation expression type missmatch.\nArray allocation size must be of type int.");
         }
 
         // return the type of the array, since we're in a int array allocation expression the type is int[]
-        return "int[]";
+        return TypeInformation.INT_ARRAY;
     }
 
     /**
@@ -1115,13 +876,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the allocation expression which is the class type.
     */
     @Override
-    public String visit(AllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(AllocationExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the identifier/class name
-        String identifierType = n.f1.accept(this, argu);
+        TypeInformation identifierType = n.f1.accept(this, argu);
 
         // check if the class exists or not in the symbol table
-        if (!SymbolTable.classesMap.containsKey(identifierType)) {
+        if (!identifierType.isClass() || ((ClassTypeInformation) identifierType).getClassInformation() == null) {
             throw new ClassNotFound("Allocation expression type missmatch.\nClass " + identifierType + " does not exist.");
         }
 
@@ -1134,10 +895,13 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the clause which is the type of the primary expression or the not expression.
     */
     @Override
-    public String visit(Clause n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(Clause n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the expression type
-        String expr = n.f0.accept(this, argu);
+        TypeInformation expr = n.f0.accept(this, argu);
+
+        // keep the type of the clause for the code generation
+        expressionTypeMap.put(n, expr);
 
         // return the type of the clause found above
         return expr;
@@ -1149,18 +913,18 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Also checks if the type of the clause is boolean or not.
     */
     @Override
-    public String visit(NotExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(NotExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // get the clause type
-        String clauseType = n.f1.accept(this, argu);
+        TypeInformation clauseType = n.f1.accept(this, argu);
 
         // check if the clause type is boolean or not
-        if (!clauseType.equals("boolean")) {
+        if (clauseType != TypeInformation.BOOLEAN) {
             throw new TypeMissMatch("Not expression type missmatch.\nClause in not expression must be of type boolean.");
         }
 
         // return the type of the not expression, the type is boolean
-        return "boolean";
+        return TypeInformation.BOOLEAN;
     }
 
     /**
@@ -1168,7 +932,7 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
     * Returns the type of the bracket expression which is the type of the expression.
     */
     @Override
-    public String visit(BracketExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(BracketExpression n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
         // accept the expression and return it's type
         return n.f1.accept(this, argu);
@@ -1176,29 +940,29 @@ public class SemanticAnalysis extends GJDepthFirst<String, CustomPair<ClassInfor
 
     // boolean array type
     @Override
-    public String visit(BooleanArrayType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(BooleanArrayType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
-        return "boolean[]";
+        return TypeInformation.BOOLEAN_ARRAY;
     }
 
     // int array type
     @Override
-    public String visit(IntegerArrayType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(IntegerArrayType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
-        return "int[]";
+        return TypeInformation.INT_ARRAY;
     }
 
     // boolean type
     @Override
-    public String visit(BooleanType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(BooleanType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
-        return "boolean";
+        return TypeInformation.BOOLEAN;
     }
 
     // int type
     @Override
-    public String visit(IntegerType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
+    public TypeInformation visit(IntegerType n, CustomPair<ClassInformation, MethodInformation> argu) throws Exception {
 
-        return "int";
+        return TypeInformation.INT;
     }
 }
@@ -0,0 +1,22 @@
+package symboltable;
+
+import ir.IRType;
+
+// int[], boolean[] and the String[] argument of the main method
+public class ArrayTypeInformation extends TypeInformation {
+
+    // the type of the elements of the array, null for String[]
+    TypeInformation elementType;
+
+    ArrayTypeInformation(String typeName, TypeInformation elementType, IRType llvmType) {
+
+        // arrays are pointers, 8 bytes inside an object
+        super(typeName, llvmType, 8);
+        this.elementType = elementType;
+    }
+
+    public TypeInformation getElementType() { return this.elementType; }
+
+    @Override
+    public boolean isArray() { return true; }
+}
@@ -0,0 +1,190 @@
+package symboltable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over the inheritance tree of the classes of a file.
+ * Every class gets the number of the pre-order and post-order depth first visit of the inheritance forest,
+ * so a class is a subclass of another if its interval is inside the interval of the other, which is a
+ * constant time check. Ancestors at power of two distances are kept for the least common ancestor queries.
+ */
+public class ClassHierarchy {
+
+    /**
+     * Class to derived classes map
+     * Usage : class information (ClassInformation object) -> classes extending it (list of ClassInformation objects)
+     */
+    Map<ClassInformation, List<ClassInformation>> derivedClassesMap = new LinkedHashMap<>();
+
+    /**
+     * Class to ancestors map
+     * Usage : class information (ClassInformation object) -> ancestors (array of ClassInformation objects)
+     * ancestors[k] is the ancestor 2^k levels above the class, null if there is no such class.
+     */
+    Map<ClassInformation, ClassInformation[]> ancestorsMap = new LinkedHashMap<>();
+
+    // the symbol table the hierarchy is built from
+    SymbolTable symbolTable;
+
+    public ClassHierarchy(SymbolTable symbolTable) {
+
+        this.symbolTable = symbolTable;
+
+        // find the classes extending every class and the roots of the forest
+        List<ClassInformation> roots = new ArrayList<>();
+
+        for (ClassInformation classInfo : symbolTable.classesMap.values()) {
+
+            derivedClassesMap.putIfAbsent(classInfo, new ArrayList<>());
+
+            if (classInfo.getSuperClass() == null) {
+                roots.add(classInfo);
+            }
+            else {
+                derivedClassesMap.computeIfAbsent(classInfo.getSuperClass(), key -> new ArrayList<>()).add(classInfo);
+            }
+        }
+
+        // the next number to give to a pre-order or post-order visit
+        int counter = 0;
+
+        // iterative depth first visit, the stack keeps the class and the index of the next derived class to visit
+        List<ClassInformation> stack = new ArrayList<>();
+        List<Integer> nextChild = new ArrayList<>();
+
+        for (ClassInformation root : roots) {
+
+            root.hierarchyPre = counter++;
+            root.hierarchyDepth = 0;
+            stack.add(root);
+            nextChild.add(0);
+
+            while (!stack.isEmpty()) {
+
+                int top = stack.size() - 1;
+                ClassInformation current = stack.get(top);
+                List<ClassInformation> derivedClasses = derivedClassesMap.get(current);
+                int childIndex = nextChild.get(top);
+
+                // all the derived classes were visited, close the interval of this class
+                if (childIndex == derivedClasses.size()) {
+                    current.hierarchyPost = counter++;
+                    stack.remove(top);
+                    nextChild.remove(top);
+                    continue;
+                }
+
+                // visit the next derived class
+                nextChild.set(top, childIndex + 1);
+
+                ClassInformation derived = derivedClasses.get(childIndex);
+                derived.hierarchyPre = counter++;
+                derived.hierarchyDepth = current.hierarchyDepth + 1;
+                stack.add(derived);
+                nextChild.add(0);
+            }
+        }
+
+        // build the ancestor tables, the super class is always added to the symbol table before the derived class
+        for (ClassInformation classInfo : symbolTable.classesMap.values()) {
+
+            // number of levels needed to jump over the whole depth of the class
+            int levels = 32 - Integer.numberOfLeadingZeros(Math.max(classInfo.hierarchyDepth, 1));
+
+            ClassInformation[] ancestors = new ClassInformation[levels];
+            ancestors[0] = classInfo.getSuperClass();
+
+            for (int k = 1; k < levels && ancestors[k - 1] != null; k++) {
+                ClassInformation[] halfway = ancestorsMap.get(ancestors[k - 1]);
+                ancestors[k] = (k - 1 < halfway.length) ? halfway[k - 1] : null;
+            }
+
+            ancestorsMap.put(classInfo, ancestors);
+        }
+    }
+
+    // the classes extending the class directly
+    public List<ClassInformation> getDerivedClasses(ClassInformation classInfo) {
+        return derivedClassesMap.get(classInfo);
+    }
+
+    /**
+     * Checks if the derived class is the super class or extends it, directly or through other classes.
+     */
+    public boolean isSubclass(ClassInformation derivedClass, ClassInformation superClass) {
+
+        // the interval of the derived class must be inside the interval of the super class
+        return superClass.hierarchyPre <= derivedClass.hierarchyPre && derivedClass.hierarchyPost <= superClass.hierarchyPost;
+    }
+
+    /**
+     * Checks if a value of the first type can be used where the second type is expected.
+     * Types are the same or the first is a class extending the second.
+     */
+    public boolean isSubtype(TypeInformation subType, TypeInformation superType) {
+
+        // the same type, covers the basic types too since types are unique objects
+        if (subType == superType) return true;
+
+        // only classes have subtypes
+        if (!subType.isClass() || !superType.isClass()) return false;
+
+        ClassInformation derivedClass = ((ClassTypeInformation) subType).getClassInformation();
+        ClassInformation superClass = ((ClassTypeInformation) superType).getClassInformation();
+
+        // types of classes that are not declared
+        if (derivedClass == null || superClass == null) return false;
+
+        return isSubclass(derivedClass, superClass);
+    }
+
+    /**
+     * Finds the closest class both classes are subclasses of.
+     * Returns null if the classes are in different inheritance trees.
+     */
+    public ClassInformation leastCommonAncestor(ClassInformation first, ClassInformation second) {
+
+        // one of them is the ancestor of the other
+        if (isSubclass(first, second)) return second;
+        if (isSubclass(second, first)) return first;
+
+        // jump up from the first class as long as the class reached is not an ancestor of the second
+        // the super class of the class we stop at is the least common ancestor
+        for (int k = ancestorsMap.get(first).length - 1; k >= 0; k--) {
+
+            ClassInformation[] ancestors = ancestorsMap.get(first);
+
+            if (k < ancestors.length && ancestors[k] != null && !isSubclass(second, ancestors[k])) {
+                first = ancestors[k];
+            }
+        }
+
+        return first.getSuperClass();
+    }
+
+    /**
+     * Type level least common ancestor, the closest type both types can be used as.
+     * Returns null if there is no such type.
+     */
+    public TypeInformation commonSuperType(TypeInformation firstType, TypeInformation secondType) {
+
+        // the same type, covers the basic types too since types are unique objects
+        if (firstType == secondType) return firstType;
+
+        // only classes have common super types
+        if (!firstType.isClass() || !secondType.isClass()) return null;
+
+        ClassInformation first = ((ClassTypeInformation) firstType).getClassInformation();
+        ClassInformation second = ((ClassTypeInformation) secondType).getClassInformation();
+
+        // types of classes that are not declared
+        if (first == null || second == null) return null;
+
+        ClassInformation ancestor = leastCommonAncestor(first, second);
+
+        return ancestor == null ? null : symbolTable.getClassType(ancestor.getClassName());
+    }
+}
@@ -1,11 +1,55 @@
 package symboltable;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class ClassInformation {
     String className;
-    int hashCode;
+
+    // the super class of this class, null if the class does not extend another one
+    ClassInformation superClass;
+
+    // fields declared in this class, name keyed and kept in declaration order
+    Map<String, VariableInformation> fields = new LinkedHashMap<>();
+
+    // methods declared in this class, name keyed and kept in declaration order
+    Map<String, MethodInformation> methods = new LinkedHashMap<>();
+
+    // pre-order and post-order numbers and depth of this class in the inheritance tree, set by the class hierarchy
+    int hierarchyPre;
+    int hierarchyPost;
+    int hierarchyDepth;
 
     public String getClassName() { return this.className; }
     public void setClassName(String className) { this.className = className; }
+    public ClassInformation getSuperClass() { return this.superClass; }
+    public void setSuperClass(ClassInformation superClass) { this.superClass = superClass; }
+    public Map<String, VariableInformation> getFields() { return this.fields; }
+    public Map<String, MethodInformation> getMethods() { return this.methods; }
+
+    // get a field declared in this class, null if there is no such field
+    public VariableInformation getField(String fieldName) { return this.fields.get(fieldName); }
+
+    // get a method declared in this class, null if there is no such method
+    public MethodInformation getMethod(String methodName) { return this.methods.get(methodName); }
+
+    // add a field to this class, returns false if a field with the same name already exists
+    public boolean addField(VariableInformation field) {
+
+        // set the class that owns the field
+        field.ownerClass = this;
+
+        return this.fields.putIfAbsent(field.getVarName(), field) == null;
+    }
+
+    // add a method to this class, returns false if a method with the same name already exists
+    public boolean addMethod(MethodInformation method) {
+
+        // set the class that owns the method
+        method.ownerClass = this;
+
+        return this.methods.putIfAbsent(method.getMethodName(), method) == null;
+    }
 
     // methods to allow us to use this class as a key to a map
     @Override
@@ -20,7 +64,7 @@ public class ClassInformation {
 
     @Override
     public int hashCode() {
-        return this.hashCode;
+        return this.className.hashCode();
     }
 
     @Override
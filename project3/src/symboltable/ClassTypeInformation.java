@@ -0,0 +1,33 @@
+package symboltable;
+
+import ir.IRType;
+
+// the type of the objects of a class
+public class ClassTypeInformation extends TypeInformation {
+
+    // the symbol table the class is looked up in
+    SymbolTable symbolTable;
+
+    // the class of the type, found the first time it is needed since a class can be used before its declaration
+    ClassInformation classInformation;
+
+    ClassTypeInformation(String className, SymbolTable symbolTable) {
+
+        // objects are pointers, 8 bytes inside an object
+        super(className, IRType.I8_PTR, 8);
+        this.symbolTable = symbolTable;
+    }
+
+    // the class of the type, null if no class with this name is declared in the file
+    public ClassInformation getClassInformation() {
+
+        if (this.classInformation == null) {
+            this.classInformation = this.symbolTable.classesMap.get(this.typeName);
+        }
+
+        return this.classInformation;
+    }
+
+    @Override
+    public boolean isClass() { return true; }
+}
@@ -1,11 +1,57 @@
 package symboltable;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public class MethodInformation {
     String methodName;
-    int hashCode;
+
+    // the return type of the method
+    TypeInformation returnType;
+
+    // the class this method is declared in
+    ClassInformation ownerClass;
+
+    // parameters of the method, name keyed and kept in declaration order
+    Map<String, VariableInformation> parameters = new LinkedHashMap<>();
+
+    // types of the parameters of the method *IN ORDER*, kept along with the parameters
+    List<TypeInformation> parameterTypes = new ArrayList<>();
+
+    // local variables of the method, name keyed and kept in declaration order
+    Map<String, VariableInformation> variables = new LinkedHashMap<>();
 
     public String getMethodName() { return this.methodName; }
     public void setMethodName(String methodName) { this.methodName = methodName; }
+    public TypeInformation getReturnType() { return this.returnType; }
+    public void setReturnType(TypeInformation returnType) { this.returnType = returnType; }
+    public ClassInformation getOwnerClass() { return this.ownerClass; }
+    public Map<String, VariableInformation> getParameters() { return this.parameters; }
+    public Map<String, VariableInformation> getVariables() { return this.variables; }
+
+    // get a parameter of this method, null if there is no such parameter
+    public VariableInformation getParameter(String parameterName) { return this.parameters.get(parameterName); }
+
+    // get a local variable of this method, null if there is no such variable
+    public VariableInformation getVariable(String variableName) { return this.variables.get(variableName); }
+
+    // add a parameter to this method, returns false if a parameter with the same name already exists
+    public boolean addParameter(VariableInformation parameter) {
+        if (this.parameters.putIfAbsent(parameter.getVarName(), parameter) != null) return false;
+
+        this.parameterTypes.add(parameter.getVarType());
+        return true;
+    }
+
+    // add a local variable to this method, returns false if a variable with the same name already exists
+    public boolean addVariable(VariableInformation variable) {
+        return this.variables.putIfAbsent(variable.getVarName(), variable) == null;
+    }
+
+    // get the types of the parameters of this method *IN ORDER*
+    public List<TypeInformation> getParameterTypes() { return this.parameterTypes; }
 
     // methods to allow us to use this class as a key to a map
     @Override
@@ -20,7 +66,7 @@ public class MethodInformation {
 
     @Override
     public int hashCode() {
-        return this.hashCode;
+        return this.methodName.hashCode();
     }
 
     @Override
@@ -0,0 +1,11 @@
+package symboltable;
+
+import ir.IRType;
+
+// int, boolean and the void return type of the main method
+public class PrimitiveTypeInformation extends TypeInformation {
+
+    PrimitiveTypeInformation(String typeName, IRType llvmType, int size) {
+        super(typeName, llvmType, size);
+    }
+}
@@ -2,87 +2,108 @@ package symboltable;
 
 import java.util.Map;
 import java.util.LinkedHashMap;
-import java.util.List;
 
 public class SymbolTable {
 
-    /**
-     * Clears all the maps in the symbol table to make room for the next file to be analized.
-     */
-    public static void reset() {
-
-        // clear all the maps in this symbol table class
-        classesMap.clear();
-        classInheritenceMap.clear();
-        classMethodsMap.clear();
-        classFieldsMap.clear();
-        classMethodTypeMap.clear();
-        classFieldTypeMap.clear();
-        methodParametersMap.clear();
-        methodVariablesMap.clear();
-        methodParameterTypeMap.clear();
-        methodVariableTypeMap.clear();
-
-    }
-
     /**
      * Class name to class information object map
      * Usage : class name (String) -> class information (ClassInformation Object)
+     * Each class information object owns the name keyed tables of its fields and methods,
+     * and each method information object owns the name keyed tables of its parameters and local variables.
      */
-    public static Map<String, ClassInformation> classesMap = new LinkedHashMap<>();
+    public Map<String, ClassInformation> classesMap = new LinkedHashMap<>();
 
     /**
-     * Derived to super class map
-     * Usage : class information (ClassInformation object) -> (ClassInformation object)
+     * Subtype and common ancestor queries over the classes of the classes map
+     * Built once all the classes are in the symbol table.
      */
-    public static Map<ClassInformation, ClassInformation> classInheritenceMap = new LinkedHashMap<>();
+    public ClassHierarchy classHierarchy;
 
     /**
-     * Class information to method information map
-     * Usage : class information (ClassInformation object) -> method information (MethodInformation object)
+     * Class name to class type map
+     * Usage : class name (String) -> the one type object of the class (ClassTypeInformation object)
      */
-    public static Map<ClassInformation, List<MethodInformation>> classMethodsMap = new LinkedHashMap<>();
+    Map<String, ClassTypeInformation> classTypesMap = new LinkedHashMap<>();
 
     /**
-     * Class information to field information map
-     * Usage : class information (ClassInformation object) -> field information (FieldInformation object)
+     * Finds the type object of a type name, i.e. int[] or a class name.
+     * The same object is returned for every call with the same name.
      */
-    public static Map<ClassInformation, List<VariableInformation>> classFieldsMap = new LinkedHashMap<>();
+    public TypeInformation getType(String typeName) {
+
+        switch (typeName) {
+            case "int":
+                return TypeInformation.INT;
+            case "boolean":
+                return TypeInformation.BOOLEAN;
+            case "void":
+                return TypeInformation.VOID;
+            case "int[]":
+                return TypeInformation.INT_ARRAY;
+            case "boolean[]":
+                return TypeInformation.BOOLEAN_ARRAY;
+            case "String[]":
+                return TypeInformation.STRING_ARRAY;
+            default:
+                return getClassType(typeName);
+        }
+    }
 
     /**
-     * Class method to type map
-     * Usage : class information (ClassInformation object), method information (MethodInformation object) -> type (String)
+     * Finds the type object of the objects of a class, the class may not be declared yet.
      */
-    public static Map<CustomPair<ClassInformation, MethodInformation>, String> classMethodTypeMap = new LinkedHashMap<>();
+    public ClassTypeInformation getClassType(String className) {
+        return classTypesMap.computeIfAbsent(className, name -> new ClassTypeInformation(name, this));
+    }
 
     /**
-     * Class field to type map
-     * Usage : class information (ClassInformation object), field information (VariableInformation object) -> type (String)
+     * Builds the class hierarchy index, must be called after the symbol table is complete.
      */
-    public static Map<CustomPair<ClassInformation, VariableInformation>, String> classFieldTypeMap = new LinkedHashMap<>();
+    public void buildClassHierarchy() {
+        classHierarchy = new ClassHierarchy(this);
+    }
 
     /**
-     * method parameters map
-     * Usage : class information (ClassInformation object), method information (MethodInformation object) -> list of parameterers (String)
+     * Finds the field visible from the given class, walking up the inheritance chain.
+     * Returns null if no class in the chain declares the field.
      */
-    public static Map<CustomPair<ClassInformation, MethodInformation>, List<VariableInformation>> methodParametersMap = new LinkedHashMap<>();
+    public VariableInformation lookupField(ClassInformation classInfo, String fieldName) {
 
-    /**
-     * method variables map
-     * Usage : class information (ClassInformation object), method information (MethodInformation object) -> list of variables (String)
-     */
-    public static Map<CustomPair<ClassInformation, MethodInformation>, List<VariableInformation>> methodVariablesMap = new LinkedHashMap<>();
+        // bottom up search in the inheritance tree
+        while (classInfo != null) {
 
-    /**
-     * Method parameter type map
-     * Usage : (class information (ClassInformation object), method information (MethodInformation object)), parameter (VariableInformation) -> type (String)
-     */
-    public static Map<CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation>, String> methodParameterTypeMap = new LinkedHashMap<>();
+            // get the field of the class if it has one
+            VariableInformation field = classInfo.getField(fieldName);
+
+            // found it, the closest declaration shadows the ones above
+            if (field != null) return field;
+
+            // continue higher in the inheritance tree
+            classInfo = classInfo.getSuperClass();
+        }
+
+        return null;
+    }
 
     /**
-     * Method variable type map
-     * Usage : (class information (ClassInformation object), method information (MethodInformation object)), parameter name (VariableInformation) -> type (String)
+     * Finds the method visible from the given class, walking up the inheritance chain.
+     * Returns null if no class in the chain declares the method.
      */
-    public static Map<CustomPair<CustomPair<ClassInformation, MethodInformation>, VariableInformation>, String> methodVariableTypeMap = new LinkedHashMap<>();
+    public MethodInformation lookupMethod(ClassInformation classInfo, String methodName) {
 
+        // bottom up search in the inheritance tree
+        while (classInfo != null) {
+
+            // get the method of the class if it has one
+            MethodInformation method = classInfo.getMethod(methodName);
+
+            // found it, the closest declaration overrides the ones above
+            if (method != null) return method;
+
+            // continue higher in the inheritance tree
+            classInfo = classInfo.getSuperClass();
+        }
+
+        return null;
+    }
 }
@@ -0,0 +1,52 @@
+package symboltable;
+
+import ir.IRType;
+
+/**
+ * A type of the language, i.e. int, boolean, int[], boolean[] or a class.
+ * Types are canonical, there is exactly one object for every type in a file,
+ * so two types are the same if and only if they are the same object.
+ * The primitive and array types are shared by all the files, the class types are kept by the symbol table of the file.
+ */
+public abstract class TypeInformation {
+
+    // the name of the type as written in the source, i.e. int[]
+    String typeName;
+
+    // the llvm type of a value of this type, i.e. i32
+    IRType llvmType;
+
+    // the size in bytes of a field of this type inside an object
+    int size;
+
+    TypeInformation(String typeName, IRType llvmType, int size) {
+        this.typeName = typeName;
+        this.llvmType = llvmType;
+        this.size = size;
+    }
+
+    // the basic types of the language
+    public static final PrimitiveTypeInformation INT = new PrimitiveTypeInformation("int", IRType.I32, 4);
+    public static final PrimitiveTypeInformation BOOLEAN = new PrimitiveTypeInformation("boolean", IRType.I1, 1);
+    public static final PrimitiveTypeInformation VOID = new PrimitiveTypeInformation("void", IRType.VOID, 0);
+
+    // the array types of the language, both arrays point to the i32 length at their start
+    // the elements follow the length, an i32 for every int and an i8 for every boolean
+    public static final ArrayTypeInformation INT_ARRAY = new ArrayTypeInformation("int[]", INT, IRType.I32_PTR);
+    public static final ArrayTypeInformation BOOLEAN_ARRAY = new ArrayTypeInformation("boolean[]", BOOLEAN, IRType.I32_PTR);
+
+    // the type of the argument of the main method, cannot be used in the program
+    public static final ArrayTypeInformation STRING_ARRAY = new ArrayTypeInformation("String[]", null, IRType.I8_PTR_PTR);
+
+    public String getTypeName() { return this.typeName; }
+    public IRType getLLVMType() { return this.llvmType; }
+    public int getSize() { return this.size; }
+
+    public boolean isArray() { return false; }
+    public boolean isClass() { return false; }
+
+    @Override
+    public String toString() {
+        return this.typeName;
+    }
+}
@@ -2,10 +2,14 @@ package symboltable;
 
 public class VariableInformation {
 
-    int hashCode;
-
     String varName;
 
+    // the declared type of the variable
+    TypeInformation varType;
+
+    // the class declaring the variable if it is a field, null for parameters and local variables
+    ClassInformation ownerClass;
+
     public String getVarName() {
         return this.varName;
     }
@@ -14,6 +18,18 @@ public class VariableInformation {
         this.varName = fieldName;
     }
 
+    public TypeInformation getVarType() {
+        return this.varType;
+    }
+
+    public void setVarType(TypeInformation varType) {
+        this.varType = varType;
+    }
+
+    public ClassInformation getOwnerClass() {
+        return this.ownerClass;
+    }
+
     // methods to allow us to use this class as a key to a map
     @Override
     public boolean equals(Object obj) {
@@ -29,7 +45,7 @@ public class VariableInformation {
 
     @Override
     public int hashCode() {
-        return this.hashCode;
+        return this.varName.hashCode();
     }
 
     @Override